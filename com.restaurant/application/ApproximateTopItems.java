@@ -0,0 +1,32 @@
+package application;
+
+import java.util.Map;
+
+/**
+ * An approximate ranking together with its error bound: no count is below
+ * the true one or more than {@link #getMaxError()} above it, and every item
+ * that sold more than that many units is in the ranking.
+ */
+public final class ApproximateTopItems {
+    private final Map<String, Integer> items;
+    private final long maxError;
+
+    ApproximateTopItems(Map<String, Integer> items, long maxError) {
+        this.items = items;
+        this.maxError = maxError;
+    }
+
+    // Item name to estimated units sold, best sellers first
+    public Map<String, Integer> getItems() {
+        return items;
+    }
+
+    public long getMaxError() {
+        return maxError;
+    }
+
+    @Override
+    public String toString() {
+        return items + " (each at most " + maxError + " over)";
+    }
+}
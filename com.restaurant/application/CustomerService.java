@@ -0,0 +1,41 @@
+package application;
+
+import domain.model.Customer;
+import domain.repository.CustomerRepository;
+
+import java.util.List;
+import java.util.Optional;
+
+public class CustomerService {
+    private final CustomerRepository customerRepository;
+
+    public CustomerService(CustomerRepository customerRepository) {
+        this.customerRepository = customerRepository;
+    }
+
+    public List<Customer> getAllCustomers() {
+        return customerRepository.findAll();
+    }
+
+    public Optional<Customer> getCustomerById(String id) {
+        return customerRepository.findById(id);
+    }
+
+    public Customer addCustomer(String name, String address, String phone) {
+        Customer customer = new Customer(name, address, phone);
+        customerRepository.save(customer);
+        return customer;
+    }
+
+    public void updateCustomer(Customer customer) {
+        customerRepository.save(customer);
+    }
+
+    public Optional<Customer> getCustomerByPhone(String phone) {
+        return customerRepository.findByPhone(phone);
+    }
+
+    public List<Customer> findCustomersByPhoneEnding(String lastDigits, int limit) {
+        return customerRepository.findByPhoneSuffix(lastDigits, limit);
+    }
+}
@@ -0,0 +1,78 @@
+package application;
+
+import domain.model.Order;
+import domain.model.OrderItem;
+import domain.service.OrderProcessingService.LineCook;
+import domain.service.OrderProcessingService.Station;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * The kitchen screen. Each line a cook picks up is shown under a number
+ * until staff mark it done, and the cook waits for that, so a station works
+ * on as many lines at once as it has cooks and the rest stay queued.
+ */
+public class KitchenBoard implements LineCook {
+    private final AtomicLong nextNumber = new AtomicLong(1);
+    // Lines being made, oldest first
+    private final Map<Long, Entry> inProgress = new ConcurrentSkipListMap<>();
+
+    public static final class Entry {
+        private final long number;
+        private final Station station;
+        private final String orderId;
+        private final OrderItem line;
+        private final CountDownLatch done = new CountDownLatch(1);
+
+        Entry(long number, Station station, String orderId, OrderItem line) {
+            this.number = number;
+            this.station = station;
+            this.orderId = orderId;
+            this.line = line;
+        }
+
+        public long getNumber() {
+            return number;
+        }
+
+        public Station getStation() {
+            return station;
+        }
+
+        public String getOrderId() {
+            return orderId;
+        }
+
+        public OrderItem getLine() {
+            return line;
+        }
+    }
+
+    @Override
+    public void prepare(Station station, Order order, OrderItem line) throws InterruptedException {
+        Entry entry = new Entry(nextNumber.getAndIncrement(), station, order.getId(), line);
+        inProgress.put(entry.number, entry);
+        try {
+            entry.done.await();
+        } finally {
+            inProgress.remove(entry.number);
+        }
+    }
+
+    public List<Entry> getInProgress() {
+        return new ArrayList<>(inProgress.values());
+    }
+
+    public void markDone(long number) {
+        Entry entry = inProgress.get(number);
+        if (entry == null) {
+            throw new IllegalArgumentException("No line " + number + " is being prepared");
+        }
+        entry.done.countDown();
+    }
+}
@@ -1,5 +1,76 @@
 package application;
 
+import domain.model.Appetizer;
+import domain.model.Beverage;
+import domain.model.Dessert;
+import domain.model.MenuCatalog;
+import domain.model.MainDish;
+import domain.model.MenuItem;
+import domain.model.Money;
+import domain.repository.MenuRepository;
+import domain.service.PriceRule;
+import domain.service.PricingService;
+
+import java.util.List;
+import java.util.Optional;
+
 public class MenuService {
+    private final MenuRepository menuRepository;
+    private final PricingService pricingService;
+
+    public MenuService(MenuRepository menuRepository) {
+        this.menuRepository = menuRepository;
+        this.pricingService = new PricingService(menuRepository);
+    }
+
+    public List<MenuItem> getAllMenuItems() {
+        return menuRepository.findAll();
+    }
+
+    // Read-only and already grouped by category; cheap to call on every screen
+    public MenuCatalog getCatalog() {
+        return menuRepository.getCatalog();
+    }
+
+    public Optional<MenuItem> getMenuItemById(String id) {
+        return menuRepository.findById(id);
+    }
+
+    public MenuItem addMenuItem(String type, String name, double price, String description, boolean extraProperty) {
+        Money itemPrice = Money.of(price);
+        MenuItem menuItem;
+        switch (type.toLowerCase()) {
+            case "main":
+                menuItem = new MainDish(name, itemPrice, description, extraProperty);
+                break;
+            case "appetizer":
+                menuItem = new Appetizer(name, itemPrice, description, extraProperty);
+                break;
+            case "beverage":
+                menuItem = new Beverage(name, itemPrice, description, extraProperty);
+                break;
+            case "dessert":
+                menuItem = new Dessert(name, itemPrice, description, extraProperty);
+                break;
+            default:
+                throw new IllegalArgumentException("Invalid menu item type: " + type);
+        }
+        menuRepository.save(menuItem);
+        return menuItem;
+    }
+
+    public void updateMenuItem(MenuItem menuItem) {
+        menuRepository.save(menuItem);
+    }
+
+    // Reprices every item at once; returns the new catalog
+    public MenuCatalog repriceMenu(List<PriceRule> rules) {
+        return pricingService.reprice(rules);
+    }
 
+    public void removeMenuItem(String id) {
+        MenuItem menuItem = menuRepository.findById(id)
+                .orElseThrow(() -> new IllegalArgumentException("Menu item not found: " + id));
+        menuRepository.delete(menuItem.getId());
+    }
 }
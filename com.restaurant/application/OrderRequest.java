@@ -0,0 +1,64 @@
+package application;
+
+import domain.model.Customer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * An order to be placed with {@link OrderService#placeOrders}: an existing
+ * customer's ID, or a new customer, and the menu items ordered.
+ */
+public class OrderRequest {
+    private final String customerId;
+    private final Customer customer;
+    private final List<Line> lines = new ArrayList<>();
+
+    public OrderRequest(String customerId) {
+        this.customerId = customerId;
+        this.customer = null;
+    }
+
+    // The customer is saved along with the order if it is not known yet
+    public OrderRequest(Customer customer) {
+        this.customerId = customer.getId();
+        this.customer = customer;
+    }
+
+    public OrderRequest addLine(String menuItemId, int quantity) {
+        lines.add(new Line(menuItemId, quantity));
+        return this;
+    }
+
+    public String getCustomerId() {
+        return customerId;
+    }
+
+    // Null when the request names an existing customer by ID
+    public Customer getCustomer() {
+        return customer;
+    }
+
+    public List<Line> getLines() {
+        return Collections.unmodifiableList(lines);
+    }
+
+    public static final class Line {
+        private final String menuItemId;
+        private final int quantity;
+
+        Line(String menuItemId, int quantity) {
+            this.menuItemId = menuItemId;
+            this.quantity = quantity;
+        }
+
+        public String getMenuItemId() {
+            return menuItemId;
+        }
+
+        public int getQuantity() {
+            return quantity;
+        }
+    }
+}
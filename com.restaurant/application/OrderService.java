@@ -1,5 +1,505 @@
 package application;
 
+import domain.decorator.CustomizationCache;
+import domain.model.Customer;
+import domain.model.EntityIds;
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
+import domain.model.MenuItemSnapshot;
+import domain.model.Order;
+import domain.model.RestaurantTime;
+import domain.observer.OrderObserver;
+import domain.observer.OrderObserverRegistry;
+import domain.repository.CustomerRepository;
+import domain.repository.MenuRepository;
+import domain.repository.OrderJournal;
+import domain.repository.OrderRepository;
+import domain.service.discount.DiscountStrategy;
+import domain.service.discount.Promotion;
+import domain.service.discount.PromotionPlan;
+import domain.state.DeliveredState;
+import domain.state.OrderState;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
 public class OrderService {
+    private final OrderRepository orderRepository;
+    private final CustomerRepository customerRepository;
+    private final MenuRepository menuRepository;
+    private final OrderJournal journal;
+    // Shared by every order this service creates
+    private final OrderObserverRegistry observerRegistry = new OrderObserverRegistry();
+    private final CustomizationCache customizations = new CustomizationCache();
+    // Compiled once and shared by every order it is applied to; null until promotions are set
+    private volatile PromotionPlan promotions;
+    // Creations hold the read lock from journaling to saving; checkpoints take the write lock to collect
+    // orders, and evictions to remove them, so a checkpoint sees each order either stored or gone
+    private final ReadWriteLock creationLock = new ReentrantReadWriteLock();
+
+    public OrderService(OrderRepository orderRepository, CustomerRepository customerRepository,
+                        MenuRepository menuRepository) {
+        this(orderRepository, customerRepository, menuRepository, OrderJournal.NONE);
+    }
+
+    public OrderService(OrderRepository orderRepository, CustomerRepository customerRepository,
+                        MenuRepository menuRepository, OrderJournal journal) {
+        this.orderRepository = orderRepository;
+        this.customerRepository = customerRepository;
+        this.menuRepository = menuRepository;
+        this.journal = journal;
+    }
+
+    /**
+     * Rebuilds orders and their customers from the journal. Run once at startup,
+     * after report views are registered (they recount delivered orders) but
+     * before notifiers, so customers are not notified again.
+     */
+    public void recover() {
+        Map<Long, Order> recovered = new HashMap<>();
+        journal.replay(new OrderJournal.ReplayHandler() {
+            @Override
+            public void orderCreated(long orderId, Date dateCreated, Customer customer) {
+                if (recovered.containsKey(orderId)) {
+                    // Already restored from the checkpoint
+                    return;
+                }
+                Customer existing = customerRepository.findById(customer.getId()).orElse(null);
+                if (existing == null) {
+                    customerRepository.save(customer);
+                    existing = customer;
+                }
+                recovered.put(orderId, new Order(orderId, existing, dateCreated, observerRegistry));
+            }
+
+            @Override
+            public void itemAdded(long orderId, int revision, MenuItemSnapshot item, int quantity) {
+                Order order = pending(orderId, revision);
+                if (order != null) {
+                    MenuItemSnapshot line = item.getModifiers().isEmpty()
+                            ? item : customizations.compile(item.getBase(), item.getModifiers());
+                    order.addItem(line, quantity);
+                }
+            }
+
+            @Override
+            public void itemRemoved(long orderId, int revision, int line) {
+                Order order = pending(orderId, revision);
+                if (order != null) {
+                    order.removeItem(line);
+                }
+            }
+
+            @Override
+            public void quantityChanged(long orderId, int revision, int line, int quantity) {
+                Order order = pending(orderId, revision);
+                if (order != null) {
+                    order.changeQuantity(line, quantity);
+                }
+            }
+
+            @Override
+            public void discountApplied(long orderId, int revision, DiscountStrategy discountStrategy) {
+                Order order = pending(orderId, revision);
+                if (order != null) {
+                    order.setDiscountStrategy(discountStrategy);
+                }
+            }
+
+            @Override
+            public void stateAdvanced(long orderId, int revision) {
+                Order order = pending(orderId, revision);
+                if (order != null) {
+                    order.nextState();
+                }
+            }
+
+            // The order, unless the change is one the checkpoint already contains
+            private Order pending(long orderId, int revision) {
+                Order order = recovered.get(orderId);
+                if (order == null) {
+                    throw new IllegalStateException("Order log refers to unknown order " + orderId);
+                }
+                if (revision <= order.getRevision()) {
+                    return null;
+                }
+                order.setRevision(revision);
+                return order;
+            }
+        });
+        // Catalog versions are not journaled; recovered orders take prices from the menu as loaded
+        long catalogVersion = menuRepository.getCatalog().getVersion();
+        for (Order order : recovered.values()) {
+            order.setCatalogVersion(catalogVersion);
+        }
+        // Indexed in one pass rather than an index update per order
+        orderRepository.saveAll(recovered.values());
+    }
+
+    /**
+     * Lets the journal drop history that the current orders already reflect.
+     * Orders are collected once no creation is between being journaled and
+     * being saved and no eviction is half done, so every order is either in
+     * the checkpoint or was evicted before it started.
+     */
+    public void checkpoint() {
+        journal.checkpoint(() -> {
+            creationLock.writeLock().lock();
+            try {
+                return orderRepository.findAll();
+            } finally {
+                creationLock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Drops delivered orders from the repository, for use with a report view
+     * that archives them. They no longer change, still count in reports and
+     * are left out of later journal checkpoints. Returns how many were dropped.
+     */
+    public int evictDeliveredOrders() {
+        creationLock.writeLock().lock();
+        try {
+            List<Order> delivered = orderRepository.findByStatus(DeliveredState.INSTANCE.getStateName());
+            for (Order order : delivered) {
+                orderRepository.delete(order.getId());
+                observerRegistry.forgetOrder(order.getId());
+            }
+            return delivered.size();
+        } finally {
+            creationLock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Drops delivered orders created before the given day, a day at a time.
+     * Past days whose orders are all delivered are dropped as a whole; open
+     * orders stay. Returns how many orders were dropped.
+     */
+    public int evictDeliveredOrdersBefore(LocalDate day) {
+        creationLock.writeLock().lock();
+        try {
+            // Today's bucket can still gain open orders, so it is never dropped whole
+            LocalDate today = RestaurantTime.today();
+            int evicted = 0;
+            for (LocalDate past : orderRepository.findDaysBefore(day)) {
+                List<Order> orders = orderRepository.findByDay(past);
+                List<Order> delivered = new ArrayList<>(orders.size());
+                for (Order order : orders) {
+                    if (order.getState() == DeliveredState.INSTANCE) {
+                        delivered.add(order);
+                    }
+                }
+                if (delivered.size() == orders.size() && past.isBefore(today)) {
+                    evicted += orderRepository.deleteByDay(past);
+                } else {
+                    for (Order order : delivered) {
+                        orderRepository.delete(order.getId());
+                    }
+                    evicted += delivered.size();
+                }
+                for (Order order : delivered) {
+                    observerRegistry.forgetOrder(order.getId());
+                }
+            }
+            return evicted;
+        } finally {
+            creationLock.writeLock().unlock();
+        }
+    }
+
+    public List<Order> getAllOrders() {
+        return orderRepository.findAll();
+    }
+
+    public Optional<Order> getOrderById(String orderId) {
+        return orderRepository.findById(orderId);
+    }
+
+    public List<Order> getOrdersByCustomer(String customerId) {
+        return orderRepository.findByCustomerId(customerId);
+    }
+
+    public List<Order> getOrdersByStatus(String status) {
+        return orderRepository.findByStatus(status);
+    }
+
+    public Order createOrder(String customerId) {
+        Customer customer = customerRepository.findById(customerId)
+                .orElseThrow(() -> new IllegalArgumentException("Customer not found: " + customerId));
+        return createOrder(customer);
+    }
+
+    public Order createOrder(Customer customer) {
+        if (!customerRepository.findById(customer.getId()).isPresent()) {
+            customerRepository.save(customer);
+        }
+        Order order = new Order(customer, observerRegistry);
+        order.setCatalogVersion(menuRepository.getCatalog().getVersion());
+        creationLock.readLock().lock();
+        try {
+            journal.orderCreated(order);
+            orderRepository.save(order);
+        } finally {
+            creationLock.readLock().unlock();
+        }
+        observerRegistry.ordersReceived(List.of(order));
+        return order;
+    }
+
+    /**
+     * Places many orders in one call, e.g. a burst from a delivery platform.
+     * Customers and menu items are all resolved against one catalog version
+     * before anything is created, so either every order is placed or none is.
+     * The orders are journaled and stored as one batch, and observers hear
+     * about them in a single ordersReceived call.
+     */
+    public List<Order> placeOrders(List<OrderRequest> requests) {
+        MenuCatalog catalog = menuRepository.getCatalog();
+        Map<String, Customer> customers = new HashMap<>();
+        List<Customer> newCustomers = new ArrayList<>();
+        Map<String, MenuItemSnapshot> snapshots = new HashMap<>();
+        List<Customer> orderCustomers = new ArrayList<>(requests.size());
+        for (OrderRequest request : requests) {
+            orderCustomers.add(customers.computeIfAbsent(request.getCustomerId(), id -> {
+                Optional<Customer> existing = customerRepository.findById(id);
+                if (existing.isPresent()) {
+                    return existing.get();
+                }
+                if (request.getCustomer() == null) {
+                    throw new IllegalArgumentException("Customer not found: " + id);
+                }
+                newCustomers.add(request.getCustomer());
+                return request.getCustomer();
+            }));
+            for (OrderRequest.Line line : request.getLines()) {
+                if (line.getQuantity() <= 0) {
+                    throw new IllegalArgumentException("Quantity must be greater than zero");
+                }
+                snapshots.computeIfAbsent(line.getMenuItemId(), id -> {
+                    MenuItem menuItem = catalog.findById(id)
+                            .orElseThrow(() -> new IllegalArgumentException("Menu item not found: " + id));
+                    return catalog.getSnapshot(menuItem.getId()).get();
+                });
+            }
+        }
+
+        long[] ids = EntityIds.nextBlock(requests.size());
+        long now = System.currentTimeMillis();
+        int today = RestaurantTime.epochDay(now);
+        List<Order> orders = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            Order order = new Order(ids[i], orderCustomers.get(i), now, today, observerRegistry);
+            order.setCatalogVersion(catalog.getVersion());
+            List<OrderRequest.Line> lines = requests.get(i).getLines();
+            for (OrderRequest.Line line : lines) {
+                order.addItem(snapshots.get(line.getMenuItemId()), line.getQuantity());
+            }
+            order.setRevision(lines.size());
+            orders.add(order);
+        }
+
+        for (Customer customer : newCustomers) {
+            customerRepository.save(customer);
+        }
+        creationLock.readLock().lock();
+        try {
+            journal.ordersPlaced(orders);
+            orderRepository.saveAll(orders);
+        } finally {
+            creationLock.readLock().unlock();
+        }
+        List<Order> placed = Collections.unmodifiableList(orders);
+        observerRegistry.ordersReceived(placed);
+        return placed;
+    }
+
+    public void addItemToOrder(String orderId, String menuItemId, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        Order order = getOpenOrder(orderId);
+        // Resolve the item against one catalog version, and price it as of the order's
+        MenuCatalog catalog = menuRepository.getCatalog();
+        MenuItem menuItem = catalog.findById(menuItemId)
+                .orElseThrow(() -> new IllegalArgumentException("Menu item not found: " + menuItemId));
+        MenuItemSnapshot snapshot = pricingCatalog(order, catalog, menuItem).getSnapshot(menuItem.getId()).get();
+        synchronized (order) {
+            // Delivery also happens under the monitor, so this check cannot go stale before the change is applied
+            requireOpen(order);
+            order.setRevision(order.getRevision() + 1);
+            journal.itemAdded(order, snapshot, quantity);
+            order.addItem(snapshot, quantity);
+        }
+    }
+
+    // Accepts a menu item wrapped in decorators; the customization is stored flattened
+    public void addItemToOrder(String orderId, MenuItem menuItem, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        Order order = getOpenOrder(orderId);
+        MenuItemSnapshot snapshot = customizations.compile(menuItem,
+                pricingCatalog(order, menuRepository.getCatalog(), CustomizationCache.undecorated(menuItem)));
+        synchronized (order) {
+            requireOpen(order);
+            order.setRevision(order.getRevision() + 1);
+            journal.itemAdded(order, snapshot, quantity);
+            order.addItem(snapshot, quantity);
+        }
+    }
+
+    // The catalog from before any price change since the order was created, unless the item is newer than that
+    private MenuCatalog pricingCatalog(Order order, MenuCatalog catalog, MenuItem menuItem) {
+        MenuCatalog pinned = menuRepository.catalogFor(order.getCatalogVersion());
+        return pinned.getSnapshot(menuItem.getId()).isPresent() ? pinned : catalog;
+    }
+
+    // Lines are positions in the order's item list
+    public void removeItemFromOrder(String orderId, int line) {
+        Order order = getOpenOrder(orderId);
+        synchronized (order) {
+            requireOpen(order);
+            requireLine(order, line);
+            order.setRevision(order.getRevision() + 1);
+            journal.itemRemoved(order, line);
+            order.removeItem(line);
+        }
+    }
+
+    public void changeItemQuantity(String orderId, int line, int quantity) {
+        if (quantity <= 0) {
+            throw new IllegalArgumentException("Quantity must be greater than zero");
+        }
+        Order order = getOpenOrder(orderId);
+        synchronized (order) {
+            requireOpen(order);
+            requireLine(order, line);
+            order.setRevision(order.getRevision() + 1);
+            journal.quantityChanged(order, line, quantity);
+            order.changeQuantity(line, quantity);
+        }
+    }
+
+    private static void requireLine(Order order, int line) {
+        if (line < 0 || line >= order.getItems().size()) {
+            throw new IllegalArgumentException("Order " + order.getId() + " has no line " + line);
+        }
+    }
+
+    public void applyDiscount(String orderId, DiscountStrategy discountStrategy) {
+        Order order = getOpenOrder(orderId);
+        synchronized (order) {
+            requireOpen(order);
+            order.setRevision(order.getRevision() + 1);
+            journal.discountApplied(order, discountStrategy);
+            order.setDiscountStrategy(discountStrategy);
+        }
+    }
+
+    /**
+     * Replaces the promotions that applyPromotions puts on orders. They are
+     * compiled against the current menu; set them again after menu changes
+     * so new items are resolved ahead of time too.
+     */
+    public void setPromotions(List<Promotion> activePromotions) {
+        promotions = PromotionPlan.compile(activePromotions, menuRepository.getCatalog());
+    }
+
+    public void applyPromotions(String orderId) {
+        PromotionPlan plan = promotions;
+        if (plan == null) {
+            throw new IllegalStateException("No promotions are active");
+        }
+        applyDiscount(orderId, plan);
+    }
+
+    public void progressOrderState(String orderId) {
+        Order order = getOrder(orderId);
+        // The journal is written under the order's monitor so checkpoints see changes whole
+        synchronized (order) {
+            OrderState current = order.getState();
+            if (current instanceof DeliveredState) {
+                throw new IllegalStateException("Order " + orderId + " is " + order.getStatus()
+                        + " and could not be advanced");
+            }
+            advanceJournaled(order, current);
+        }
+        // Re-save so the status index follows the transition
+        orderRepository.save(order);
+    }
+
+    /**
+     * Advances the order only if it is still in {@code expected}, for callers
+     * that may race with staff, such as the kitchen dispatcher. Returns false
+     * if the order had already moved on.
+     */
+    public boolean advanceOrder(String orderId, OrderState expected) {
+        Order order = getOrder(orderId);
+        synchronized (order) {
+            if (order.getState() != expected || expected instanceof DeliveredState) {
+                return false;
+            }
+            advanceJournaled(order, expected);
+        }
+        orderRepository.save(order);
+        return true;
+    }
+
+    // Journals the transition before applying it, so observers only hear of durable changes
+    private void advanceJournaled(Order order, OrderState current) {
+        order.setRevision(order.getRevision() + 1);
+        journal.stateAdvanced(order);
+        if (!order.advanceFrom(current)) {
+            // Every transition goes through here under the monitor, so only a bypass gets this far
+            throw new IllegalStateException("Order " + order.getId() + " changed state outside the order service");
+        }
+    }
+
+    public void addOrderObserver(String orderId, OrderObserver observer) {
+        observerRegistry.subscribeToOrder(getOrder(orderId).getId(), observer);
+    }
+
+    public void addCustomerObserver(String customerId, OrderObserver observer) {
+        Customer customer = customerRepository.findById(customerId)
+                .orElseThrow(() -> new IllegalArgumentException("Customer not found: " + customerId));
+        observerRegistry.subscribeToCustomer(customer.getId(), observer);
+    }
+
+    // Follows every order, e.g. report views and staff-wide notifiers
+    public void addGlobalObserver(OrderObserver observer) {
+        observerRegistry.subscribe(observer);
+    }
+
+    public void removeObserver(OrderObserver observer) {
+        observerRegistry.unsubscribe(observer);
+    }
+
+    private Order getOrder(String orderId) {
+        return orderRepository.findById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+    }
+
+    // Delivered orders are already counted in the sales reports and must not change
+    private Order getOpenOrder(String orderId) {
+        Order order = getOrder(orderId);
+        requireOpen(order);
+        return order;
+    }
 
+    // Call again under the order's monitor before changing it
+    private static void requireOpen(Order order) {
+        if (order.getState() instanceof DeliveredState) {
+            throw new IllegalStateException("Order " + order.getId() + " has already been delivered");
+        }
+    }
 }
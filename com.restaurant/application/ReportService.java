@@ -1,5 +1,78 @@
 package application;
 
+import domain.model.Money;
+import domain.model.RestaurantTime;
+
+import java.time.LocalDate;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
 public class ReportService {
+    private final SalesReportView salesReportView;
+
+    public ReportService(SalesReportView salesReportView) {
+        this.salesReportView = salesReportView;
+    }
+
+    // Figures for orders created on the given day that have been delivered
+    public SalesSummary summarize(Date date) {
+        return salesReportView.getSummary(date);
+    }
+
+    // Figures for delivered orders created from one day to another, both inclusive
+    public SalesSummary summarize(LocalDate from, LocalDate to) {
+        return salesReportView.getSummary(from, to);
+    }
+
+    public String generateDailySalesReport(Date date) {
+        return summarize(date).toReport();
+    }
+
+    public String generateSalesReport(LocalDate from, LocalDate to) {
+        return summarize(from, to).toReport();
+    }
+
+    public Map<String, Integer> getMostPopularItems(Date date, int limit) {
+        return summarize(date).getMostPopularItems(limit);
+    }
+
+    public Map<String, Integer> getMostPopularItems(Date from, Date to, int limit) {
+        return getMostPopularItems(RestaurantTime.toLocalDate(from), RestaurantTime.toLocalDate(to), limit);
+    }
+
+    // Exact ranking over a date range; memory grows with the number of distinct items
+    public Map<String, Integer> getMostPopularItems(LocalDate from, LocalDate to, int limit) {
+        Map<String, Integer> unitsByItem = new HashMap<>();
+        salesReportView.forEachRollup(from, to, summary ->
+                summary.forEachItem((item, units) -> unitsByItem.merge(item, units, Integer::sum)));
+        TopItems topItems = new TopItems(limit);
+        unitsByItem.forEach(topItems::offer);
+        return topItems.toMap();
+    }
+
+    public ApproximateTopItems getApproximateMostPopularItems(Date from, Date to, int limit) {
+        return getApproximateMostPopularItems(RestaurantTime.toLocalDate(from), RestaurantTime.toLocalDate(to), limit);
+    }
+
+    /**
+     * Approximate ranking over a date range in fixed memory: the bounded
+     * sketches kept by the rollups covering the range are merged, without
+     * touching their exact item counts. Counts may be overestimated by at
+     * most total units sold in the range / 1024, and any item selling more
+     * than that is always ranked.
+     */
+    public ApproximateTopItems getApproximateMostPopularItems(LocalDate from, LocalDate to, int limit) {
+        SpaceSavingTopK sketch = new SpaceSavingTopK(SalesSummary.SKETCH_COUNTERS);
+        salesReportView.forEachRollup(from, to, summary -> summary.mergeSketchInto(sketch));
+        return new ApproximateTopItems(sketch.top(limit), sketch.getMaxError());
+    }
+
+    public Map<String, Money> getRevenueByCategory(Date date) {
+        return summarize(date).getRevenueByCategory();
+    }
 
+    public Map<String, Money> getRevenueByCategory(LocalDate from, LocalDate to) {
+        return summarize(from, to).getRevenueByCategory();
+    }
 }
@@ -0,0 +1,210 @@
+package application;
+
+import domain.model.Order;
+import domain.model.RestaurantTime;
+import domain.observer.OrderObserver;
+import domain.repository.DeliveredOrderArchive;
+import domain.state.DeliveredState;
+import domain.state.OrderState;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * Sales figures kept up to date as orders are delivered, as daily, weekly
+ * (Monday to Sunday) and monthly rollups. A range is answered by combining
+ * the fewest rollups that cover it exactly, so a year costs about twelve
+ * lookups rather than a scan over its orders. Days and weeks are keyed by
+ * epoch day, so counting an order needs no calendar work. Register it with
+ * {@link OrderService#addGlobalObserver} so it sees every order.
+ *
+ * Given an archive, delivered orders are also written there and the rollups
+ * are rebuilt from it on startup, so the orders themselves need not stay on
+ * the heap.
+ */
+public class SalesReportView implements OrderObserver {
+    private final Map<Integer, SalesSummary> days = new ConcurrentHashMap<>();
+    // Keyed by the week's Monday
+    private final Map<Integer, SalesSummary> weeks = new ConcurrentHashMap<>();
+    private final Map<YearMonth, SalesSummary> months = new ConcurrentHashMap<>();
+    // Null when delivered orders are not archived
+    private final DeliveredOrderArchive archive;
+
+    public SalesReportView() {
+        this(null);
+    }
+
+    public SalesReportView(DeliveredOrderArchive archive) {
+        this.archive = archive;
+        if (archive != null) {
+            loadArchive();
+        }
+    }
+
+    @Override
+    public void update(Order order) {
+        // Only delivery matters, see stateChanged
+    }
+
+    @Override
+    public void stateChanged(Order order, OrderState newState) {
+        if (newState != DeliveredState.INSTANCE) {
+            return;
+        }
+        // Already counted if the archive has it, e.g. when the journal is replayed
+        if (archive != null && !archive.append(order)) {
+            return;
+        }
+        int day = order.getEpochDay();
+        daySummary(day).add(order);
+        weekSummary(day).add(order);
+        monthSummary(day).add(order);
+    }
+
+    public SalesSummary getSummary(Date date) {
+        LocalDate day = RestaurantTime.toLocalDate(date);
+        return getSummary(day, day);
+    }
+
+    // Figures for orders created from one day to another, both inclusive
+    public SalesSummary getSummary(LocalDate from, LocalDate to) {
+        if (from.equals(to)) {
+            SalesSummary summary = days.get(RestaurantTime.epochDay(from));
+            return summary != null ? summary : new SalesSummary(from, to);
+        }
+        SalesSummary total = new SalesSummary(from, to);
+        forEachRollup(from, to, total::merge);
+        return total;
+    }
+
+    /**
+     * Visits the rollups that together cover the range exactly: whole months,
+     * then whole weeks, then single days. Periods without sales are skipped.
+     */
+    void forEachRollup(LocalDate from, LocalDate to, Consumer<SalesSummary> consumer) {
+        if (to.isBefore(from)) {
+            throw new IllegalArgumentException("Report period ends before it starts");
+        }
+        LocalDate day = from;
+        while (!day.isAfter(to)) {
+            SalesSummary rollup;
+            LocalDate next;
+            if (day.getDayOfMonth() == 1 && !YearMonth.from(day).atEndOfMonth().isAfter(to)) {
+                rollup = months.get(YearMonth.from(day));
+                next = day.plusMonths(1);
+            } else if (day.getDayOfWeek() == DayOfWeek.MONDAY && !day.plusDays(6).isAfter(to)
+                    && !spillsIntoCoveredMonth(day, to)) {
+                rollup = weeks.get(RestaurantTime.epochDay(day));
+                next = day.plusWeeks(1);
+            } else {
+                rollup = days.get(RestaurantTime.epochDay(day));
+                next = day.plusDays(1);
+            }
+            if (rollup != null) {
+                consumer.accept(rollup);
+            }
+            day = next;
+        }
+    }
+
+    // Taking such a week would split a month the range covers entirely
+    private static boolean spillsIntoCoveredMonth(LocalDate monday, LocalDate to) {
+        LocalDate sunday = monday.plusDays(6);
+        if (sunday.getMonth() == monday.getMonth()) {
+            return false;
+        }
+        LocalDate firstOfNextMonth = sunday.withDayOfMonth(1);
+        return !YearMonth.from(firstOfNextMonth).atEndOfMonth().isAfter(to);
+    }
+
+    private SalesSummary daySummary(int day) {
+        return days.computeIfAbsent(day, key -> {
+            LocalDate date = RestaurantTime.toLocalDate(key);
+            return new SalesSummary(date, date);
+        });
+    }
+
+    private SalesSummary weekSummary(int day) {
+        // Epoch day 0 was a Thursday
+        int monday = day - Math.floorMod(day + 3, 7);
+        return weeks.computeIfAbsent(monday, key ->
+                new SalesSummary(RestaurantTime.toLocalDate(key), RestaurantTime.toLocalDate(key + 6)));
+    }
+
+    private SalesSummary monthSummary(int day) {
+        return months.computeIfAbsent(YearMonth.from(RestaurantTime.toLocalDate(day)),
+                key -> new SalesSummary(key.atDay(1), key.atEndOfMonth()));
+    }
+
+    // One pass over the archive, summing rows per day into primitive counters
+    private void loadArchive() {
+        Map<Integer, DayTotals> totalsByDay = new HashMap<>();
+        // The archive stores days as int epoch days
+        LocalDate first = LocalDate.ofEpochDay(Integer.MIN_VALUE);
+        LocalDate last = LocalDate.ofEpochDay(Integer.MAX_VALUE);
+        archive.scan(first, last, (epochDay, orderId, customer, item, quantity,
+                unitPriceCents, discountCents, taxCents) ->
+                totalsByDay.computeIfAbsent(epochDay, key -> new DayTotals(archive.getItemCount()))
+                        .visit(epochDay, orderId, customer, item, quantity, unitPriceCents, discountCents, taxCents));
+        totalsByDay.forEach((epochDay, totals) -> {
+            LocalDate day = LocalDate.ofEpochDay(epochDay);
+            SalesSummary summary = new SalesSummary(day, day);
+            summary.addTotals(totals.orders, totals.grossCents, totals.discountCents, totals.taxCents);
+            for (int item = 0; item < totals.units.length; item++) {
+                if (totals.units[item] > 0) {
+                    summary.addItem(archive.getItemName(item), archive.getItemCategory(item),
+                            totals.units[item], totals.revenueCents[item]);
+                }
+            }
+            days.put(epochDay, summary);
+            weekSummary(epochDay).merge(summary);
+            monthSummary(epochDay).merge(summary);
+        });
+    }
+
+    // A day's archive rows, with counters indexed by item number
+    private static final class DayTotals implements DeliveredOrderArchive.LineVisitor {
+        int orders;
+        long lastOrderId;
+        long grossCents;
+        long discountCents;
+        long taxCents;
+        int[] units;
+        long[] revenueCents;
+
+        DayTotals(int itemCount) {
+            units = new int[itemCount];
+            revenueCents = new long[itemCount];
+        }
+
+        @Override
+        public void visit(int epochDay, long orderId, int customer, int item, int quantity,
+                          long unitPriceCents, long discountCents, long taxCents) {
+            // An order's rows are contiguous
+            if (orders == 0 || orderId != lastOrderId) {
+                orders++;
+                lastOrderId = orderId;
+            }
+            long lineCents = unitPriceCents * quantity;
+            grossCents += lineCents;
+            this.discountCents += discountCents;
+            this.taxCents += taxCents;
+            if (item < 0) {
+                return;
+            }
+            if (item >= units.length) {
+                units = Arrays.copyOf(units, item + 1);
+                revenueCents = Arrays.copyOf(revenueCents, item + 1);
+            }
+            units[item] += quantity;
+            revenueCents[item] += lineCents;
+        }
+    }
+}
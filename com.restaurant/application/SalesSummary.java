@@ -0,0 +1,182 @@
+package application;
+
+import domain.model.MenuItemSnapshot;
+import domain.model.Money;
+import domain.model.Order;
+import domain.model.OrderItem;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.ObjIntConsumer;
+
+/**
+ * Every sales figure ReportService offers for a period of one or more days,
+ * filled one delivered order at a time or merged from shorter periods.
+ * Updates and reads are synchronized so reports can be read while orders are
+ * being delivered. Besides the exact item counts each summary keeps a
+ * bounded sketch of them, which approximate rankings over long ranges merge
+ * instead of the exact maps.
+ */
+public class SalesSummary {
+    // Counters in each summary's sketch, independent of the number of distinct items
+    static final int SKETCH_COUNTERS = 1024;
+
+    private final LocalDate from;
+    private final LocalDate to;
+    private int orderCount;
+    private long grossCents;
+    private long discountCents;
+    private long taxCents;
+    private long netCents;
+    private final Map<String, int[]> unitsByItemName = new HashMap<>();
+    private final Map<String, long[]> revenueCentsByCategory = new HashMap<>();
+    private final SpaceSavingTopK itemSketch = new SpaceSavingTopK(SKETCH_COUNTERS);
+
+    SalesSummary(LocalDate from, LocalDate to) {
+        this.from = from;
+        this.to = to;
+    }
+
+    synchronized void add(Order order) {
+        long subtotal = order.calculateSubtotal().getCents();
+        long discount = order.calculateDiscount().getCents();
+        long total = order.calculateTotal().getCents();
+        orderCount++;
+        grossCents += subtotal;
+        discountCents += discount;
+        taxCents += total - (subtotal - discount);
+        netCents += total;
+
+        for (OrderItem item : order.getItems()) {
+            MenuItemSnapshot menuItem = item.getItem();
+            unitsByItemName.computeIfAbsent(menuItem.getName(), name -> new int[1])[0]
+                    += item.getQuantity();
+            itemSketch.offer(menuItem.getName(), item.getQuantity());
+            revenueCentsByCategory.computeIfAbsent(menuItem.getCategory(), category -> new long[1])[0]
+                    += item.getSubtotal().getCents();
+        }
+    }
+
+    // Figures aggregated elsewhere, e.g. from a scan of the order archive
+    synchronized void addTotals(int orders, long gross, long discount, long tax) {
+        orderCount += orders;
+        grossCents += gross;
+        discountCents += discount;
+        taxCents += tax;
+        netCents += gross - discount + tax;
+    }
+
+    synchronized void addItem(String name, String category, int units, long revenueCents) {
+        unitsByItemName.computeIfAbsent(name, key -> new int[1])[0] += units;
+        revenueCentsByCategory.computeIfAbsent(category, key -> new long[1])[0] += revenueCents;
+        itemSketch.offer(name, units);
+    }
+
+    // Adds another period's figures, e.g. a week's into a month-to-date total
+    void merge(SalesSummary other) {
+        int orders;
+        long gross;
+        long discount;
+        long tax;
+        long net;
+        Map<String, int[]> units = new HashMap<>();
+        Map<String, long[]> revenue = new HashMap<>();
+        SpaceSavingTopK sketch;
+        // Copy first so the two summaries are never locked together
+        synchronized (other) {
+            orders = other.orderCount;
+            gross = other.grossCents;
+            discount = other.discountCents;
+            tax = other.taxCents;
+            net = other.netCents;
+            other.unitsByItemName.forEach((name, count) -> units.put(name, new int[] {count[0]}));
+            other.revenueCentsByCategory.forEach((category, cents) -> revenue.put(category, new long[] {cents[0]}));
+            sketch = other.itemSketch.copy();
+        }
+        synchronized (this) {
+            orderCount += orders;
+            grossCents += gross;
+            discountCents += discount;
+            taxCents += tax;
+            netCents += net;
+            units.forEach((name, count) -> unitsByItemName.computeIfAbsent(name, key -> new int[1])[0] += count[0]);
+            revenue.forEach((category, cents) ->
+                    revenueCentsByCategory.computeIfAbsent(category, key -> new long[1])[0] += cents[0]);
+            itemSketch.merge(sketch);
+        }
+    }
+
+    // First day of the period
+    public LocalDate getFrom() {
+        return from;
+    }
+
+    // Last day of the period, inclusive
+    public LocalDate getTo() {
+        return to;
+    }
+
+    public synchronized int getOrderCount() {
+        return orderCount;
+    }
+
+    public synchronized Money getGrossSales() {
+        return Money.ofCents(grossCents);
+    }
+
+    public synchronized Money getDiscounts() {
+        return Money.ofCents(discountCents);
+    }
+
+    public synchronized Money getTax() {
+        return Money.ofCents(taxCents);
+    }
+
+    public synchronized Money getNetSales() {
+        return Money.ofCents(netCents);
+    }
+
+    // Item name to units sold, best sellers first
+    public synchronized Map<String, Integer> getMostPopularItems(int limit) {
+        TopItems topItems = new TopItems(limit);
+        forEachItem(topItems::offer);
+        return topItems.toMap();
+    }
+
+    // Adds this period's item sketch to one the caller owns
+    synchronized void mergeSketchInto(SpaceSavingTopK sketch) {
+        sketch.merge(itemSketch);
+    }
+
+    synchronized void forEachItem(ObjIntConsumer<String> consumer) {
+        for (Map.Entry<String, int[]> entry : unitsByItemName.entrySet()) {
+            consumer.accept(entry.getKey(), entry.getValue()[0]);
+        }
+    }
+
+    public synchronized Map<String, Money> getRevenueByCategory() {
+        Map<String, Money> revenue = new HashMap<>();
+        for (Map.Entry<String, long[]> entry : revenueCentsByCategory.entrySet()) {
+            revenue.put(entry.getKey(), Money.ofCents(entry.getValue()[0]));
+        }
+        return revenue;
+    }
+
+    public synchronized String toReport() {
+        StringBuilder sb = new StringBuilder();
+        if (from.equals(to)) {
+            sb.append("\n=== DAILY SALES REPORT ===\n");
+            sb.append("Date: ").append(from).append("\n");
+        } else {
+            sb.append("\n=== SALES REPORT ===\n");
+            sb.append("Period: ").append(from).append(" to ").append(to).append("\n");
+        }
+        sb.append("Orders: ").append(orderCount).append("\n");
+        sb.append("Gross Sales: $").append(getGrossSales()).append("\n");
+        sb.append("Discounts: -$").append(getDiscounts()).append("\n");
+        sb.append("Tax: $").append(getTax()).append("\n");
+        sb.append("Net Sales: $").append(getNetSales()).append("\n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,145 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Approximate top-K counting with the weighted Space-Saving algorithm, for
+ * rankings over long date ranges where keeping every distinct item is not
+ * wanted. At most {@code capacity} counters are kept whatever the number of
+ * distinct items, and sketches of the same capacity can be merged, so each
+ * sales rollup keeps one and a range merges those.
+ *
+ * Error bounds, with N the total weight offered (to this sketch and to every
+ * sketch merged into it) and m the capacity: an estimate never undercounts,
+ * overcounts by at most N / m, and every item whose true count exceeds N / m
+ * is guaranteed to be tracked.
+ */
+class SpaceSavingTopK {
+    private final int capacity;
+    private final Map<String, Counter> counters = new HashMap<>();
+    private final TreeSet<Counter> byCount = new TreeSet<>((a, b) -> a.count != b.count
+            ? Long.compare(a.count, b.count) : Long.compare(a.sequence, b.sequence));
+    private long totalWeight;
+    private long nextSequence;
+
+    private static final class Counter {
+        final String item;
+        final long sequence;
+        long count;
+        long error;
+
+        Counter(String item, long sequence, long count, long error) {
+            this.item = item;
+            this.sequence = sequence;
+            this.count = count;
+            this.error = error;
+        }
+    }
+
+    SpaceSavingTopK(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacity must be greater than zero");
+        }
+        this.capacity = capacity;
+    }
+
+    void offer(String item, int weight) {
+        totalWeight += weight;
+        Counter counter = counters.get(item);
+        if (counter != null) {
+            byCount.remove(counter);
+            counter.count += weight;
+            byCount.add(counter);
+            return;
+        }
+        long floor = 0;
+        if (counters.size() >= capacity) {
+            // Take over the smallest counter; its count bounds what the new item may have had
+            Counter evicted = byCount.pollFirst();
+            counters.remove(evicted.item);
+            floor = evicted.count;
+        }
+        add(item, floor + weight, floor);
+    }
+
+    // Same counters, for merging a sketch read under another lock
+    SpaceSavingTopK copy() {
+        SpaceSavingTopK copy = new SpaceSavingTopK(capacity);
+        for (Counter counter : byCount) {
+            copy.add(counter.item, counter.count, counter.error);
+        }
+        copy.totalWeight = totalWeight;
+        return copy;
+    }
+
+    /**
+     * Adds another sketch's counts (the parallel Space-Saving merge). An item
+     * missing from a full sketch may have had up to that sketch's smallest
+     * count, so that much is added to its count and error; then only the
+     * {@code capacity} largest counters are kept.
+     */
+    void merge(SpaceSavingTopK other) {
+        if (other.capacity != capacity) {
+            throw new IllegalArgumentException("Only sketches of the same capacity can be merged");
+        }
+        long floor = minimumIfFull();
+        long otherFloor = other.minimumIfFull();
+        // Count and error per item
+        Map<String, long[]> combined = new HashMap<>();
+        for (Counter counter : byCount) {
+            combined.put(counter.item, new long[] {counter.count + otherFloor, counter.error + otherFloor});
+        }
+        for (Counter counter : other.byCount) {
+            long[] entry = combined.get(counter.item);
+            if (entry == null) {
+                combined.put(counter.item, new long[] {counter.count + floor, counter.error + floor});
+            } else {
+                entry[0] += counter.count - otherFloor;
+                entry[1] += counter.error - otherFloor;
+            }
+        }
+        List<Map.Entry<String, long[]>> kept = new ArrayList<>(combined.entrySet());
+        kept.sort((a, b) -> Long.compare(b.getValue()[0], a.getValue()[0]));
+        counters.clear();
+        byCount.clear();
+        for (Map.Entry<String, long[]> entry : kept.subList(0, Math.min(capacity, kept.size()))) {
+            add(entry.getKey(), entry.getValue()[0], entry.getValue()[1]);
+        }
+        totalWeight += other.totalWeight;
+    }
+
+    private long minimumIfFull() {
+        return counters.size() >= capacity ? byCount.first().count : 0;
+    }
+
+    private void add(String item, long count, long error) {
+        Counter counter = new Counter(item, nextSequence++, count, error);
+        counters.put(item, counter);
+        byCount.add(counter);
+    }
+
+    // Upper bound on how far any estimate can be above the true count
+    long getMaxError() {
+        return totalWeight / capacity;
+    }
+
+    // Estimated counts, best sellers first
+    Map<String, Integer> top(int limit) {
+        List<Counter> best = new ArrayList<>(Math.max(0, limit));
+        Iterator<Counter> descending = byCount.descendingIterator();
+        while (best.size() < limit && descending.hasNext()) {
+            best.add(descending.next());
+        }
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Counter counter : best) {
+            result.put(counter.item, (int) Math.min(Integer.MAX_VALUE, counter.count));
+        }
+        return result;
+    }
+}
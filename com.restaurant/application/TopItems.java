@@ -0,0 +1,45 @@
+package application;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Exact top-K over item counts using a min-heap bounded at K entries, so
+ * ranking n items costs O(n log K) instead of sorting all of them.
+ * Each item must be offered once with its final count.
+ */
+class TopItems {
+    private final int limit;
+    private final PriorityQueue<Map.Entry<String, Integer>> heap;
+
+    TopItems(int limit) {
+        this.limit = limit;
+        this.heap = new PriorityQueue<>(Math.max(1, limit) + 1, Map.Entry.comparingByValue());
+    }
+
+    void offer(String item, int count) {
+        if (limit <= 0) {
+            return;
+        }
+        if (heap.size() < limit) {
+            heap.add(Map.entry(item, count));
+        } else if (count > heap.peek().getValue()) {
+            heap.poll();
+            heap.add(Map.entry(item, count));
+        }
+    }
+
+    // Best sellers first
+    Map<String, Integer> toMap() {
+        List<Map.Entry<String, Integer>> entries = new ArrayList<>(heap);
+        entries.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+        Map<String, Integer> result = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> entry : entries) {
+            result.put(entry.getKey(), entry.getValue());
+        }
+        return result;
+    }
+}
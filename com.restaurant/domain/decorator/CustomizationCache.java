@@ -0,0 +1,110 @@
+package domain.decorator;
+
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
+import domain.model.MenuItemSnapshot;
+import domain.model.MenuItemSnapshot.Modifier;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Compiles decorator chains into flat {@link MenuItemSnapshot}s and interns
+ * them, so every order line with the same item, price and customizations
+ * shares one instance whose price is a field read, whatever the chain depth.
+ *
+ * Each price change gives an item a new base snapshot, so the cache only
+ * keeps the customizations of an item's few newest bases (by catalog
+ * version), and a bounded number per base. Lines compiled past those limits
+ * still get a correct snapshot, just not a shared one.
+ */
+public class CustomizationCache {
+    // The current base plus a few retained by open orders across repricings
+    static final int BASES_PER_ITEM = 4;
+    static final int VARIANTS_PER_BASE = 256;
+
+    private final Map<String, Bases> byMenuItemId = new ConcurrentHashMap<>();
+
+    // Interned customizations of one menu item, per base snapshot; guarded by this
+    private static final class Bases {
+        private final List<MenuItemSnapshot> bases = new ArrayList<>(BASES_PER_ITEM + 1);
+        private final List<Map<List<Modifier>, MenuItemSnapshot>> variants = new ArrayList<>(BASES_PER_ITEM + 1);
+
+        synchronized MenuItemSnapshot intern(MenuItemSnapshot base, List<Modifier> modifiers) {
+            Map<List<Modifier>, MenuItemSnapshot> forBase = variantsOf(base);
+            MenuItemSnapshot compiled = forBase.get(modifiers);
+            if (compiled == null) {
+                compiled = base.withModifiers(modifiers);
+                if (forBase.size() < VARIANTS_PER_BASE) {
+                    forBase.put(modifiers, compiled);
+                }
+            }
+            return compiled;
+        }
+
+        private Map<List<Modifier>, MenuItemSnapshot> variantsOf(MenuItemSnapshot base) {
+            // Base snapshots are themselves shared, so identity is enough
+            for (int i = 0; i < bases.size(); i++) {
+                if (bases.get(i) == base) {
+                    return variants.get(i);
+                }
+            }
+            bases.add(base);
+            Map<List<Modifier>, MenuItemSnapshot> added = new HashMap<>();
+            variants.add(added);
+            if (bases.size() > BASES_PER_ITEM) {
+                int oldest = 0;
+                for (int i = 1; i < bases.size(); i++) {
+                    if (bases.get(i).getCatalogVersion() < bases.get(oldest).getCatalogVersion()) {
+                        oldest = i;
+                    }
+                }
+                bases.remove(oldest);
+                variants.remove(oldest);
+            }
+            return added;
+        }
+    }
+
+    /**
+     * Flattens a possibly decorated item against the given catalog.
+     *
+     * @throws IllegalArgumentException if the undecorated item is not on the menu
+     */
+    public MenuItemSnapshot compile(MenuItem menuItem, MenuCatalog catalog) {
+        List<Modifier> modifiers = new ArrayList<>();
+        MenuItem current = menuItem;
+        while (current instanceof MenuItemDecorator) {
+            MenuItemDecorator decorator = (MenuItemDecorator) current;
+            modifiers.add(new Modifier(decorator.getModifierName(), decorator.getModifierPrice()));
+            current = decorator.getWrapped();
+        }
+        // Walked from the outside in; store them in the order they were applied
+        Collections.reverse(modifiers);
+        String baseId = current.getId();
+        MenuItemSnapshot base = catalog.getSnapshot(baseId)
+                .orElseThrow(() -> new IllegalArgumentException("Menu item not found: " + baseId));
+        return compile(base, modifiers);
+    }
+
+    // The plain menu item under any decorators
+    public static MenuItem undecorated(MenuItem menuItem) {
+        MenuItem current = menuItem;
+        while (current instanceof MenuItemDecorator) {
+            current = ((MenuItemDecorator) current).getWrapped();
+        }
+        return current;
+    }
+
+    public MenuItemSnapshot compile(MenuItemSnapshot base, List<Modifier> modifiers) {
+        if (modifiers.isEmpty()) {
+            return base;
+        }
+        return byMenuItemId.computeIfAbsent(base.getMenuItemId(), id -> new Bases())
+                .intern(base, List.copyOf(modifiers));
+    }
+}
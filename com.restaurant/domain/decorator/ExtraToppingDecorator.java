@@ -0,0 +1,18 @@
+package domain.decorator;
+
+import domain.model.MenuItem;
+
+public class ExtraToppingDecorator extends MenuItemDecorator {
+    public ExtraToppingDecorator(MenuItem menuItem, String toppingName, double toppingPrice) {
+        super(menuItem, "Extra " + toppingName, toppingPrice);
+    }
+
+    private ExtraToppingDecorator(ExtraToppingDecorator source) {
+        super(source);
+    }
+
+    @Override
+    public ExtraToppingDecorator copy() {
+        return new ExtraToppingDecorator(this);
+    }
+}
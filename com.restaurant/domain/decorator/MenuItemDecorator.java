@@ -0,0 +1,42 @@
+package domain.decorator;
+
+import domain.model.MenuItem;
+import domain.model.Money;
+
+/**
+ * Adds a priced customization to a menu item. The combined price is worked
+ * out once when the decorator is built, so {@link #getPrice()} does not walk
+ * the chain; orders store the flattened form from {@link CustomizationCache}.
+ */
+public abstract class MenuItemDecorator extends MenuItem {
+    private final MenuItem wrapped;
+    private final String modifierName;
+    private final Money modifierPrice;
+
+    protected MenuItemDecorator(MenuItem wrapped, String modifierName, double modifierPrice) {
+        super(wrapped.getName(), wrapped.getPrice().add(Money.of(modifierPrice)), wrapped.getCategory(),
+                wrapped.getDescription() + ", " + modifierName.toLowerCase());
+        this.wrapped = wrapped;
+        this.modifierName = modifierName;
+        this.modifierPrice = Money.of(modifierPrice);
+    }
+
+    protected MenuItemDecorator(MenuItemDecorator source) {
+        super(source);
+        this.wrapped = source.wrapped;
+        this.modifierName = source.modifierName;
+        this.modifierPrice = source.modifierPrice;
+    }
+
+    public MenuItem getWrapped() {
+        return wrapped;
+    }
+
+    public String getModifierName() {
+        return modifierName;
+    }
+
+    public Money getModifierPrice() {
+        return modifierPrice;
+    }
+}
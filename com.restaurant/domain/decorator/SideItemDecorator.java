@@ -0,0 +1,18 @@
+package domain.decorator;
+
+import domain.model.MenuItem;
+
+public class SideItemDecorator extends MenuItemDecorator {
+    public SideItemDecorator(MenuItem menuItem, String sideName, double sidePrice) {
+        super(menuItem, "Side of " + sideName, sidePrice);
+    }
+
+    private SideItemDecorator(SideItemDecorator source) {
+        super(source);
+    }
+
+    @Override
+    public SideItemDecorator copy() {
+        return new SideItemDecorator(this);
+    }
+}
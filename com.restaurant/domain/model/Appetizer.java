@@ -3,11 +3,21 @@ package domain.model;
 public class Appetizer extends MenuItem {
     private boolean isVegetarian;
 
-    public Appetizer(String name, double price, String description, boolean isVegetarian) {
+    public Appetizer(String name, Money price, String description, boolean isVegetarian) {
         super(name, price, "Appetizer", description);
         this.isVegetarian = isVegetarian;
     }
 
+    private Appetizer(Appetizer source) {
+        super(source);
+        this.isVegetarian = source.isVegetarian;
+    }
+
+    @Override
+    public Appetizer copy() {
+        return new Appetizer(this);
+    }
+
     public boolean isVegetarian() {
         return isVegetarian;
     }
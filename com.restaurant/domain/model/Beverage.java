@@ -3,11 +3,21 @@ package domain.model;
 public class Beverage extends MenuItem {
     private boolean isAlcoholic;
 
-    public Beverage(String name, double price, String description, boolean isAlcoholic) {
+    public Beverage(String name, Money price, String description, boolean isAlcoholic) {
         super(name, price, "Beverage", description);
         this.isAlcoholic = isAlcoholic;
     }
 
+    private Beverage(Beverage source) {
+        super(source);
+        this.isAlcoholic = source.isAlcoholic;
+    }
+
+    @Override
+    public Beverage copy() {
+        return new Beverage(this);
+    }
+
     public boolean isAlcoholic() {
         return isAlcoholic;
     }
@@ -1,22 +1,37 @@
 package domain.model;
 
-import java.util.UUID;
-
 public class Customer {
+    private final long numericId;
+    // Formatted on first use
     private String id;
-    private String name;
-    private String address;
-    private String phone;
+    // Volatile since the details can be edited while other threads read them
+    private volatile String name;
+    private volatile String address;
+    private volatile String phone;
 
     public Customer(String name, String address, String phone) {
-        this.id = UUID.randomUUID().toString();
+        this(EntityIds.next(), name, address, phone);
+    }
+
+    // Recreates a stored customer with its original ID
+    public Customer(long numericId, String name, String address, String phone) {
+        this.numericId = numericId;
         this.name = name;
         this.address = address;
         this.phone = phone;
     }
 
     public String getId() {
-        return id;
+        String formatted = id;
+        if (formatted == null) {
+            formatted = EntityIds.format(numericId);
+            id = formatted;
+        }
+        return formatted;
+    }
+
+    public long getNumericId() {
+        return numericId;
     }
 
     public String getName() {
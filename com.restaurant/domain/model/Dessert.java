@@ -3,11 +3,21 @@ package domain.model;
 public class Dessert extends MenuItem {
     private boolean hasNuts;
 
-    public Dessert(String name, double price, String description, boolean hasNuts) {
+    public Dessert(String name, Money price, String description, boolean hasNuts) {
         super(name, price, "Dessert", description);
         this.hasNuts = hasNuts;
     }
 
+    private Dessert(Dessert source) {
+        super(source);
+        this.hasNuts = source.hasNuts;
+    }
+
+    @Override
+    public Dessert copy() {
+        return new Dessert(this);
+    }
+
     public boolean hasNuts() {
         return hasNuts;
     }
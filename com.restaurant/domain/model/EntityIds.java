@@ -0,0 +1,51 @@
+package domain.model;
+
+/**
+ * Hands out IDs for orders, customers and menu items. The generator can be
+ * swapped at startup, e.g. to give each process its own node number.
+ */
+public final class EntityIds {
+    // Lower-case Crockford base32: no i, l, o or u
+    private static final char[] ALPHABET = "0123456789abcdefghjkmnpqrstvwxyz".toCharArray();
+    private static final int LENGTH = 13;
+
+    private static volatile IdGenerator generator =
+            new TimeOrderedIdGenerator(Integer.getInteger("restaurant.nodeId", 0));
+
+    private EntityIds() {
+    }
+
+    public static void setGenerator(IdGenerator idGenerator) {
+        generator = idGenerator;
+    }
+
+    static long next() {
+        return generator.nextId();
+    }
+
+    // A block of new IDs, for creating many entities at once
+    public static long[] nextBlock(int count) {
+        long[] ids = new long[count];
+        generator.nextIds(ids);
+        return ids;
+    }
+
+    /**
+     * Text form of an ID. The bits are scrambled first (a reversible murmur3
+     * finalizer): time-ordered IDs made in the same moment share their leading
+     * bits, and the console identifies entities by the first 8 characters.
+     * Ordering by creation time uses the numeric ID, not this string.
+     */
+    static String format(long id) {
+        long remaining = id;
+        remaining = (remaining ^ (remaining >>> 33)) * 0xff51afd7ed558ccdL;
+        remaining = (remaining ^ (remaining >>> 33)) * 0xc4ceb9fe1a85ec53L;
+        remaining ^= remaining >>> 33;
+        char[] chars = new char[LENGTH];
+        for (int i = LENGTH - 1; i >= 0; i--) {
+            chars[i] = ALPHABET[(int) (remaining & 31)];
+            remaining >>>= 5;
+        }
+        return new String(chars);
+    }
+}
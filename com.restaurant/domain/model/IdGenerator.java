@@ -0,0 +1,16 @@
+package domain.model;
+
+/**
+ * Source of entity IDs. IDs are kept as primitives and only turned into
+ * strings when {@code getId()} is first called.
+ */
+public interface IdGenerator {
+    long nextId();
+
+    // Fills the array with new IDs, in increasing order for time-ordered generators
+    default void nextIds(long[] ids) {
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = nextId();
+        }
+    }
+}
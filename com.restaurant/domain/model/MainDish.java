@@ -3,11 +3,21 @@ package domain.model;
 public class MainDish extends MenuItem {
     private boolean isSpicy;
 
-    public MainDish(String name, double price, String description, boolean isSpicy) {
+    public MainDish(String name, Money price, String description, boolean isSpicy) {
         super(name, price, "Main Dish", description);
         this.isSpicy = isSpicy;
     }
 
+    private MainDish(MainDish source) {
+        super(source);
+        this.isSpicy = source.isSpicy;
+    }
+
+    @Override
+    public MainDish copy() {
+        return new MainDish(this);
+    }
+
     public boolean isSpicy() {
         return isSpicy;
     }
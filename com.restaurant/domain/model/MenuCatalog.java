@@ -0,0 +1,252 @@
+package domain.model;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Immutable, versioned view of the whole menu, already grouped by category
+ * and indexed by ID. Edits produce a new catalog, so readers can keep using
+ * the one they hold without locking.
+ */
+public final class MenuCatalog {
+    public static final MenuCatalog EMPTY = new MenuCatalog(0, Collections.emptyList(),
+            Collections.emptyMap(), 0, Collections.emptyMap(), Collections.emptyMap());
+
+    private final long version;
+    private final List<MenuItem> items;
+    private final Map<String, MenuItem> itemsById;
+    private final Map<String, List<MenuItem>> itemsByCategory;
+    // Sorted IDs for short-ID prefix lookups
+    private final String[] sortedIds;
+    private final Map<String, MenuItemSnapshot> snapshotsById;
+    // Each item's own price when it was last saved; a repricing moves the snapshot price, not this
+    private final Map<String, Long> listedCentsById;
+    // Includes removed items, so an ordinal is never handed out twice
+    private final Map<String, Integer> ordinalsById;
+    private final int nextOrdinal;
+
+    private MenuCatalog(long version, List<MenuItem> items, Map<String, Integer> ordinalsById,
+                        int nextOrdinal, Map<String, MenuItemSnapshot> snapshotsById,
+                        Map<String, Long> listedCentsById) {
+        this.version = version;
+        this.items = Collections.unmodifiableList(new ArrayList<>(items));
+
+        Map<String, MenuItem> byId = new HashMap<>();
+        Map<String, List<MenuItem>> byCategory = new LinkedHashMap<>();
+        for (MenuItem item : items) {
+            byId.put(item.getId(), item);
+            byCategory.computeIfAbsent(item.getCategory(), category -> new ArrayList<>()).add(item);
+        }
+        for (Map.Entry<String, List<MenuItem>> entry : byCategory.entrySet()) {
+            entry.setValue(Collections.unmodifiableList(entry.getValue()));
+        }
+        this.itemsById = Collections.unmodifiableMap(byId);
+        this.itemsByCategory = Collections.unmodifiableMap(byCategory);
+
+        this.sortedIds = byId.keySet().toArray(new String[0]);
+        Arrays.sort(sortedIds);
+
+        this.ordinalsById = ordinalsById;
+        this.nextOrdinal = nextOrdinal;
+        this.snapshotsById = snapshotsById;
+        this.listedCentsById = listedCentsById;
+    }
+
+    // Next version of the previous catalog; prices by ordinal override the items' own prices, null for none
+    private static MenuCatalog derive(MenuCatalog previous, List<MenuItem> items, long[] priceCentsByOrdinal) {
+        long version = previous.version + 1;
+        Map<String, Integer> ordinals = new HashMap<>(previous.ordinalsById);
+        int next = previous.nextOrdinal;
+        Map<String, MenuItemSnapshot> snapshots = new HashMap<>();
+        Map<String, Long> listed = new HashMap<>();
+        for (MenuItem item : items) {
+            Integer ordinal = ordinals.get(item.getId());
+            if (ordinal == null) {
+                ordinal = next++;
+                ordinals.put(item.getId(), ordinal);
+            }
+            long listedCents = item.getPrice().getCents();
+            listed.put(item.getId(), listedCents);
+            MenuItemSnapshot snapshot = previous.snapshotsById.get(item.getId());
+            long price;
+            if (priceCentsByOrdinal != null && ordinal < priceCentsByOrdinal.length
+                    && priceCentsByOrdinal[ordinal] >= 0) {
+                price = priceCentsByOrdinal[ordinal];
+            } else if (snapshot != null && Long.valueOf(listedCents).equals(previous.listedCentsById.get(item.getId()))) {
+                // Price not edited since the last save, so whatever a repricing published still stands
+                price = snapshot.getPriceCents();
+            } else {
+                price = listedCents;
+            }
+            if (snapshot == null || !snapshot.matches(item, price)) {
+                // Only items whose details changed get a new snapshot
+                snapshot = new MenuItemSnapshot(ordinal, item, price, version);
+            }
+            snapshots.put(item.getId(), snapshot);
+        }
+        return new MenuCatalog(version, items, ordinals, next, snapshots, listed);
+    }
+
+    /**
+     * Rebuilds a saved catalog exactly: same version, same ordinals (including
+     * those of removed items) and the same snapshot of each item, so order
+     * logs written against it still refer to the right items.
+     *
+     * @throws IllegalArgumentException if the parts do not fit together
+     */
+    public static MenuCatalog restore(long version, List<MenuItem> items, List<MenuItemSnapshot> snapshots,
+                                      Map<String, Integer> ordinalsById) {
+        if (items.size() != snapshots.size()) {
+            throw new IllegalArgumentException("Expected one snapshot per menu item");
+        }
+        Map<String, Integer> ordinals = new HashMap<>(ordinalsById);
+        int next = 0;
+        for (int ordinal : ordinals.values()) {
+            next = Math.max(next, ordinal + 1);
+        }
+        Map<String, MenuItemSnapshot> byId = new HashMap<>();
+        Map<String, Long> listed = new HashMap<>();
+        for (int i = 0; i < items.size(); i++) {
+            MenuItem item = items.get(i);
+            MenuItemSnapshot snapshot = snapshots.get(i);
+            Integer ordinal = ordinals.get(item.getId());
+            if (!item.getId().equals(snapshot.getMenuItemId()) || ordinal == null
+                    || ordinal != snapshot.getOrdinal() || snapshot.getCatalogVersion() > version) {
+                throw new IllegalArgumentException("Snapshot does not match menu item " + item.getId());
+            }
+            byId.put(item.getId(), snapshot);
+            listed.put(item.getId(), item.getPrice().getCents());
+        }
+        return new MenuCatalog(version, items, ordinals, next, byId, listed);
+    }
+
+    // Every ID that was ever given an ordinal, including removed items
+    public Map<String, Integer> getOrdinalsById() {
+        return Collections.unmodifiableMap(ordinalsById);
+    }
+
+    public long getVersion() {
+        return version;
+    }
+
+    public List<MenuItem> getItems() {
+        return items;
+    }
+
+    public Map<String, List<MenuItem>> getItemsByCategory() {
+        return itemsByCategory;
+    }
+
+    /**
+     * Price snapshot for an item in this catalog, shared by every order line
+     * that orders it at this price.
+     */
+    public Optional<MenuItemSnapshot> getSnapshot(String id) {
+        return Optional.ofNullable(snapshotsById.get(id));
+    }
+
+    // Number of ordinals handed out so far, i.e. an upper bound for any item's ordinal
+    public int getOrdinalCount() {
+        return nextOrdinal;
+    }
+
+    /**
+     * Looks up a full ID or a unique short-ID prefix.
+     *
+     * @throws IllegalArgumentException if the prefix matches more than one item
+     */
+    public Optional<MenuItem> findById(String id) {
+        MenuItem item = itemsById.get(id);
+        if (item != null) {
+            return Optional.of(item);
+        }
+        String prefix = id.trim().toLowerCase();
+        if (prefix.isEmpty()) {
+            return Optional.empty();
+        }
+        int from = lowerBound(prefix);
+        int to = lowerBound(prefix + Character.MAX_VALUE);
+        if (to - from > 1) {
+            throw new IllegalArgumentException("ID prefix '" + id + "' matches "
+                    + (to - from) + " entries, please enter more characters");
+        }
+        return to == from ? Optional.empty() : Optional.of(itemsById.get(sortedIds[from]));
+    }
+
+    // Catalog with the item added, or replacing the item with the same ID by an edited copy
+    public MenuCatalog with(MenuItem menuItem) {
+        if (itemsById.get(menuItem.getId()) == menuItem) {
+            // Changed in place, then the change would show in every older catalog too
+            throw new IllegalArgumentException("Menu item " + menuItem.getId()
+                    + " is already on the menu; save an edited copy() instead");
+        }
+        List<MenuItem> updated = new ArrayList<>(items.size() + 1);
+        boolean replaced = false;
+        for (MenuItem item : items) {
+            if (item.getId().equals(menuItem.getId())) {
+                updated.add(menuItem);
+                replaced = true;
+            } else {
+                updated.add(item);
+            }
+        }
+        if (!replaced) {
+            updated.add(menuItem);
+        }
+        return derive(this, updated, null);
+    }
+
+    /**
+     * Catalog with every item repriced at once, prices indexed by ordinal.
+     * Negative entries and ordinals past the end keep the current price.
+     * The items themselves are not touched, since older catalogs share them:
+     * the new prices live in this catalog's snapshots, and later edits keep
+     * them unless they change an item's price.
+     */
+    public MenuCatalog withPrices(long[] priceCentsByOrdinal) {
+        return derive(this, items, priceCentsByOrdinal);
+    }
+
+    // Current price of every item by ordinal, -1 for ordinals of removed items
+    public long[] getPriceCentsByOrdinal() {
+        long[] prices = new long[nextOrdinal];
+        Arrays.fill(prices, -1);
+        for (MenuItemSnapshot snapshot : snapshotsById.values()) {
+            prices[snapshot.getOrdinal()] = snapshot.getPriceCents();
+        }
+        return prices;
+    }
+
+    public MenuCatalog without(String id) {
+        if (!itemsById.containsKey(id)) {
+            return this;
+        }
+        List<MenuItem> updated = new ArrayList<>(items.size());
+        for (MenuItem item : items) {
+            if (!item.getId().equals(id)) {
+                updated.add(item);
+            }
+        }
+        return derive(this, updated, null);
+    }
+
+    private int lowerBound(String key) {
+        int low = 0;
+        int high = sortedIds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (sortedIds[mid].compareTo(key) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
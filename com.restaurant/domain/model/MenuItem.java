@@ -1,27 +1,50 @@
 package domain.model;
 
-import java.util.UUID;
-
+/**
+ * A dish or drink on the menu. Published catalogs share their items, so an
+ * item already on the menu is never changed in place: edit a {@link #copy()}
+ * and save that, which publishes a new catalog and leaves older ones alone.
+ */
 public abstract class MenuItem {
+    private final long numericId;
+    // Formatted on first use, unless set explicitly
     private String id;
     private String name;
-    private double price;
+    private Money price;
     private String category;
     private String description;
 
-    public MenuItem(String name, double price, String category, String description) {
-        this.id = UUID.randomUUID().toString();
+    public MenuItem(String name, Money price, String category, String description) {
+        this.numericId = EntityIds.next();
         this.name = name;
         this.price = price;
         this.category = category;
         this.description = description;
     }
 
+    // Same ID and fields, for subclasses' copy()
+    protected MenuItem(MenuItem source) {
+        this.numericId = source.numericId;
+        this.id = source.id;
+        this.name = source.name;
+        this.price = source.price;
+        this.category = source.category;
+        this.description = source.description;
+    }
+
+    // An unpublished copy with the same ID, to edit and save in place of this item
+    public abstract MenuItem copy();
+
 	/**
 	 * @return the id
 	 */
 	public String getId() {
-		return id;
+		String formatted = id;
+		if (formatted == null) {
+			formatted = EntityIds.format(numericId);
+			id = formatted;
+		}
+		return formatted;
 	}
 
 	/**
@@ -48,14 +71,14 @@ public abstract class MenuItem {
 	/**
 	 * @return the price
 	 */
-	public double getPrice() {
+	public Money getPrice() {
 		return price;
 	}
 
 	/**
 	 * @param price the price to set
 	 */
-	public void setPrice(double price) {
+	public void setPrice(Money price) {
 		this.price = price;
 	}
 
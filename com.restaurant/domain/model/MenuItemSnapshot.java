@@ -0,0 +1,165 @@
+package domain.model;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Immutable record of a menu item's name, category and price as of a given
+ * catalog version. Order lines hold these instead of live MenuItems, so later
+ * menu edits never change historical totals. One instance is shared by every
+ * line that ordered the item at that price.
+ *
+ * A customized item (extra toppings, sides) is a flat snapshot holding its base
+ * snapshot, the modifiers in the order applied and the precomputed total price.
+ */
+public final class MenuItemSnapshot {
+    private final int ordinal;
+    private final String menuItemId;
+    private final String name;
+    private final String category;
+    private final long priceCents;
+    private final long catalogVersion;
+    // Null and empty for plain menu items
+    private final MenuItemSnapshot base;
+    private final List<Modifier> modifiers;
+
+    public static final class Modifier {
+        private final String name;
+        private final long priceCents;
+
+        public Modifier(String name, Money price) {
+            this.name = name;
+            this.priceCents = price.getCents();
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Money getPrice() {
+            return Money.ofCents(priceCents);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Modifier)) {
+                return false;
+            }
+            Modifier other = (Modifier) o;
+            return priceCents == other.priceCents && name.equals(other.name);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * name.hashCode() + Long.hashCode(priceCents);
+        }
+    }
+
+    MenuItemSnapshot(int ordinal, MenuItem menuItem, long priceCents, long catalogVersion) {
+        this(ordinal, menuItem.getId(), menuItem.getName(), menuItem.getCategory(), priceCents, catalogVersion);
+    }
+
+    private MenuItemSnapshot(int ordinal, String menuItemId, String name, String category,
+                             long priceCents, long catalogVersion) {
+        this.ordinal = ordinal;
+        this.menuItemId = menuItemId;
+        this.name = name;
+        this.category = category;
+        this.priceCents = priceCents;
+        this.catalogVersion = catalogVersion;
+        this.base = null;
+        this.modifiers = Collections.emptyList();
+    }
+
+    // Recreates a plain snapshot read back from storage
+    public static MenuItemSnapshot restore(int ordinal, String menuItemId, String name, String category,
+                                           long priceCents, long catalogVersion) {
+        return new MenuItemSnapshot(ordinal, menuItemId, name, category, priceCents, catalogVersion);
+    }
+
+    private MenuItemSnapshot(MenuItemSnapshot base, List<Modifier> modifiers) {
+        long price = base.priceCents;
+        for (Modifier modifier : modifiers) {
+            price = Math.addExact(price, modifier.priceCents);
+        }
+        this.ordinal = base.ordinal;
+        this.menuItemId = base.menuItemId;
+        this.name = base.name;
+        this.category = base.category;
+        this.priceCents = price;
+        this.catalogVersion = base.catalogVersion;
+        this.base = base;
+        this.modifiers = Collections.unmodifiableList(new ArrayList<>(modifiers));
+    }
+
+    /**
+     * Flat customized version of this item. Prefer going through a
+     * CustomizationCache so identical customizations share one instance.
+     */
+    public MenuItemSnapshot withModifiers(List<Modifier> modifiers) {
+        if (base != null) {
+            List<Modifier> combined = new ArrayList<>(this.modifiers);
+            combined.addAll(modifiers);
+            return new MenuItemSnapshot(base, combined);
+        }
+        return new MenuItemSnapshot(this, modifiers);
+    }
+
+    // Stable small number identifying the menu item across catalog versions
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    public String getMenuItemId() {
+        return menuItemId;
+    }
+
+    // Name of the menu item itself, without customizations
+    public String getName() {
+        return name;
+    }
+
+    public String getDisplayName() {
+        if (modifiers.isEmpty()) {
+            return name;
+        }
+        StringBuilder sb = new StringBuilder(name);
+        for (Modifier modifier : modifiers) {
+            sb.append(" + ").append(modifier.getName());
+        }
+        return sb.toString();
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public Money getPrice() {
+        return Money.ofCents(priceCents);
+    }
+
+    // Total including modifiers
+    public long getPriceCents() {
+        return priceCents;
+    }
+
+    // The plain item this one customizes, or this item if it has no modifiers
+    public MenuItemSnapshot getBase() {
+        return base != null ? base : this;
+    }
+
+    public List<Modifier> getModifiers() {
+        return modifiers;
+    }
+
+    // Catalog version in which this name, category and price took effect
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    boolean matches(MenuItem menuItem, long priceCents) {
+        return name.equals(menuItem.getName()) && category.equals(menuItem.getCategory())
+                && this.priceCents == priceCents;
+    }
+}
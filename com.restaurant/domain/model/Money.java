@@ -0,0 +1,90 @@
+package domain.model;
+
+/**
+ * Exact monetary amount stored as a whole number of cents.
+ *
+ * Sums and products are exact; the only rounding happens in
+ * {@link #percentage(int)} and when converting user input with {@link #of(double)}.
+ * Instances are immutable and small enough for the JIT to keep them in registers,
+ * and hot loops can accumulate {@link #getCents()} directly.
+ */
+public final class Money implements Comparable<Money> {
+    public static final Money ZERO = new Money(0);
+
+    private final long cents;
+
+    private Money(long cents) {
+        this.cents = cents;
+    }
+
+    public static Money ofCents(long cents) {
+        return cents == 0 ? ZERO : new Money(cents);
+    }
+
+    // Rounds to the nearest cent, for amounts typed in by staff
+    public static Money of(double amount) {
+        return ofCents(Math.round(amount * 100));
+    }
+
+    public long getCents() {
+        return cents;
+    }
+
+    public Money add(Money other) {
+        return ofCents(Math.addExact(cents, other.cents));
+    }
+
+    public Money subtract(Money other) {
+        return ofCents(Math.subtractExact(cents, other.cents));
+    }
+
+    public Money multiply(int quantity) {
+        return ofCents(Math.multiplyExact(cents, (long) quantity));
+    }
+
+    /**
+     * @param basisPoints rate in hundredths of a percent, e.g. 800 for 8%
+     * @return the share of this amount, rounded half up to the cent
+     */
+    public Money percentage(int basisPoints) {
+        return ofCents(percentageOfCents(cents, basisPoints));
+    }
+
+    public static long percentageOfCents(long cents, int basisPoints) {
+        return Math.floorDiv(Math.addExact(Math.multiplyExact(cents, (long) basisPoints), 5_000L), 10_000L);
+    }
+
+    public Money min(Money other) {
+        return cents <= other.cents ? this : other;
+    }
+
+    public Money max(Money other) {
+        return cents >= other.cents ? this : other;
+    }
+
+    public boolean isZero() {
+        return cents == 0;
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(cents, other.cents);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money && ((Money) o).cents == cents;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(cents);
+    }
+
+    @Override
+    public String toString() {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return (cents < 0 ? "-" : "") + (abs / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
@@ -5,32 +5,86 @@ import domain.state.OrderState;
 import domain.state.ReceivedState;
 import domain.observer.OrderObserver;
 
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
-import java.util.UUID;
 
 public class Order {
+    private static final VarHandle STATE;
+
+    static {
+        try {
+            STATE = MethodHandles.lookup().findVarHandle(Order.class, "state", OrderState.class);
+        } catch (ReflectiveOperationException e) {
+            throw new ExceptionInInitializerError(e);
+        }
+    }
+
+    private final long numericId;
+    // Formatted on first use
     private String id;
     private Customer customer;
+    // Items, discount and totals are guarded by the order's monitor, which
+    // OrderService also holds while it journals a change
     private List<OrderItem> items;
-    private Date dateCreated;
-    private OrderState state;
-    private List<OrderObserver> observers;
+    // Creation time, and its day in the restaurant's time zone, fixed when the order is created
+    private final long createdMillis;
+    private final int epochDay;
+    // Only changed through compareAndSetState, so concurrent transitions can't skip a state
+    private volatile OrderState state;
+    // Shared with other orders, typically an OrderObserverRegistry; may be null
+    private final OrderObserver observer;
     private DiscountStrategy discountStrategy;
-    private final double TAX_RATE = 0.08; // 8% tax
+    private static final int TAX_RATE_BASIS_POINTS = 800; // 8% tax
+    // Running totals in cents, so reports and toString() don't re-walk the items
+    private long subtotalCents;
+    private Money discountedSubtotal;
+    private Money total;
+    private boolean totalsValid;
+    // Number of journaled changes, so recovery can tell which logged changes a checkpoint already holds
+    private int revision;
+    // Catalog version when the order was created; price changes after it don't change its new lines' prices
+    private volatile long catalogVersion;
 
     public Order(Customer customer) {
-        this.id = UUID.randomUUID().toString();
+        this(customer, null);
+    }
+
+    public Order(Customer customer, OrderObserver observer) {
+        this(EntityIds.next(), customer, new Date(), observer);
+    }
+
+    // Recreates a stored order with its original ID and creation time
+    public Order(long numericId, Customer customer, Date dateCreated, OrderObserver observer) {
+        this(numericId, customer, dateCreated.getTime(), RestaurantTime.epochDay(dateCreated.getTime()), observer);
+    }
+
+    // For orders created together, so the day is worked out once for the batch
+    public Order(long numericId, Customer customer, long createdMillis, int epochDay, OrderObserver observer) {
+        this.numericId = numericId;
         this.customer = customer;
         this.items = new ArrayList<>();
-        this.dateCreated = new Date();
-        this.state = new ReceivedState();
-        this.observers = new ArrayList<>();
+        this.createdMillis = createdMillis;
+        this.epochDay = epochDay;
+        this.state = ReceivedState.INSTANCE;
+        this.observer = observer;
     }
 
     public String getId() {
-        return id;
+        String formatted = id;
+        if (formatted == null) {
+            formatted = EntityIds.format(numericId);
+            id = formatted;
+        }
+        return formatted;
+    }
+
+    // Time-ordered: a later order has a larger ID
+    public long getNumericId() {
+        return numericId;
     }
 
     public Customer getCustomer() {
@@ -41,82 +95,147 @@ public class Order {
         this.customer = customer;
     }
 
-    public List<OrderItem> getItems() {
-        return items;
+    // A copy, so callers can iterate while other threads add items
+    public synchronized List<OrderItem> getItems() {
+        return List.copyOf(items);
     }
 
-    public void addItem(MenuItem menuItem, int quantity) {
+    public synchronized void addItem(MenuItemSnapshot menuItem, int quantity) {
         OrderItem item = new OrderItem(menuItem, quantity);
+        item.setOrder(this);
         items.add(item);
+        adjustSubtotal(item.getSubtotalCents());
+    }
+
+    // Lines are positions in getItems()
+    public synchronized void removeItem(int line) {
+        OrderItem item = items.remove(line);
+        item.setOrder(null);
+        adjustSubtotal(-item.getSubtotalCents());
+    }
+
+    public synchronized void changeQuantity(int line, int quantity) {
+        items.get(line).setQuantity(quantity);
     }
 
-    public void removeItem(OrderItem item) {
-        items.remove(item);
+    // Line prices are fixed snapshots, so the running subtotal can be updated exactly
+    synchronized void adjustSubtotal(long deltaCents) {
+        subtotalCents = Math.addExact(subtotalCents, deltaCents);
+        totalsValid = false;
     }
 
+    // A copy; Date is mutable
     public Date getDateCreated() {
-        return dateCreated;
+        return new Date(createdMillis);
     }
 
-    public OrderState getState() {
-        return state;
+    public long getCreatedMillis() {
+        return createdMillis;
     }
 
-    public void setState(OrderState state) {
-        this.state = state;
-        notifyObservers();
+    // Day the order was created on, see RestaurantTime
+    public int getEpochDay() {
+        return epochDay;
     }
 
-    public void addObserver(OrderObserver observer) {
-        observers.add(observer);
+    public OrderState getState() {
+        return state;
     }
 
-    public void removeObserver(OrderObserver observer) {
-        observers.remove(observer);
+    /**
+     * Moves the order to {@code newState} only if it is still in {@code expected}.
+     * Observers are notified once, by the caller whose update won.
+     */
+    public boolean compareAndSetState(OrderState expected, OrderState newState) {
+        if (STATE.compareAndSet(this, expected, newState)) {
+            notifyObservers(newState);
+            return true;
+        }
+        return false;
     }
 
-    private void notifyObservers() {
-        for (OrderObserver observer : observers) {
-            observer.update(this);
+    private void notifyObservers(OrderState newState) {
+        if (observer != null) {
+            observer.stateChanged(this, newState);
         }
     }
 
-    public void nextState() {
-        state.nextState(this);
+    public boolean nextState() {
+        return advanceFrom(state);
+    }
+
+    // Advances only if the order is still in the state the caller last saw
+    public boolean advanceFrom(OrderState expected) {
+        return expected.nextState(this);
     }
 
     public String getStatus() {
         return state.getStateName();
     }
 
-    public void setDiscountStrategy(DiscountStrategy discountStrategy) {
+    public int getRevision() {
+        return revision;
+    }
+
+    public void setRevision(int revision) {
+        this.revision = revision;
+    }
+
+    public long getCatalogVersion() {
+        return catalogVersion;
+    }
+
+    public void setCatalogVersion(long catalogVersion) {
+        this.catalogVersion = catalogVersion;
+    }
+
+    // Null when no discount was applied
+    public synchronized DiscountStrategy getDiscountStrategy() {
+        return discountStrategy;
+    }
+
+    public synchronized void setDiscountStrategy(DiscountStrategy discountStrategy) {
         this.discountStrategy = discountStrategy;
+        totalsValid = false;
     }
 
-    public double calculateSubtotal() {
-        double subtotal = 0;
-        for (OrderItem item : items) {
-            subtotal += item.getSubtotal();
-        }
-        return subtotal;
+    public synchronized Money calculateSubtotal() {
+        return Money.ofCents(subtotalCents);
+    }
+
+    public synchronized Money calculateTax() {
+        return calculateSubtotal().percentage(TAX_RATE_BASIS_POINTS);
     }
 
-    public double calculateTax() {
-        return calculateSubtotal() * TAX_RATE;
+    public synchronized Money calculateDiscount() {
+        return calculateSubtotal().subtract(calculateDiscountedSubtotal());
     }
 
-    public double calculateTotal() {
-        double subtotal = calculateSubtotal();
-        double discountedSubtotal = (discountStrategy != null) ? 
-                discountStrategy.applyDiscount(subtotal) : subtotal;
-        double tax = discountedSubtotal * TAX_RATE;
-        return discountedSubtotal + tax;
+    public synchronized Money calculateTotal() {
+        updateTotals();
+        return total;
+    }
+
+    private Money calculateDiscountedSubtotal() {
+        updateTotals();
+        return discountedSubtotal;
+    }
+
+    private void updateTotals() {
+        if (!totalsValid) {
+            long discountCents = discountStrategy != null
+                    ? discountStrategy.discountCents(this, Collections.unmodifiableList(items), subtotalCents) : 0;
+            discountedSubtotal = Money.ofCents(subtotalCents - discountCents);
+            Money tax = discountedSubtotal.percentage(TAX_RATE_BASIS_POINTS);
+            total = discountedSubtotal.add(tax);
+            totalsValid = true;
+        }
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append("Order #").append(id.substring(0, 8)).append("\n");
+        sb.append("Order #").append(getId().substring(0, 8)).append("\n");
         sb.append("Customer: ").append(customer.getName()).append("\n");
         sb.append("Status: ").append(getStatus()).append("\n");
         sb.append("Items:\n");
@@ -125,15 +244,16 @@ public class Order {
             sb.append("  ").append(item).append("\n");
         }
         
-        sb.append("Subtotal: $").append(String.format("%.2f", calculateSubtotal())).append("\n");
+        Money subtotal = calculateSubtotal();
+        sb.append("Subtotal: $").append(subtotal).append("\n");
         
         if (discountStrategy != null) {
-            double discount = calculateSubtotal() - discountStrategy.applyDiscount(calculateSubtotal());
-            sb.append("Discount: -$").append(String.format("%.2f", discount)).append("\n");
+            Money discount = calculateDiscount();
+            sb.append("Discount: -$").append(discount).append("\n");
         }
         
-        sb.append("Tax: $").append(String.format("%.2f", calculateTax())).append("\n");
-        sb.append("Total: $").append(String.format("%.2f", calculateTotal())).append("\n");
+        sb.append("Tax: $").append(calculateTax()).append("\n");
+        sb.append("Total: $").append(calculateTotal()).append("\n");
         
         return sb.toString();
     }
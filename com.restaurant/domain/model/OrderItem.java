@@ -1,32 +1,48 @@
 package domain.model;
 
 public class OrderItem {
-    private MenuItem menuItem;
+    private final MenuItemSnapshot item;
     private int quantity;
+    private Order order;
 
-    public OrderItem(MenuItem menuItem, int quantity) {
-        this.menuItem = menuItem;
+    public OrderItem(MenuItemSnapshot item, int quantity) {
+        this.item = item;
         this.quantity = quantity;
     }
 
-    public MenuItem getMenuItem() {
-        return menuItem;
+    // The item as it was priced when ordered
+    public MenuItemSnapshot getItem() {
+        return item;
     }
 
     public int getQuantity() {
         return quantity;
     }
 
-    public void setQuantity(int quantity) {
+    // Through Order.changeQuantity, which callers journal first
+    void setQuantity(int quantity) {
+        long previousSubtotal = getSubtotalCents();
         this.quantity = quantity;
+        if (order != null) {
+            order.adjustSubtotal(getSubtotalCents() - previousSubtotal);
+        }
     }
 
-    public double getSubtotal() {
-        return menuItem.getPrice() * quantity;
+    void setOrder(Order order) {
+        this.order = order;
+    }
+
+    public Money getSubtotal() {
+        return Money.ofCents(getSubtotalCents());
+    }
+
+    // Without allocating a Money, for pricing loops
+    public long getSubtotalCents() {
+        return Math.multiplyExact(item.getPriceCents(), (long) quantity);
     }
 
     @Override
     public String toString() {
-        return quantity + "x " + menuItem.getName() + " - $" + String.format("%.2f", getSubtotal());
+        return quantity + "x " + item.getDisplayName() + " - $" + getSubtotal();
     }
 }
@@ -0,0 +1,44 @@
+package domain.model;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.util.Date;
+
+/**
+ * The restaurant's time zone and the day numbers built on it. Orders are
+ * bucketed by epoch day (days since 1970-01-01 in this zone), worked out once
+ * when the order is created, so reports, archiving and expiry compare ints
+ * instead of doing calendar arithmetic per order.
+ *
+ * The zone is fixed for the life of the process: the {@code restaurant.zone}
+ * system property, e.g. {@code -Drestaurant.zone=Europe/Lisbon}, or else the
+ * system default at startup.
+ */
+public final class RestaurantTime {
+    public static final ZoneId ZONE = ZoneId.of(System.getProperty("restaurant.zone", ZoneId.systemDefault().getId()));
+
+    private RestaurantTime() {
+    }
+
+    public static LocalDate today() {
+        return LocalDate.now(ZONE);
+    }
+
+    public static int epochDay(long epochMillis) {
+        return Math.toIntExact(Instant.ofEpochMilli(epochMillis).atZone(ZONE).toLocalDate().toEpochDay());
+    }
+
+    public static int epochDay(LocalDate day) {
+        return Math.toIntExact(day.toEpochDay());
+    }
+
+    // The restaurant's calendar day for a point in time
+    public static LocalDate toLocalDate(Date date) {
+        return Instant.ofEpochMilli(date.getTime()).atZone(ZONE).toLocalDate();
+    }
+
+    public static LocalDate toLocalDate(int epochDay) {
+        return LocalDate.ofEpochDay(epochDay);
+    }
+}
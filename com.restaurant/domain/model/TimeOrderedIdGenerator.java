@@ -0,0 +1,69 @@
+package domain.model;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style 64-bit IDs: 41 bits of milliseconds since 2024-01-01 UTC,
+ * 10 bits of node number and a 12-bit sequence. IDs from one generator are
+ * strictly increasing, so they sort by creation time, and generation never
+ * touches SecureRandom or blocks.
+ */
+public class TimeOrderedIdGenerator implements IdGenerator {
+    private static final long EPOCH_MILLIS = 1_704_067_200_000L;
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE = (1 << NODE_BITS) - 1;
+
+    private final long node;
+    // Milliseconds since the epoch and sequence of the last ID, packed as in the ID itself
+    private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+    public TimeOrderedIdGenerator(int node) {
+        if (node < 0 || node > MAX_NODE) {
+            throw new IllegalArgumentException("Node must be between 0 and " + MAX_NODE);
+        }
+        this.node = node;
+    }
+
+    @Override
+    public long nextId() {
+        return toId(reserve(1));
+    }
+
+    // One compare-and-set reserves the whole block
+    @Override
+    public void nextIds(long[] ids) {
+        if (ids.length == 0) {
+            return;
+        }
+        long first = reserve(ids.length);
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = toId(first + i);
+        }
+    }
+
+    // Returns the first of count consecutive time-and-sequence values
+    private long reserve(int count) {
+        while (true) {
+            long last = lastTimeAndSequence.get();
+            long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+            // A full sequence carries into the next millisecond, and a clock that
+            // steps back keeps counting from the last ID, so IDs never repeat
+            long first = now > last ? now : last + 1;
+            if (lastTimeAndSequence.compareAndSet(last, first + count - 1)) {
+                return first;
+            }
+        }
+    }
+
+    private long toId(long timeAndSequence) {
+        long millis = timeAndSequence >>> SEQUENCE_BITS;
+        long sequence = timeAndSequence & ((1L << SEQUENCE_BITS) - 1);
+        return (millis << (NODE_BITS + SEQUENCE_BITS)) | (node << SEQUENCE_BITS) | sequence;
+    }
+
+    // Creation time encoded in an ID from this generator
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+}
@@ -0,0 +1,34 @@
+package domain.observer;
+
+import domain.model.Order;
+import domain.state.OrderState;
+
+import java.util.List;
+
+public interface OrderObserver {
+    void update(Order order);
+
+    /**
+     * Called exactly once per transition. Transitions can race, so by the time
+     * this runs the order may already be past {@code newState}; observers that
+     * react to a particular state should test {@code newState}, not the order.
+     */
+    default void stateChanged(Order order, OrderState newState) {
+        update(order);
+    }
+
+    /**
+     * Several transitions at once, oldest first, e.g. as drained by an
+     * asynchronous notifier. Observers that can act on a batch in one go
+     * (one message, one write) override this; by default each is passed on.
+     */
+    default void stateChanged(List<OrderStateChange> changes) {
+        for (OrderStateChange change : changes) {
+            stateChanged(change.getOrder(), change.getNewState());
+        }
+    }
+
+    // New orders, in one call per batch placed; most observers only care about state changes
+    default void ordersReceived(List<Order> orders) {
+    }
+}
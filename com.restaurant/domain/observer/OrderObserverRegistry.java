@@ -0,0 +1,119 @@
+package domain.observer;
+
+import domain.model.Order;
+import domain.state.DeliveredState;
+import domain.state.OrderState;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * One shared set of subscriptions for all orders, so orders only hold a
+ * reference to the registry instead of their own observer list. Observers
+ * can follow every order, a customer's orders or a single order; per-order
+ * subscriptions are dropped once the order is delivered or evicted, and a
+ * customer's or order's list once its last observer unsubscribes.
+ */
+public class OrderObserverRegistry implements OrderObserver {
+    private final List<OrderObserver> globalObservers = new CopyOnWriteArrayList<>();
+    private final Map<String, List<OrderObserver>> customerObservers = new ConcurrentHashMap<>();
+    private final Map<String, List<OrderObserver>> orderObservers = new ConcurrentHashMap<>();
+
+    public void subscribe(OrderObserver observer) {
+        globalObservers.add(observer);
+    }
+
+    public void subscribeToCustomer(String customerId, OrderObserver observer) {
+        add(customerObservers, customerId, observer);
+    }
+
+    public void subscribeToOrder(String orderId, OrderObserver observer) {
+        add(orderObservers, orderId, observer);
+    }
+
+    public void unsubscribe(OrderObserver observer) {
+        globalObservers.remove(observer);
+        remove(customerObservers, observer);
+        remove(orderObservers, observer);
+    }
+
+    // Drops the order's own subscriptions, e.g. when it is evicted without a delivery being seen
+    public void forgetOrder(String orderId) {
+        orderObservers.remove(orderId);
+    }
+
+    // Inside compute, so a concurrent unsubscribe cannot drop the list between creating and adding to it
+    private static void add(Map<String, List<OrderObserver>> observersByKey, String key, OrderObserver observer) {
+        observersByKey.compute(key, (id, observers) -> {
+            List<OrderObserver> list = observers != null ? observers : new CopyOnWriteArrayList<>();
+            list.add(observer);
+            return list;
+        });
+    }
+
+    private static void remove(Map<String, List<OrderObserver>> observersByKey, OrderObserver observer) {
+        for (String key : observersByKey.keySet()) {
+            observersByKey.computeIfPresent(key, (id, observers) -> {
+                observers.remove(observer);
+                return observers.isEmpty() ? null : observers;
+            });
+        }
+    }
+
+    @Override
+    public void update(Order order) {
+        stateChanged(order, order.getState());
+    }
+
+    @Override
+    public void stateChanged(Order order, OrderState newState) {
+        deliverTo(globalObservers, order, newState);
+        deliverTo(customerObservers.get(order.getCustomer().getId()), order, newState);
+        if (newState == DeliveredState.INSTANCE) {
+            // No further transitions, so the order's own subscriptions can go
+            deliverTo(orderObservers.remove(order.getId()), order, newState);
+        } else {
+            deliverTo(orderObservers.get(order.getId()), order, newState);
+        }
+    }
+
+    // Customer subscribers only hear about their own customer's orders
+    @Override
+    public void ordersReceived(List<Order> orders) {
+        for (OrderObserver observer : globalObservers) {
+            observer.ordersReceived(orders);
+        }
+        if (customerObservers.isEmpty()) {
+            return;
+        }
+        Map<String, List<Order>> byCustomer = new HashMap<>();
+        for (Order order : orders) {
+            String customerId = order.getCustomer().getId();
+            if (customerObservers.containsKey(customerId)) {
+                byCustomer.computeIfAbsent(customerId, id -> new ArrayList<>()).add(order);
+            }
+        }
+        byCustomer.forEach((customerId, customerOrders) -> {
+            List<OrderObserver> observers = customerObservers.get(customerId);
+            if (observers != null) {
+                for (OrderObserver observer : observers) {
+                    observer.ordersReceived(Collections.unmodifiableList(customerOrders));
+                }
+            }
+        });
+    }
+
+    private static void deliverTo(List<OrderObserver> observers, Order order, OrderState newState) {
+        if (observers == null) {
+            return;
+        }
+        for (OrderObserver observer : observers) {
+            observer.stateChanged(order, newState);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package domain.observer;
+
+import domain.model.Order;
+import domain.state.OrderState;
+
+// One transition, as handed to observers in batches
+public final class OrderStateChange {
+    private final Order order;
+    private final OrderState newState;
+
+    public OrderStateChange(Order order, OrderState newState) {
+        this.order = order;
+        this.newState = newState;
+    }
+
+    public Order getOrder() {
+        return order;
+    }
+
+    public OrderState getNewState() {
+        return newState;
+    }
+
+    @Override
+    public String toString() {
+        return order.getId() + " -> " + newState.getStateName();
+    }
+}
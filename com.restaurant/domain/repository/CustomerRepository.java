@@ -0,0 +1,23 @@
+package domain.repository;
+
+import domain.model.Customer;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface CustomerRepository {
+    void save(Customer customer);
+
+    // Accepts a full ID or a unique short-ID prefix
+    Optional<Customer> findById(String id);
+
+    List<Customer> findAll();
+
+    // Matches regardless of punctuation and country prefix
+    Optional<Customer> findByPhone(String phone);
+
+    // Customers whose number ends with the given digits, at most limit of them
+    List<Customer> findByPhoneSuffix(String lastDigits, int limit);
+
+    void delete(String id);
+}
@@ -0,0 +1,38 @@
+package domain.repository;
+
+import domain.model.Order;
+
+import java.time.LocalDate;
+
+/**
+ * Compact, append-only store of delivered orders for reporting. Orders are
+ * kept as one row per order line; names are replaced by small item and
+ * customer numbers, resolved through the archive's dictionaries.
+ */
+public interface DeliveredOrderArchive {
+    /**
+     * Adds a delivered order. Returns false, and changes nothing, for an order
+     * already archived, e.g. one replayed from the order journal after a
+     * restart.
+     */
+    boolean append(Order order);
+
+    // Visits the rows of orders created between the two days, inclusive, in archive order
+    void scan(LocalDate from, LocalDate to, LineVisitor visitor);
+
+    int getItemCount();
+
+    String getItemName(int item);
+
+    String getItemCategory(int item);
+
+    /**
+     * One order line. The order's discount and tax are carried by its first
+     * row and are zero on the others. An order without lines has a single
+     * row with item -1 and quantity 0.
+     */
+    interface LineVisitor {
+        void visit(int epochDay, long orderId, int customer, int item, int quantity,
+                   long unitPriceCents, long discountCents, long taxCents);
+    }
+}
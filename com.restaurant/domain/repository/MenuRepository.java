@@ -1,5 +1,37 @@
 package domain.repository;
 
-public class MenuRepository {
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
 
+import java.util.List;
+import java.util.Optional;
+
+public interface MenuRepository {
+    void save(MenuItem menuItem);
+
+    // Accepts a full ID or a unique short-ID prefix
+    Optional<MenuItem> findById(String id);
+
+    List<MenuItem> findAll();
+
+    // Current snapshot of the whole menu; never changes once returned
+    MenuCatalog getCatalog();
+
+    void delete(String id);
+
+    /**
+     * Publishes a catalog built from {@code expected}, e.g. by a bulk
+     * repricing, unless the menu has changed since; returns false then.
+     */
+    boolean replace(MenuCatalog expected, MenuCatalog updated);
+
+    /**
+     * The catalog to price new lines from for an order created at the given
+     * catalog version: the one replaced by the first price change since,
+     * whether a repricing or a saved item with a new price, or the current
+     * catalog if there was none. Only the most recent price changes are
+     * remembered; an order older than all of them gets the oldest retained
+     * prices.
+     */
+    MenuCatalog catalogFor(long catalogVersion);
 }
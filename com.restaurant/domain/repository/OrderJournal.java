@@ -0,0 +1,111 @@
+package domain.repository;
+
+import domain.model.Customer;
+import domain.model.MenuItemSnapshot;
+import domain.model.Order;
+import domain.service.discount.DiscountStrategy;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.function.Supplier;
+
+/**
+ * Durable record of the changes made to orders, so the in-memory repository
+ * can be rebuilt after a restart. Changes, state changes included, are
+ * recorded before they are applied and before anyone is notified of them;
+ * each method returns once the change is as durable as the implementation
+ * promises.
+ *
+ * Callers bump the order's revision before recording a change and hold the
+ * order's monitor while recording and applying it. Replayed changes carry that
+ * revision, so those already contained in a checkpoint can be skipped.
+ */
+public interface OrderJournal {
+    // Keeps nothing; orders live only in memory
+    OrderJournal NONE = new OrderJournal() {
+        @Override
+        public void orderCreated(Order order) {
+        }
+
+        @Override
+        public void ordersPlaced(Collection<Order> orders) {
+        }
+
+        @Override
+        public void itemAdded(Order order, MenuItemSnapshot item, int quantity) {
+        }
+
+        @Override
+        public void itemRemoved(Order order, int line) {
+        }
+
+        @Override
+        public void quantityChanged(Order order, int line, int quantity) {
+        }
+
+        @Override
+        public void discountApplied(Order order, DiscountStrategy discountStrategy) {
+        }
+
+        @Override
+        public void stateAdvanced(Order order) {
+        }
+
+        @Override
+        public void checkpoint(Supplier<? extends Collection<Order>> currentOrders) {
+        }
+
+        @Override
+        public void replay(ReplayHandler handler) {
+        }
+    };
+
+    void orderCreated(Order order);
+
+    /**
+     * Records new orders together with their items as one write, before the
+     * orders are visible to anyone else. Each order's revision must already
+     * count its items.
+     */
+    void ordersPlaced(Collection<Order> orders);
+
+    void itemAdded(Order order, MenuItemSnapshot item, int quantity);
+
+    // Lines are numbered by position in the order's item list, as it is before the change
+    void itemRemoved(Order order, int line);
+
+    void quantityChanged(Order order, int line, int quantity);
+
+    void discountApplied(Order order, DiscountStrategy discountStrategy);
+
+    void stateAdvanced(Order order);
+
+    /**
+     * Records the current state of the orders and drops the history before
+     * it, so replay time stays bounded. The orders are collected only after
+     * new records have started going to the history that is kept, so the
+     * collection must include every order whose creation was recorded
+     * before that; callers make sure no creation is half done while it runs.
+     * Other writers are not stopped: each order is read under its monitor,
+     * and changes made meanwhile are both logged and possibly included,
+     * which the revisions sort out on replay.
+     */
+    void checkpoint(Supplier<? extends Collection<Order>> currentOrders);
+
+    // Feeds the last checkpoint and every change recorded after it to the handler, oldest first
+    void replay(ReplayHandler handler);
+
+    interface ReplayHandler {
+        void orderCreated(long orderId, Date dateCreated, Customer customer);
+
+        void itemAdded(long orderId, int revision, MenuItemSnapshot item, int quantity);
+
+        void itemRemoved(long orderId, int revision, int line);
+
+        void quantityChanged(long orderId, int revision, int line, int quantity);
+
+        void discountApplied(long orderId, int revision, DiscountStrategy discountStrategy);
+
+        void stateAdvanced(long orderId, int revision);
+    }
+}
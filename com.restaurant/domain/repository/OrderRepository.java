@@ -1,5 +1,45 @@
 package domain.repository;
 
-public class OrderRepository {
+import domain.model.Order;
+import domain.model.RestaurantTime;
 
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.Date;
+import java.util.List;
+import java.util.Optional;
+
+public interface OrderRepository {
+    void save(Order order);
+
+    // Lets implementations index a batch of new orders in one go
+    default void saveAll(Collection<Order> orders) {
+        for (Order order : orders) {
+            save(order);
+        }
+    }
+
+    // Accepts a full ID or a unique short-ID prefix
+    Optional<Order> findById(String id);
+
+    List<Order> findAll();
+
+    // Orders created on the given day in the restaurant's time zone
+    List<Order> findByDay(LocalDate day);
+
+    default List<Order> findByDate(Date date) {
+        return findByDay(RestaurantTime.toLocalDate(date));
+    }
+
+    // Days before the given one that still have orders, oldest first
+    List<LocalDate> findDaysBefore(LocalDate day);
+
+    List<Order> findByCustomerId(String customerId);
+
+    List<Order> findByStatus(String status);
+
+    void delete(String id);
+
+    // Drops every order created on the given day; returns how many were dropped
+    int deleteByDay(LocalDate day);
 }
@@ -1,5 +1,356 @@
 package domain.service;
 
+import domain.model.Order;
+import domain.model.OrderItem;
+import domain.state.OrderState;
+import domain.state.PreparingState;
+import domain.state.ReceivedState;
+
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Kitchen dispatcher. A submitted order's lines are routed to the station
+ * that makes them, each station keeps a priority queue (higher priority
+ * first, then oldest order first) and its cooks work through it. A cook
+ * whose own queue is empty takes the most urgent line from the busiest
+ * other station instead of standing idle.
+ *
+ * The order moves to Preparing when a cook picks up its first line and to
+ * Ready once its last line is done, so nobody has to progress it by hand.
+ * An order with a failed line is left in Preparing for staff to deal with.
+ */
 public class OrderProcessingService {
+    public enum Station {
+        GRILL, COLD, BAR, PASTRY;
+
+        public static Station forCategory(String category) {
+            switch (category) {
+                case "Main Dish":
+                    return GRILL;
+                case "Appetizer":
+                    return COLD;
+                case "Beverage":
+                    return BAR;
+                case "Dessert":
+                    return PASTRY;
+                default:
+                    throw new IllegalArgumentException("No station makes " + category);
+            }
+        }
+    }
+
+    /**
+     * Makes one order line; typically waits for the cook to mark it done.
+     * Interrupting the cook's thread abandons the line, not the cook.
+     */
+    public interface LineCook {
+        void prepare(Station station, Order order, OrderItem line) throws InterruptedException;
+    }
+
+    // Moves an order on only if it is still in the expected state, see OrderService.advanceOrder
+    public interface OrderAdvancer {
+        boolean advance(String orderId, OrderState expected);
+    }
+
+    // How long an idle cook waits on its own queue before looking at the others
+    private static final long STEAL_INTERVAL_MILLIS = 5;
+
+    private final LineCook cook;
+    private final OrderAdvancer advancer;
+    private final boolean workStealing;
+    private final Map<Station, StationQueue> stations = new EnumMap<>(Station.class);
+    private final AtomicLong nextSequence = new AtomicLong();
+    private volatile boolean running = true;
+
+    private final LongAdder completedOrders = new LongAdder();
+    private final LongAdder totalLeadTimeNanos = new LongAdder();
+    private final LongAdder failedLines = new LongAdder();
+    // Orders whose lines were all done but that could not be moved on
+    private final LongAdder failedAdvances = new LongAdder();
+    private final AtomicReference<RuntimeException> lastAdvanceFailure = new AtomicReference<>();
+
+    public OrderProcessingService(int cooksPerStation, LineCook cook, OrderAdvancer advancer) {
+        this(cooksPerStation(cooksPerStation), true, cook, advancer);
+    }
+
+    public OrderProcessingService(Map<Station, Integer> cooks, boolean workStealing,
+                                  LineCook cook, OrderAdvancer advancer) {
+        this.cook = cook;
+        this.advancer = advancer;
+        this.workStealing = workStealing;
+        for (Station station : Station.values()) {
+            int count = cooks.getOrDefault(station, 0);
+            if (count < 0) {
+                throw new IllegalArgumentException("Cook count must not be negative: " + station);
+            }
+            if (count == 0 && !workStealing) {
+                throw new IllegalArgumentException("Station " + station + " has no cooks");
+            }
+            stations.put(station, new StationQueue(station, count));
+        }
+        for (StationQueue queue : stations.values()) {
+            queue.start();
+        }
+    }
+
+    private static Map<Station, Integer> cooksPerStation(int count) {
+        Map<Station, Integer> cooks = new EnumMap<>(Station.class);
+        for (Station station : Station.values()) {
+            cooks.put(station, count);
+        }
+        return cooks;
+    }
+
+    public void submit(Order order) {
+        submit(order, 0);
+    }
+
+    // Lines of a higher priority order are started before those of older orders
+    public void submit(Order order, int priority) {
+        if (!running) {
+            throw new IllegalStateException("Kitchen has been shut down");
+        }
+        if (order.getState() != ReceivedState.INSTANCE) {
+            throw new IllegalStateException("Order " + order.getId() + " is " + order.getStatus()
+                    + " and cannot be sent to the kitchen");
+        }
+        List<OrderItem> items = order.getItems();
+        if (items.isEmpty()) {
+            throw new IllegalArgumentException("Order " + order.getId() + " has no items");
+        }
+        // Every line must have a station before any is queued, or the ticket could never complete
+        Station[] lineStations = new Station[items.size()];
+        for (int i = 0; i < lineStations.length; i++) {
+            lineStations[i] = Station.forCategory(items.get(i).getItem().getCategory());
+        }
+        Ticket ticket = new Ticket(order, priority, nextSequence.getAndIncrement(), items.size());
+        long now = System.nanoTime();
+        for (int i = 0; i < lineStations.length; i++) {
+            stations.get(lineStations[i]).queue.add(new Line(ticket, items.get(i), lineStations[i], i, now));
+        }
+    }
+
+    /**
+     * Stops taking orders, lets the cooks finish what is already queued and
+     * waits up to the given time for them.
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        running = false;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (StationQueue station : stations.values()) {
+            for (Thread worker : station.workers) {
+                long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+                worker.join(Math.max(1, remainingMillis));
+            }
+        }
+    }
+
+    // ===== METRICS =====
+    public int getQueueDepth(Station station) {
+        return stations.get(station).queue.size();
+    }
+
+    public long getCompletedLineCount(Station station) {
+        return stations.get(station).completedLines.sum();
+    }
+
+    // Lines of this station made by cooks from other stations
+    public long getStolenLineCount(Station station) {
+        return stations.get(station).stolenLines.sum();
+    }
+
+    // Time a line waited before a cook picked it up
+    public double getAverageQueueWaitMillis(Station station) {
+        StationQueue queue = stations.get(station);
+        long count = queue.completedLines.sum();
+        return count == 0 ? 0 : queue.totalWaitNanos.sum() / (double) count / 1_000_000;
+    }
+
+    public double getMaxQueueWaitMillis(Station station) {
+        return stations.get(station).maxWaitNanos.get() / 1_000_000.0;
+    }
+
+    public long getCompletedOrderCount() {
+        return completedOrders.sum();
+    }
+
+    // Time from submission until the order's last line was done
+    public double getAverageLeadTimeMillis() {
+        long count = completedOrders.sum();
+        return count == 0 ? 0 : totalLeadTimeNanos.sum() / (double) count / 1_000_000;
+    }
+
+    public long getFailedLineCount() {
+        return failedLines.sum();
+    }
+
+    public long getFailedAdvanceCount() {
+        return failedAdvances.sum();
+    }
+
+    // Null if every finished order could be advanced so far
+    public RuntimeException getLastAdvanceFailure() {
+        return lastAdvanceFailure.get();
+    }
+
+    // One submitted order, shared by its lines
+    private static final class Ticket {
+        final Order order;
+        final int priority;
+        final long sequence;
+        final long submittedNanos = System.nanoTime();
+        final AtomicInteger remainingLines;
+        final AtomicBoolean started = new AtomicBoolean();
+        volatile boolean failed;
+
+        Ticket(Order order, int priority, long sequence, int lines) {
+            this.order = order;
+            this.priority = priority;
+            this.sequence = sequence;
+            this.remainingLines = new AtomicInteger(lines);
+        }
+    }
+
+    private static final class Line implements Comparable<Line> {
+        final Ticket ticket;
+        final OrderItem item;
+        final Station station;
+        final int index;
+        final long enqueuedNanos;
+
+        Line(Ticket ticket, OrderItem item, Station station, int index, long enqueuedNanos) {
+            this.ticket = ticket;
+            this.item = item;
+            this.station = station;
+            this.index = index;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+
+        @Override
+        public int compareTo(Line other) {
+            if (ticket.priority != other.ticket.priority) {
+                return Integer.compare(other.ticket.priority, ticket.priority);
+            }
+            if (ticket.sequence != other.ticket.sequence) {
+                return Long.compare(ticket.sequence, other.ticket.sequence);
+            }
+            return Integer.compare(index, other.index);
+        }
+    }
+
+    private final class StationQueue {
+        private final PriorityBlockingQueue<Line> queue = new PriorityBlockingQueue<>();
+        private final Thread[] workers;
+        private final LongAdder completedLines = new LongAdder();
+        private final LongAdder stolenLines = new LongAdder();
+        private final LongAdder totalWaitNanos = new LongAdder();
+        private final AtomicLong maxWaitNanos = new AtomicLong();
+
+        StationQueue(Station station, int cooks) {
+            this.workers = new Thread[cooks];
+            for (int i = 0; i < cooks; i++) {
+                workers[i] = new Thread(this::run, "kitchen-" + station.name().toLowerCase() + "-" + (i + 1));
+                workers[i].setDaemon(true);
+            }
+        }
+
+        void start() {
+            for (Thread worker : workers) {
+                worker.start();
+            }
+        }
+
+        void run() {
+            while (true) {
+                Line line;
+                try {
+                    line = queue.poll(STEAL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+                } catch (InterruptedException e) {
+                    // Cooks stop through shutdown(); a stray interrupt only cuts this wait short
+                    continue;
+                }
+                if (line == null && workStealing) {
+                    line = steal();
+                }
+                if (line != null) {
+                    make(line);
+                } else if (!running && isKitchenIdle()) {
+                    return;
+                }
+            }
+        }
+
+        // Most urgent line of the station with the longest queue
+        private Line steal() {
+            StationQueue busiest = null;
+            for (StationQueue other : stations.values()) {
+                if (other != this && (busiest == null || other.queue.size() > busiest.queue.size())) {
+                    busiest = other;
+                }
+            }
+            return busiest != null ? busiest.queue.poll() : null;
+        }
+
+        private boolean isKitchenIdle() {
+            if (!workStealing) {
+                return queue.isEmpty();
+            }
+            for (StationQueue other : stations.values()) {
+                if (!other.queue.isEmpty()) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        private void make(Line line) {
+            Ticket ticket = line.ticket;
+            StationQueue owner = stations.get(line.station);
+            long wait = System.nanoTime() - line.enqueuedNanos;
+            owner.totalWaitNanos.add(wait);
+            owner.maxWaitNanos.accumulateAndGet(wait, Math::max);
+            if (owner != this) {
+                owner.stolenLines.increment();
+            }
+            if (ticket.started.compareAndSet(false, true)) {
+                advance(ticket, ReceivedState.INSTANCE);
+            }
+            try {
+                cook.prepare(line.station, ticket.order, line.item);
+            } catch (InterruptedException e) {
+                // The interrupt was for this line; keeping the flag would end the cook's next poll
+                ticket.failed = true;
+                failedLines.increment();
+            } catch (RuntimeException e) {
+                ticket.failed = true;
+                failedLines.increment();
+            }
+            owner.completedLines.increment();
+            if (ticket.remainingLines.decrementAndGet() == 0 && !ticket.failed) {
+                advance(ticket, PreparingState.INSTANCE);
+                completedOrders.increment();
+                totalLeadTimeNanos.add(System.nanoTime() - ticket.submittedNanos);
+            }
+        }
 
+        // Staff may have moved the order on by hand already, which is fine
+        private void advance(Ticket ticket, OrderState expected) {
+            try {
+                advancer.advance(ticket.order.getId(), expected);
+            } catch (RuntimeException e) {
+                // The order stays where it is; the cook carries on with the next line
+                failedAdvances.increment();
+                lastAdvanceFailure.set(e);
+            }
+        }
+    }
 }
@@ -0,0 +1,104 @@
+package domain.service;
+
+import domain.model.Money;
+
+/**
+ * One step of a bulk repricing. Rules apply to every item, or to the items
+ * of one category, in the order they are given to
+ * {@link PricingService#reprice}.
+ */
+public final class PriceRule {
+    public enum Kind {
+        // Raise (or, when negative, cut) prices by a percentage
+        PERCENTAGE,
+        // Round to the nearest multiple of an amount, e.g. 0.05
+        ROUND_TO_NEAREST,
+        // Round to the nearest price ending in the given cents, e.g. .99
+        ENDING_IN
+    }
+
+    private final Kind kind;
+    // Null means every item
+    private final String category;
+    // Basis points for percentages, cents otherwise
+    private final long value;
+
+    private PriceRule(Kind kind, String category, long value) {
+        this.kind = kind;
+        this.category = category;
+        this.value = value;
+    }
+
+    public static PriceRule percentage(double percentage) {
+        return percentage(null, percentage);
+    }
+
+    public static PriceRule percentage(String category, double percentage) {
+        if (percentage <= -100 || percentage > 1000) {
+            throw new IllegalArgumentException("Price change must be above -100% and at most 1000%");
+        }
+        return new PriceRule(Kind.PERCENTAGE, category, Math.round(percentage * 100));
+    }
+
+    public static PriceRule roundToNearest(double increment) {
+        return roundToNearest(null, increment);
+    }
+
+    public static PriceRule roundToNearest(String category, double increment) {
+        long cents = Money.of(increment).getCents();
+        if (cents <= 0) {
+            throw new IllegalArgumentException("Rounding increment must be at least one cent");
+        }
+        return new PriceRule(Kind.ROUND_TO_NEAREST, category, cents);
+    }
+
+    public static PriceRule endingIn(int cents) {
+        return endingIn(null, cents);
+    }
+
+    public static PriceRule endingIn(String category, int cents) {
+        if (cents < 0 || cents > 99) {
+            throw new IllegalArgumentException("Price ending must be between 0 and 99 cents");
+        }
+        return new PriceRule(Kind.ENDING_IN, category, cents);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public long getValue() {
+        return value;
+    }
+
+    // The rule applied to one price, in cents
+    long apply(long priceCents) {
+        switch (kind) {
+            case PERCENTAGE:
+                return Math.max(0, priceCents + Money.percentageOfCents(priceCents, (int) value));
+            case ROUND_TO_NEAREST:
+                return Math.floorDiv(priceCents + value / 2, value) * value;
+            case ENDING_IN:
+                return Math.max(value, Math.floorDiv(priceCents - value + 50, 100) * 100 + value);
+            default:
+                throw new IllegalStateException("Unknown price rule: " + kind);
+        }
+    }
+
+    @Override
+    public String toString() {
+        String target = category != null ? category : "all items";
+        switch (kind) {
+            case PERCENTAGE:
+                return String.format("%+.2f%% on %s", value / 100.0, target);
+            case ROUND_TO_NEAREST:
+                return "round " + target + " to the nearest $" + Money.ofCents(value);
+            default:
+                return String.format("%s ending in .%02d", target, value);
+        }
+    }
+}
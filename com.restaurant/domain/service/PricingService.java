@@ -1,5 +1,85 @@
 package domain.service;
 
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
+import domain.repository.MenuRepository;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reprices the whole menu in one go, e.g. for inflation, happy hour or surge
+ * pricing. Prices are taken out of the catalog into an array indexed by menu
+ * item ordinal, every rule is applied in a single pass over that array, and
+ * the result is published as one new catalog version. Readers never see a
+ * half-repriced menu.
+ *
+ * Orders that were already open keep their prices: the repository remembers
+ * the catalog each repricing replaced (see {@link MenuRepository#catalogFor}).
+ */
 public class PricingService {
+    private final MenuRepository menuRepository;
+
+    public PricingService(MenuRepository menuRepository) {
+        this.menuRepository = menuRepository;
+    }
+
+    /**
+     * Applies the rules, in order, to every item on the menu and publishes the
+     * new prices as one catalog version. If the menu is edited meanwhile, the
+     * rules are applied again to the edited menu.
+     *
+     * @return the published catalog
+     */
+    public MenuCatalog reprice(List<PriceRule> rules) {
+        while (true) {
+            MenuCatalog current = menuRepository.getCatalog();
+            MenuCatalog repriced = current.withPrices(preview(current, rules));
+            if (menuRepository.replace(current, repriced)) {
+                return repriced;
+            }
+        }
+    }
+
+    /**
+     * Prices the rules would give, by ordinal, without publishing them.
+     * Ordinals of removed items are -1.
+     */
+    public long[] preview(MenuCatalog catalog, List<PriceRule> rules) {
+        long[] prices = catalog.getPriceCentsByOrdinal();
+        // Category of each ordinal as a small code, -1 for removed items
+        int[] categories = new int[prices.length];
+        Arrays.fill(categories, -1);
+        Map<String, List<MenuItem>> byCategory = catalog.getItemsByCategory();
+        // Each category gets the rules that reach it, still in order
+        PriceRule[][] rulesByCategory = new PriceRule[byCategory.size()][];
+        int code = 0;
+        for (Map.Entry<String, List<MenuItem>> entry : byCategory.entrySet()) {
+            for (MenuItem item : entry.getValue()) {
+                categories[catalog.getSnapshot(item.getId()).get().getOrdinal()] = code;
+            }
+            List<PriceRule> program = new ArrayList<>();
+            for (PriceRule rule : rules) {
+                if (rule.getCategory() == null || rule.getCategory().equals(entry.getKey())) {
+                    program.add(rule);
+                }
+            }
+            rulesByCategory[code++] = program.toArray(new PriceRule[0]);
+        }
 
+        for (int ordinal = 0; ordinal < prices.length; ordinal++) {
+            int category = categories[ordinal];
+            if (category < 0) {
+                continue;
+            }
+            long price = prices[ordinal];
+            for (PriceRule rule : rulesByCategory[category]) {
+                price = rule.apply(price);
+            }
+            prices[ordinal] = price;
+        }
+        return prices;
+    }
 }
@@ -0,0 +1,20 @@
+package domain.service.discount;
+
+import domain.model.Money;
+import domain.model.Order;
+import domain.model.OrderItem;
+
+import java.util.List;
+
+public interface DiscountStrategy {
+    Money applyDiscount(Money subtotal);
+
+    /**
+     * Cents taken off the order. Strategies that depend on the lines, the
+     * customer or the time of the order override this; the default only looks
+     * at the subtotal. Called with the order's monitor held.
+     */
+    default long discountCents(Order order, List<OrderItem> lines, long subtotalCents) {
+        return subtotalCents - applyDiscount(Money.ofCents(subtotalCents)).getCents();
+    }
+}
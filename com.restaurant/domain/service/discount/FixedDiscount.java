@@ -0,0 +1,24 @@
+package domain.service.discount;
+
+import domain.model.Money;
+
+public class FixedDiscount implements DiscountStrategy {
+    private final Money amount;
+
+    public FixedDiscount(double amount) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Discount amount cannot be negative");
+        }
+        this.amount = Money.of(amount);
+    }
+
+    public Money getAmount() {
+        return amount;
+    }
+
+    @Override
+    public Money applyDiscount(Money subtotal) {
+        // Never discount below zero
+        return subtotal.subtract(amount.min(subtotal));
+    }
+}
@@ -0,0 +1,10 @@
+package domain.service.discount;
+
+import domain.model.Money;
+
+public class NoDiscount implements DiscountStrategy {
+    @Override
+    public Money applyDiscount(Money subtotal) {
+        return subtotal;
+    }
+}
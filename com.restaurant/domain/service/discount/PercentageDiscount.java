@@ -0,0 +1,24 @@
+package domain.service.discount;
+
+import domain.model.Money;
+
+public class PercentageDiscount implements DiscountStrategy {
+    private final int basisPoints;
+
+    public PercentageDiscount(double percentage) {
+        if (percentage < 0 || percentage > 100) {
+            throw new IllegalArgumentException("Discount percentage must be between 0 and 100");
+        }
+        this.basisPoints = (int) Math.round(percentage * 100);
+    }
+
+    // Hundredths of a percent, e.g. 1250 for 12.5%
+    public int getBasisPoints() {
+        return basisPoints;
+    }
+
+    @Override
+    public Money applyDiscount(Money subtotal) {
+        return subtotal.subtract(subtotal.percentage(basisPoints));
+    }
+}
@@ -0,0 +1,144 @@
+package domain.service.discount;
+
+import domain.model.Money;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One promotion rule, as configured. Rules do nothing by themselves; a set of
+ * active rules is compiled into a {@link PromotionPlan}, which is the
+ * discount applied to orders.
+ */
+public final class Promotion {
+    public enum Kind {
+        // Percentage off lines of a category or menu item, optionally only at certain times
+        LINE_PERCENTAGE,
+        // Fixed amount off for every complete set of the listed menu items
+        COMBO,
+        // Percentage off the rest of the order for the listed customers
+        CUSTOMER_PERCENTAGE
+    }
+
+    private final Kind kind;
+    private final String name;
+    // Lines only: null category and item means every line
+    private final String category;
+    private final String menuItemId;
+    private final int basisPoints;
+    // Lines only: null when the promotion runs all day
+    private final LocalTime from;
+    private final LocalTime to;
+    // Combos only
+    private final long amountCents;
+    // Menu item IDs of a combo, repeated for items needed more than once, or customer IDs
+    private final List<String> ids;
+
+    private Promotion(Kind kind, String name, String category, String menuItemId, int basisPoints,
+                      LocalTime from, LocalTime to, long amountCents, List<String> ids) {
+        this.kind = kind;
+        this.name = name;
+        this.category = category;
+        this.menuItemId = menuItemId;
+        this.basisPoints = basisPoints;
+        this.from = from;
+        this.to = to;
+        this.amountCents = amountCents;
+        this.ids = ids;
+    }
+
+    public static Promotion categoryPercentage(String name, String category, double percentage) {
+        return new Promotion(Kind.LINE_PERCENTAGE, name, category, null, basisPoints(percentage),
+                null, null, 0, Collections.emptyList());
+    }
+
+    public static Promotion itemPercentage(String name, String menuItemId, double percentage) {
+        return new Promotion(Kind.LINE_PERCENTAGE, name, null, menuItemId, basisPoints(percentage),
+                null, null, 0, Collections.emptyList());
+    }
+
+    // Orders placed from {@code from} up to {@code to}; the window may run past midnight
+    public static Promotion happyHour(String name, String category, double percentage,
+                                      LocalTime from, LocalTime to) {
+        if (from.equals(to)) {
+            throw new IllegalArgumentException("Happy hour must start and end at different times");
+        }
+        return new Promotion(Kind.LINE_PERCENTAGE, name, category, null, basisPoints(percentage),
+                from, to, 0, Collections.emptyList());
+    }
+
+    public static Promotion combo(String name, double amount, List<String> menuItemIds) {
+        if (amount < 0) {
+            throw new IllegalArgumentException("Discount amount cannot be negative");
+        }
+        if (menuItemIds.isEmpty()) {
+            throw new IllegalArgumentException("A combo needs at least one menu item");
+        }
+        return new Promotion(Kind.COMBO, name, null, null, 0, null, null, Money.of(amount).getCents(),
+                Collections.unmodifiableList(new ArrayList<>(menuItemIds)));
+    }
+
+    public static Promotion loyalty(String name, double percentage, Collection<String> customerIds) {
+        return new Promotion(Kind.CUSTOMER_PERCENTAGE, name, null, null, basisPoints(percentage),
+                null, null, 0, Collections.unmodifiableList(new ArrayList<>(customerIds)));
+    }
+
+    // Recreates a promotion read back from storage
+    public static Promotion restore(Kind kind, String name, String category, String menuItemId, int basisPoints,
+                                    LocalTime from, LocalTime to, long amountCents, List<String> ids) {
+        return new Promotion(kind, name, category, menuItemId, basisPoints, from, to, amountCents,
+                Collections.unmodifiableList(new ArrayList<>(ids)));
+    }
+
+    private static int basisPoints(double percentage) {
+        if (percentage < 0 || percentage > 100) {
+            throw new IllegalArgumentException("Discount percentage must be between 0 and 100");
+        }
+        return (int) Math.round(percentage * 100);
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public String getCategory() {
+        return category;
+    }
+
+    public String getMenuItemId() {
+        return menuItemId;
+    }
+
+    // Hundredths of a percent, e.g. 1250 for 12.5%
+    public int getBasisPoints() {
+        return basisPoints;
+    }
+
+    public LocalTime getFrom() {
+        return from;
+    }
+
+    public LocalTime getTo() {
+        return to;
+    }
+
+    public long getAmountCents() {
+        return amountCents;
+    }
+
+    public List<String> getIds() {
+        return ids;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
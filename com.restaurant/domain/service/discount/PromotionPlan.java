@@ -0,0 +1,300 @@
+package domain.service.discount;
+
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
+import domain.model.MenuItemSnapshot;
+import domain.model.Money;
+import domain.model.Order;
+import domain.model.OrderItem;
+import domain.model.RestaurantTime;
+
+import java.time.Instant;
+import java.time.LocalTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The active promotions compiled into one discount. Line rates are resolved
+ * ahead of time into arrays indexed by menu item ordinal, so an order is
+ * priced in a single pass over its lines with no rule matching per line.
+ * Items the catalog did not have at compile time, and lines whose ordinal
+ * belonged to another item then (e.g. from a menu rebuilt since), fall back
+ * to lookups by ID and category.
+ *
+ * Promotions stack as follows: each line gets the best percentage among the
+ * line promotions that apply to it, combo amounts come off next (each combo
+ * counted on its own), and customer percentages apply to what is left. The
+ * discount never exceeds the subtotal. Orders cache their totals until they change, so a plan is evaluated once
+ * per order revision.
+ */
+public final class PromotionPlan implements DiscountStrategy {
+    private final List<Promotion> promotions;
+    private final ZoneId zone;
+    private final RateTable allDay;
+    private final TimedRates[] timed;
+    private final Combo[] combos;
+    // The item each ordinal had at compile time; array entries only hold for lines of that item
+    private final MenuItemSnapshot[] compiledByOrdinal;
+    // Combo member slot per menu item ordinal, -1 for items in no combo
+    private final int[] slotByOrdinal;
+    private final Map<String, Integer> slotByItemId;
+    private final int slotCount;
+    private final Map<String, Integer> basisPointsByCustomer;
+
+    private PromotionPlan(List<Promotion> promotions, MenuCatalog catalog, ZoneId zone) {
+        this.promotions = Collections.unmodifiableList(new ArrayList<>(promotions));
+        this.zone = zone;
+
+        List<Promotion> allDayRules = new ArrayList<>();
+        Map<String, List<Promotion>> timedRules = new HashMap<>();
+        List<Promotion> comboRules = new ArrayList<>();
+        Map<String, Integer> customers = new HashMap<>();
+        for (Promotion promotion : promotions) {
+            switch (promotion.getKind()) {
+                case LINE_PERCENTAGE:
+                    if (promotion.getFrom() == null) {
+                        allDayRules.add(promotion);
+                    } else {
+                        // Promotions sharing a window are evaluated together
+                        String window = promotion.getFrom() + "-" + promotion.getTo();
+                        timedRules.computeIfAbsent(window, key -> new ArrayList<>()).add(promotion);
+                    }
+                    break;
+                case COMBO:
+                    comboRules.add(promotion);
+                    break;
+                case CUSTOMER_PERCENTAGE:
+                    for (String customerId : promotion.getIds()) {
+                        customers.merge(customerId, promotion.getBasisPoints(), Math::max);
+                    }
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown promotion kind: " + promotion.getKind());
+            }
+        }
+
+        if (timedRules.size() > Long.SIZE) {
+            throw new IllegalArgumentException("At most " + Long.SIZE + " distinct happy hour windows are supported");
+        }
+        compiledByOrdinal = new MenuItemSnapshot[catalog.getOrdinalCount()];
+        for (MenuItem menuItem : catalog.getItems()) {
+            catalog.getSnapshot(menuItem.getId()).ifPresent(item -> compiledByOrdinal[item.getOrdinal()] = item);
+        }
+        allDay = new RateTable(allDayRules, compiledByOrdinal);
+        timed = new TimedRates[timedRules.size()];
+        int t = 0;
+        for (List<Promotion> rules : timedRules.values()) {
+            Promotion first = rules.get(0);
+            timed[t++] = new TimedRates(first.getFrom(), first.getTo(), new RateTable(rules, compiledByOrdinal));
+        }
+
+        slotByItemId = new HashMap<>();
+        combos = new Combo[comboRules.size()];
+        for (int c = 0; c < combos.length; c++) {
+            Map<Integer, Integer> required = new HashMap<>();
+            for (String menuItemId : comboRules.get(c).getIds()) {
+                int slot = slotByItemId.computeIfAbsent(menuItemId, id -> slotByItemId.size());
+                required.merge(slot, 1, Integer::sum);
+            }
+            int[] slots = new int[required.size()];
+            int[] counts = new int[required.size()];
+            int i = 0;
+            for (Map.Entry<Integer, Integer> entry : required.entrySet()) {
+                slots[i] = entry.getKey();
+                counts[i++] = entry.getValue();
+            }
+            combos[c] = new Combo(slots, counts, comboRules.get(c).getAmountCents());
+        }
+        slotCount = slotByItemId.size();
+        slotByOrdinal = new int[compiledByOrdinal.length];
+        Arrays.fill(slotByOrdinal, -1);
+        slotByItemId.forEach((menuItemId, slot) ->
+                catalog.getSnapshot(menuItemId).ifPresent(item -> slotByOrdinal[item.getOrdinal()] = slot));
+
+        basisPointsByCustomer = customers;
+    }
+
+    // Compiled against the current catalog; items added later still work, just without the arrays
+    public static PromotionPlan compile(List<Promotion> promotions, MenuCatalog catalog) {
+        return compile(promotions, catalog, RestaurantTime.ZONE);
+    }
+
+    // Happy hours are matched against the order's creation time in the given zone
+    public static PromotionPlan compile(List<Promotion> promotions, MenuCatalog catalog, ZoneId zone) {
+        return new PromotionPlan(promotions, catalog, zone);
+    }
+
+    public List<Promotion> getPromotions() {
+        return promotions;
+    }
+
+    public ZoneId getZone() {
+        return zone;
+    }
+
+    // Line and customer promotions need the order; on a bare subtotal there is nothing to match
+    @Override
+    public Money applyDiscount(Money subtotal) {
+        return subtotal;
+    }
+
+    @Override
+    public long discountCents(Order order, List<OrderItem> lines, long subtotalCents) {
+        // Active windows as a bit set, at most one time-zone conversion per order
+        long activeWindows = 0;
+        if (timed.length > 0) {
+            LocalTime time = Instant.ofEpochMilli(order.getCreatedMillis()).atZone(zone).toLocalTime();
+            for (int t = 0; t < timed.length; t++) {
+                if (timed[t].contains(time)) {
+                    activeWindows |= 1L << t;
+                }
+            }
+        }
+        int[] quantities = slotCount == 0 ? null : new int[slotCount];
+
+        long discount = 0;
+        for (OrderItem line : lines) {
+            MenuItemSnapshot item = line.getItem();
+            int rate = allDay.rate(item);
+            for (long windows = activeWindows; windows != 0; windows &= windows - 1) {
+                rate = Math.max(rate, timed[Long.numberOfTrailingZeros(windows)].rates.rate(item));
+            }
+            if (rate > 0) {
+                discount += Money.percentageOfCents(line.getSubtotalCents(), rate);
+            }
+            if (quantities != null) {
+                int slot = slot(item);
+                if (slot >= 0) {
+                    quantities[slot] += line.getQuantity();
+                }
+            }
+        }
+
+        for (Combo combo : combos) {
+            discount += combo.completeSets(quantities) * combo.amountCents;
+        }
+        discount = Math.min(discount, subtotalCents);
+
+        Integer customerRate = basisPointsByCustomer.get(order.getCustomer().getId());
+        if (customerRate != null) {
+            discount += Money.percentageOfCents(subtotalCents - discount, customerRate);
+        }
+        return Math.min(discount, subtotalCents);
+    }
+
+    private int slot(MenuItemSnapshot item) {
+        int ordinal = item.getOrdinal();
+        if (compiledFor(item, compiledByOrdinal)) {
+            return slotByOrdinal[ordinal];
+        }
+        return slotByItemId.getOrDefault(item.getMenuItemId(), -1);
+    }
+
+    // Whether the line is of the item its ordinal had at compile time, in the same category
+    private static boolean compiledFor(MenuItemSnapshot item, MenuItemSnapshot[] compiledByOrdinal) {
+        int ordinal = item.getOrdinal();
+        if (ordinal < 0 || ordinal >= compiledByOrdinal.length) {
+            return false;
+        }
+        MenuItemSnapshot compiled = compiledByOrdinal[ordinal];
+        return compiled != null && compiled.getMenuItemId().equals(item.getMenuItemId())
+                && compiled.getCategory().equals(item.getCategory());
+    }
+
+    /**
+     * Best line rate per menu item. Known items are resolved into the array;
+     * other lines use the maps instead.
+     */
+    private static final class RateTable {
+        private final MenuItemSnapshot[] compiledByOrdinal;
+        private final int[] byOrdinal;
+        private final Map<String, Integer> byItemId = new HashMap<>();
+        private final Map<String, Integer> byCategory = new HashMap<>();
+        // Rules with neither category nor item cover every line
+        private int everyLine;
+
+        RateTable(List<Promotion> rules, MenuItemSnapshot[] compiledByOrdinal) {
+            this.compiledByOrdinal = compiledByOrdinal;
+            for (Promotion rule : rules) {
+                if (rule.getMenuItemId() != null) {
+                    byItemId.merge(rule.getMenuItemId(), rule.getBasisPoints(), Math::max);
+                } else if (rule.getCategory() != null) {
+                    byCategory.merge(rule.getCategory(), rule.getBasisPoints(), Math::max);
+                } else {
+                    everyLine = Math.max(everyLine, rule.getBasisPoints());
+                }
+            }
+            byOrdinal = new int[compiledByOrdinal.length];
+            for (int ordinal = 0; ordinal < byOrdinal.length; ordinal++) {
+                if (compiledByOrdinal[ordinal] != null) {
+                    byOrdinal[ordinal] = lookup(compiledByOrdinal[ordinal]);
+                }
+            }
+        }
+
+        int rate(MenuItemSnapshot item) {
+            if (compiledFor(item, compiledByOrdinal)) {
+                return byOrdinal[item.getOrdinal()];
+            }
+            return lookup(item);
+        }
+
+        private int lookup(MenuItemSnapshot item) {
+            int rate = everyLine;
+            Integer itemRate = byItemId.get(item.getMenuItemId());
+            if (itemRate != null) {
+                rate = Math.max(rate, itemRate);
+            }
+            Integer categoryRate = byCategory.get(item.getCategory());
+            if (categoryRate != null) {
+                rate = Math.max(rate, categoryRate);
+            }
+            return rate;
+        }
+    }
+
+    private static final class TimedRates {
+        private final LocalTime from;
+        private final LocalTime to;
+        private final RateTable rates;
+
+        TimedRates(LocalTime from, LocalTime to, RateTable rates) {
+            this.from = from;
+            this.to = to;
+            this.rates = rates;
+        }
+
+        boolean contains(LocalTime time) {
+            if (from.isBefore(to)) {
+                return !time.isBefore(from) && time.isBefore(to);
+            }
+            // Runs past midnight
+            return !time.isBefore(from) || time.isBefore(to);
+        }
+    }
+
+    private static final class Combo {
+        private final int[] slots;
+        private final int[] required;
+        private final long amountCents;
+
+        Combo(int[] slots, int[] required, long amountCents) {
+            this.slots = slots;
+            this.required = required;
+            this.amountCents = amountCents;
+        }
+
+        long completeSets(int[] quantities) {
+            long sets = Long.MAX_VALUE;
+            for (int i = 0; i < slots.length; i++) {
+                sets = Math.min(sets, quantities[slots[i]] / required[i]);
+            }
+            return sets;
+        }
+    }
+}
@@ -3,10 +3,15 @@ package domain.state;
 import domain.model.Order;
 
 public class DeliveredState implements OrderState {
+    public static final DeliveredState INSTANCE = new DeliveredState();
+
+    private DeliveredState() {
+    }
+
     @Override
-    public void nextState(Order order) {
+    public boolean nextState(Order order) {
         // Terminal state, no next state
-        System.out.println("Order is already delivered. No further state transitions.");
+        return false;
     }
 
     @Override
@@ -2,7 +2,13 @@ package domain.state;
 
 import domain.model.Order;
 
+/**
+ * Implementations are stateless singletons, so an order's state can be
+ * compared by identity and swapped with a compare-and-set.
+ */
 public interface OrderState {
-    void nextState(Order order);
+    // Returns false if the order did not move, either because this state is
+    // terminal or because another thread advanced the order first
+    boolean nextState(Order order);
     String getStateName();
 }
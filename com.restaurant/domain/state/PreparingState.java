@@ -3,9 +3,14 @@ package domain.state;
 import domain.model.Order;
 
 public class PreparingState implements OrderState {
+    public static final PreparingState INSTANCE = new PreparingState();
+
+    private PreparingState() {
+    }
+
     @Override
-    public void nextState(Order order) {
-        order.setState(new ReadyState());
+    public boolean nextState(Order order) {
+        return order.compareAndSetState(this, ReadyState.INSTANCE);
     }
 
     @Override
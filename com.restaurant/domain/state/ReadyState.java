@@ -3,9 +3,14 @@ package domain.state;
 import domain.model.Order;
 
 public class ReadyState implements OrderState {
+    public static final ReadyState INSTANCE = new ReadyState();
+
+    private ReadyState() {
+    }
+
     @Override
-    public void nextState(Order order) {
-        order.setState(new DeliveredState());
+    public boolean nextState(Order order) {
+        return order.compareAndSetState(this, DeliveredState.INSTANCE);
     }
 
     @Override
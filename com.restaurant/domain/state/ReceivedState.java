@@ -3,9 +3,14 @@ package domain.state;
 import domain.model.Order;
 
 public class ReceivedState implements OrderState {
+    public static final ReceivedState INSTANCE = new ReceivedState();
+
+    private ReceivedState() {
+    }
+
     @Override
-    public void nextState(Order order) {
-        order.setState(new PreparingState());
+    public boolean nextState(Order order) {
+        return order.compareAndSetState(this, PreparingState.INSTANCE);
     }
 
     @Override
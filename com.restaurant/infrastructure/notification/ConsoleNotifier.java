@@ -0,0 +1,22 @@
+package infrastructure.notification;
+
+import domain.model.Order;
+import domain.observer.OrderObserver;
+import domain.state.OrderState;
+
+public class ConsoleNotifier implements OrderObserver {
+    @Override
+    public void update(Order order) {
+        print(order, order.getStatus());
+    }
+
+    @Override
+    public void stateChanged(Order order, OrderState newState) {
+        print(order, newState.getStateName());
+    }
+
+    private void print(Order order, String status) {
+        System.out.println("[NOTIFICATION] Order #" + order.getId().substring(0, 8)
+                + " is now " + status);
+    }
+}
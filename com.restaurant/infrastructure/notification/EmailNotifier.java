@@ -0,0 +1,34 @@
+package infrastructure.notification;
+
+import domain.model.Order;
+import domain.observer.OrderObserver;
+import domain.state.OrderState;
+
+public class EmailNotifier implements OrderObserver {
+    private final EmailSink sink;
+
+    public EmailNotifier() {
+        this((recipient, subject, body) ->
+                System.out.println("[EMAIL] To: " + recipient + " | " + subject + " | " + body));
+    }
+
+    public EmailNotifier(EmailSink sink) {
+        this.sink = sink;
+    }
+
+    @Override
+    public void update(Order order) {
+        send(order, order.getStatus());
+    }
+
+    @Override
+    public void stateChanged(Order order, OrderState newState) {
+        send(order, newState.getStateName());
+    }
+
+    private void send(Order order, String status) {
+        String shortId = order.getId().substring(0, 8);
+        sink.send(order.getCustomer().getName(), "Order #" + shortId + " update",
+                "Your order #" + shortId + " is now " + status + ".");
+    }
+}
@@ -0,0 +1,6 @@
+package infrastructure.notification;
+
+// Where EmailNotifier hands off messages; swap in a fake to test without a mail server
+public interface EmailSink {
+    void send(String recipient, String subject, String body);
+}
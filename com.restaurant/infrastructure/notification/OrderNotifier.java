@@ -1,5 +1,335 @@
 package infrastructure.notification;
 
-public class OrderNotifier {
+import domain.model.Order;
+import domain.observer.OrderObserver;
+import domain.observer.OrderStateChange;
+import domain.state.OrderState;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Delivers order state changes and new orders to subscribed observers off
+ * the caller's thread. Each subscriber gets its own bounded queue and worker,
+ * so a slow observer (e.g. email) neither delays the state change nor the
+ * other observers. Workers drain up to {@code batchSize} events per wake-up
+ * and hand the state changes among them to the observer as one batch.
+ *
+ * Observers are called under the order's monitor, so by default a full queue
+ * drops its oldest event rather than wait; the waiting policies hold up the
+ * transition, and anyone else working on that order, until there is room.
+ */
+public class OrderNotifier implements OrderObserver {
+    public enum BackpressurePolicy {
+        // The notifying thread waits for room in the queue
+        BLOCK,
+        // The oldest queued event is discarded to make room
+        DROP_OLDEST,
+        // A queued event for the same order is updated to the newer state instead of
+        // queueing another one; intermediate states may be skipped. Waits when full.
+        COALESCE_BY_ORDER
+    }
+
+    private final int queueCapacity;
+    private final int batchSize;
+    private final BackpressurePolicy policy;
+    private final List<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    // Guarded by this notifier; each subscriber also has its own closed flag
+    private boolean running = true;
+
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder totalLatencyNanos = new LongAdder();
+    private final AtomicLong maxLatencyNanos = new AtomicLong();
+
+    public OrderNotifier() {
+        this(1024, 64, BackpressurePolicy.DROP_OLDEST);
+    }
+
+    public OrderNotifier(int queueCapacity, int batchSize, BackpressurePolicy policy) {
+        if (queueCapacity <= 0 || batchSize <= 0) {
+            throw new IllegalArgumentException("Queue capacity and batch size must be greater than zero");
+        }
+        this.queueCapacity = queueCapacity;
+        this.batchSize = batchSize;
+        this.policy = policy;
+    }
+
+    public synchronized void subscribe(OrderObserver observer) {
+        if (!running) {
+            throw new IllegalStateException("Notifier has been shut down");
+        }
+        Subscriber subscriber = new Subscriber(observer);
+        subscribers.add(subscriber);
+        subscriber.worker.start();
+    }
+
+    @Override
+    public void update(Order order) {
+        stateChanged(order, order.getState());
+    }
+
+    @Override
+    public void stateChanged(Order order, OrderState newState) {
+        publish(order, newState, null);
+    }
+
+    @Override
+    public void ordersReceived(List<Order> orders) {
+        publish(null, null, orders);
+    }
+
+    private void publish(Order order, OrderState newState, List<Order> received) {
+        for (Subscriber subscriber : subscribers) {
+            Event event = new Event(order, newState, received, System.nanoTime());
+            if (!subscriber.enqueue(event)) {
+                // The worker has stopped taking events, deliver on the caller's thread rather than lose it
+                subscriber.deliver(List.of(event));
+            }
+        }
+    }
+
+    /**
+     * Stops accepting queued events, lets the workers drain what is already
+     * queued and waits up to the given time for them to finish. Events
+     * published afterwards are delivered on the publishing thread.
+     */
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        synchronized (this) {
+            running = false;
+        }
+        for (Subscriber subscriber : subscribers) {
+            subscriber.close();
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (Subscriber subscriber : subscribers) {
+            long remainingMillis = TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime());
+            subscriber.worker.join(Math.max(1, remainingMillis));
+        }
+    }
+
+    // ===== METRICS =====
+    public int getQueueDepth() {
+        int depth = 0;
+        for (Subscriber subscriber : subscribers) {
+            depth += subscriber.size();
+        }
+        return depth;
+    }
+
+    public long getEnqueuedCount() {
+        return enqueued.sum();
+    }
+
+    public long getDeliveredCount() {
+        return delivered.sum();
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getCoalescedCount() {
+        return coalesced.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    // Time from the state change to the observer being called
+    public double getAverageDeliveryLatencyMillis() {
+        long count = delivered.sum() + failed.sum();
+        return count == 0 ? 0 : totalLatencyNanos.sum() / (double) count / 1_000_000;
+    }
+
+    public double getMaxDeliveryLatencyMillis() {
+        return maxLatencyNanos.get() / 1_000_000.0;
+    }
+
+    // A state change, or new orders when received is set
+    private static final class Event {
+        final Order order;
+        final List<Order> received;
+        final long enqueuedNanos;
+        // Guarded by the subscriber lock while queued, may be advanced by coalescing
+        OrderState newState;
+
+        Event(Order order, OrderState newState, List<Order> received, long enqueuedNanos) {
+            this.order = order;
+            this.newState = newState;
+            this.received = received;
+            this.enqueuedNanos = enqueuedNanos;
+        }
+    }
+
+    private final class Subscriber {
+        private final OrderObserver observer;
+        private final ArrayDeque<Event> queue = new ArrayDeque<>();
+        // Queued event per order, only used when coalescing
+        private final Map<String, Event> pendingByOrder = new HashMap<>();
+        private final ReentrantLock lock = new ReentrantLock();
+        private final Condition notEmpty = lock.newCondition();
+        private final Condition notFull = lock.newCondition();
+        private final Thread worker;
+        // Set under the lock, so no event is queued after the worker has seen it and the queue empty
+        private boolean closed;
+
+        Subscriber(OrderObserver observer) {
+            this.observer = observer;
+            this.worker = new Thread(this::run, "order-notifier-" + observer.getClass().getSimpleName());
+            this.worker.setDaemon(true);
+        }
+
+        // Returns false once the subscriber is closed; the caller then delivers the event itself
+        boolean enqueue(Event event) {
+            lock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                if (policy == BackpressurePolicy.COALESCE_BY_ORDER && event.received == null) {
+                    Event pending = pendingByOrder.get(event.order.getId());
+                    if (pending != null) {
+                        pending.newState = event.newState;
+                        coalesced.increment();
+                        return true;
+                    }
+                }
+                while (queue.size() >= queueCapacity) {
+                    if (policy == BackpressurePolicy.DROP_OLDEST) {
+                        forget(queue.pollFirst());
+                        dropped.increment();
+                        break;
+                    }
+                    notFull.await();
+                    if (closed) {
+                        // The worker may already be gone; only the caller can still deliver this
+                        return false;
+                    }
+                }
+                queue.addLast(event);
+                if (policy == BackpressurePolicy.COALESCE_BY_ORDER && event.received == null) {
+                    pendingByOrder.put(event.order.getId(), event);
+                }
+                enqueued.increment();
+                notEmpty.signal();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                dropped.increment();
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void run() {
+            List<Event> batch = new ArrayList<>(batchSize);
+            while (true) {
+                lock.lock();
+                try {
+                    while (queue.isEmpty() && !closed) {
+                        notEmpty.await();
+                    }
+                    if (queue.isEmpty()) {
+                        return;
+                    }
+                    while (batch.size() < batchSize && !queue.isEmpty()) {
+                        Event event = queue.pollFirst();
+                        forget(event);
+                        batch.add(event);
+                    }
+                    notFull.signalAll();
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+                deliver(batch);
+                batch.clear();
+            }
+        }
+
+        // Consecutive state changes go to the observer as one batch, new orders in between on their own
+        void deliver(List<Event> events) {
+            int from = 0;
+            while (from < events.size()) {
+                Event first = events.get(from);
+                if (first.received != null) {
+                    deliver(events, from, from + 1, () -> observer.ordersReceived(first.received));
+                    from++;
+                    continue;
+                }
+                int to = from;
+                List<OrderStateChange> changes = new ArrayList<>();
+                while (to < events.size() && events.get(to).received == null) {
+                    changes.add(new OrderStateChange(events.get(to).order, events.get(to).newState));
+                    to++;
+                }
+                deliver(events, from, to, () -> observer.stateChanged(changes));
+                from = to;
+            }
+        }
+
+        private void deliver(List<Event> events, int from, int to, Runnable call) {
+            boolean succeeded;
+            try {
+                call.run();
+                succeeded = true;
+            } catch (RuntimeException e) {
+                // One failing delivery must not stop the worker; the whole batch counts as failed
+                succeeded = false;
+            }
+            long now = System.nanoTime();
+            for (int i = from; i < to; i++) {
+                if (succeeded) {
+                    delivered.increment();
+                } else {
+                    failed.increment();
+                }
+                long latency = now - events.get(i).enqueuedNanos;
+                totalLatencyNanos.add(latency);
+                maxLatencyNanos.accumulateAndGet(latency, Math::max);
+            }
+        }
+
+        private void forget(Event event) {
+            if (policy == BackpressurePolicy.COALESCE_BY_ORDER && event.received == null) {
+                pendingByOrder.remove(event.order.getId());
+            }
+        }
+
+        int size() {
+            lock.lock();
+            try {
+                return queue.size();
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void close() {
+            lock.lock();
+            try {
+                closed = true;
+                notEmpty.signalAll();
+                notFull.signalAll();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
 }
@@ -0,0 +1,96 @@
+package infrastructure.persistence;
+
+import domain.model.Customer;
+import domain.repository.CustomerRepository;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class InMemoryCustomerRepository implements CustomerRepository {
+    private final Map<String, Customer> customers = new ConcurrentHashMap<>();
+    private final ShortIdIndex<Customer> idIndex = new ShortIdIndex<>();
+    private final PhoneIndex phoneIndex = new PhoneIndex();
+    // Normalized number each customer was last indexed under, since setPhone can change it at any time
+    private final Map<String, String> indexedPhone = new ConcurrentHashMap<>();
+
+    @Override
+    public void save(Customer customer) {
+        customers.compute(customer.getId(), (id, existing) -> {
+            idIndex.put(id, customer);
+            String number = phoneIndex.normalize(customer.getPhone());
+            String previousNumber = indexedPhone.put(id, number);
+            if (existing != null && existing != customer) {
+                phoneIndex.remove(existing, previousNumber);
+                phoneIndex.add(customer, number);
+            } else if (!number.equals(previousNumber)) {
+                if (previousNumber != null) {
+                    phoneIndex.remove(customer, previousNumber);
+                }
+                phoneIndex.add(customer, number);
+            }
+            return customer;
+        });
+    }
+
+    @Override
+    public Optional<Customer> findById(String id) {
+        Customer customer = customers.get(id);
+        return customer != null ? Optional.of(customer) : idIndex.findByPrefix(id);
+    }
+
+    @Override
+    public List<Customer> findAll() {
+        return new ArrayList<>(customers.values());
+    }
+
+    @Override
+    public Optional<Customer> findByPhone(String phone) {
+        return phoneIndex.find(phone);
+    }
+
+    @Override
+    public List<Customer> findByPhoneSuffix(String lastDigits, int limit) {
+        return phoneIndex.findBySuffix(lastDigits, limit);
+    }
+
+    @Override
+    public void delete(String id) {
+        customers.computeIfPresent(id, (key, customer) -> {
+            idIndex.remove(key);
+            String number = indexedPhone.remove(key);
+            if (number != null) {
+                phoneIndex.remove(customer, number);
+            }
+            return null;
+        });
+    }
+
+    // Each customer is read as it is at that moment; writers are not stopped
+    public void saveSnapshot(Path file) {
+        List<Customer> snapshot = findAll();
+        SnapshotFiles.write(file, out -> {
+            out.writeInt(snapshot.size());
+            for (Customer customer : snapshot) {
+                out.writeLong(customer.getNumericId());
+                out.writeString(customer.getName());
+                out.writeString(customer.getAddress());
+                out.writeString(customer.getPhone());
+            }
+        });
+    }
+
+    // Adds the saved customers; returns false if there is no snapshot yet
+    public boolean loadSnapshot(Path file) {
+        return SnapshotFiles.read(file, in -> {
+            for (int count = in.getInt(); count > 0; count--) {
+                long numericId = in.getLong();
+                save(new Customer(numericId, SnapshotFiles.readString(in),
+                        SnapshotFiles.readString(in), SnapshotFiles.readString(in)));
+            }
+        });
+    }
+}
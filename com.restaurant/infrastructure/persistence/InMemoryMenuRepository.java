@@ -1,5 +1,234 @@
 package infrastructure.persistence;
 
-public class InMemoryMenuRepository {
+import domain.model.Appetizer;
+import domain.model.Beverage;
+import domain.model.Dessert;
+import domain.model.MainDish;
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
+import domain.model.MenuItemSnapshot;
+import domain.model.Money;
+import domain.repository.MenuRepository;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Publishes the menu as immutable catalog snapshots. Writers build the next
+ * catalog under a lock and swap it in; readers just read the volatile field.
+ * Any change to a listed price, from a repricing or from saving an edited
+ * item, also records the catalog it replaced in the same locked step, so
+ * orders opened before it keep their prices (see {@link #catalogFor}).
+ */
+public class InMemoryMenuRepository implements MenuRepository {
+    private static final byte MAIN_DISH = 1;
+    private static final byte APPETIZER = 2;
+    private static final byte BEVERAGE = 3;
+    private static final byte DESSERT = 4;
+    private static final int DEFAULT_RETAINED_PRICE_CHANGES = 16;
+
+    private volatile MenuCatalog catalog = MenuCatalog.EMPTY;
+    private final Object writeLock = new Object();
+    private final int retainedPriceChanges;
+    // Catalog each price change replaced, keyed by the version it published
+    private final ConcurrentSkipListMap<Long, MenuCatalog> replaced = new ConcurrentSkipListMap<>();
+
+    public InMemoryMenuRepository() {
+        this(DEFAULT_RETAINED_PRICE_CHANGES);
+    }
+
+    public InMemoryMenuRepository(int retainedPriceChanges) {
+        if (retainedPriceChanges < 1) {
+            throw new IllegalArgumentException("At least one price change must be retained");
+        }
+        this.retainedPriceChanges = retainedPriceChanges;
+    }
+
+    @Override
+    public void save(MenuItem menuItem) {
+        synchronized (writeLock) {
+            MenuCatalog previous = catalog;
+            MenuCatalog updated = previous.with(menuItem);
+            Optional<MenuItemSnapshot> before = previous.getSnapshot(menuItem.getId());
+            if (before.isPresent()
+                    && before.get().getPriceCents() != updated.getSnapshot(menuItem.getId()).get().getPriceCents()) {
+                publishPriceChange(previous, updated);
+            } else {
+                catalog = updated;
+            }
+        }
+    }
+
+    @Override
+    public Optional<MenuItem> findById(String id) {
+        return catalog.findById(id);
+    }
+
+    @Override
+    public List<MenuItem> findAll() {
+        return catalog.getItems();
+    }
+
+    @Override
+    public MenuCatalog getCatalog() {
+        return catalog;
+    }
+
+    @Override
+    public void delete(String id) {
+        synchronized (writeLock) {
+            catalog = catalog.without(id);
+        }
+    }
+
+    @Override
+    public boolean replace(MenuCatalog expected, MenuCatalog updated) {
+        synchronized (writeLock) {
+            if (catalog != expected) {
+                return false;
+            }
+            publishPriceChange(expected, updated);
+            return true;
+        }
+    }
+
+    // Call under the write lock
+    private void publishPriceChange(MenuCatalog previous, MenuCatalog updated) {
+        // Recorded before the swap, so whoever sees the new catalog also finds the one it replaced
+        replaced.put(updated.getVersion(), previous);
+        while (replaced.size() > retainedPriceChanges) {
+            replaced.pollFirstEntry();
+        }
+        catalog = updated;
+    }
+
+    @Override
+    public MenuCatalog catalogFor(long catalogVersion) {
+        // Current catalog first: a price change that lands in between is then found in the history
+        MenuCatalog current = catalog;
+        Map.Entry<Long, MenuCatalog> priceChange = replaced.higherEntry(catalogVersion);
+        return priceChange != null ? priceChange.getValue() : current;
+    }
+
+    /**
+     * Saves the catalog with its version, every ordinal handed out and each
+     * item's price snapshot, so a restart resumes the same numbering the
+     * order log refers to. Catalogs are immutable, so this needs no lock.
+     */
+    public void saveSnapshot(Path file) {
+        MenuCatalog saved = catalog;
+        List<MenuItem> items = saved.getItems();
+        Map<String, Integer> ordinals = saved.getOrdinalsById();
+        SnapshotFiles.write(file, out -> {
+            out.writeLong(saved.getVersion());
+            out.writeInt(ordinals.size());
+            for (Map.Entry<String, Integer> entry : ordinals.entrySet()) {
+                out.writeString(entry.getKey());
+                out.writeInt(entry.getValue());
+            }
+            out.writeInt(items.size());
+            for (MenuItem item : items) {
+                MenuItemSnapshot snapshot = saved.getSnapshot(item.getId()).get();
+                writeItem(out, item);
+                out.writeLong(snapshot.getPriceCents());
+                out.writeLong(snapshot.getCatalogVersion());
+            }
+        });
+    }
+
+    // Replaces the menu with the saved one; returns false if there is no snapshot yet
+    public boolean loadSnapshot(Path file) {
+        return SnapshotFiles.read(file, in -> {
+            long version = in.getLong();
+            Map<String, Integer> ordinals = new HashMap<>();
+            for (int count = in.getInt(); count > 0; count--) {
+                ordinals.put(SnapshotFiles.readString(in), in.getInt());
+            }
+            int count = in.getInt();
+            List<MenuItem> items = new ArrayList<>(count);
+            List<MenuItemSnapshot> snapshots = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                MenuItem item = readItem(in);
+                Integer ordinal = ordinals.get(item.getId());
+                if (ordinal == null) {
+                    throw new IOException("No ordinal saved for menu item " + item.getId());
+                }
+                items.add(item);
+                snapshots.add(MenuItemSnapshot.restore(ordinal, item.getId(), item.getName(),
+                        item.getCategory(), in.getLong(), in.getLong()));
+            }
+            MenuCatalog loaded;
+            try {
+                loaded = MenuCatalog.restore(version, items, snapshots, ordinals);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Inconsistent menu snapshot", e);
+            }
+            synchronized (writeLock) {
+                // Repricings of the menu being replaced say nothing about the loaded one
+                replaced.clear();
+                catalog = loaded;
+            }
+        });
+    }
+
+    private static void writeItem(SnapshotFiles.Output out, MenuItem item) throws IOException {
+        byte type;
+        boolean flag;
+        if (item instanceof MainDish) {
+            type = MAIN_DISH;
+            flag = ((MainDish) item).isSpicy();
+        } else if (item instanceof Appetizer) {
+            type = APPETIZER;
+            flag = ((Appetizer) item).isVegetarian();
+        } else if (item instanceof Beverage) {
+            type = BEVERAGE;
+            flag = ((Beverage) item).isAlcoholic();
+        } else if (item instanceof Dessert) {
+            type = DESSERT;
+            flag = ((Dessert) item).hasNuts();
+        } else {
+            throw new IllegalStateException("Menu item type cannot be saved: " + item.getClass().getSimpleName());
+        }
+        out.writeByte(type);
+        out.writeBoolean(flag);
+        out.writeString(item.getId());
+        out.writeString(item.getName());
+        out.writeLong(item.getPrice().getCents());
+        out.writeString(item.getDescription());
+    }
+
+    private static MenuItem readItem(ByteBuffer in) throws IOException {
+        byte type = in.get();
+        boolean flag = in.get() != 0;
+        String id = SnapshotFiles.readString(in);
+        String name = SnapshotFiles.readString(in);
+        Money price = Money.ofCents(in.getLong());
+        String description = SnapshotFiles.readString(in);
+        MenuItem item;
+        switch (type) {
+            case MAIN_DISH:
+                item = new MainDish(name, price, description, flag);
+                break;
+            case APPETIZER:
+                item = new Appetizer(name, price, description, flag);
+                break;
+            case BEVERAGE:
+                item = new Beverage(name, price, description, flag);
+                break;
+            case DESSERT:
+                item = new Dessert(name, price, description, flag);
+                break;
+            default:
+                throw new IOException("Unknown menu item type " + type);
+        }
+        item.setId(id);
+        return item;
+    }
 }
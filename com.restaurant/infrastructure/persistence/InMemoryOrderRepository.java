@@ -1,5 +1,195 @@
 package infrastructure.persistence;
 
-public class InMemoryOrderRepository {
+import domain.model.Order;
+import domain.model.RestaurantTime;
+import domain.repository.OrderRepository;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Thread-safe order store with secondary indexes by creation day, customer
+ * and status, so that those lookups only touch the matching orders. Days are
+ * sorted buckets keyed by the order's epoch day, so a day is read or dropped
+ * as a whole.
+ */
+public class InMemoryOrderRepository implements OrderRepository {
+    private final Map<String, Order> orders = new ConcurrentHashMap<>();
+    private final ConcurrentNavigableMap<Integer, Set<Order>> ordersByDay = new ConcurrentSkipListMap<>();
+    private final Map<String, Set<Order>> ordersByCustomer = new ConcurrentHashMap<>();
+    private final Map<String, Set<Order>> ordersByStatus = new ConcurrentHashMap<>();
+    // Status each order was last indexed under, so a re-save can move it
+    private final Map<String, String> indexedStatus = new ConcurrentHashMap<>();
+    private final ShortIdIndex<Order> idIndex = new ShortIdIndex<>();
+
+    @Override
+    public void save(Order order) {
+        // compute() locks the order's bin, so saves of the same order are serialized
+        orders.compute(order.getId(), (id, existing) -> {
+            if (existing == null) {
+                idIndex.put(id, order);
+                addToIndex(ordersByDay, order.getEpochDay(), order);
+                addToIndex(ordersByCustomer, order.getCustomer().getId(), order);
+            }
+            String status = order.getStatus();
+            String previousStatus = indexedStatus.put(id, status);
+            if (!status.equals(previousStatus)) {
+                if (previousStatus != null) {
+                    removeFromIndex(ordersByStatus, previousStatus, order);
+                }
+                addToIndex(ordersByStatus, status, order);
+            }
+            return order;
+        });
+    }
+
+    // New orders are indexed in one pass, with one bucket update per day, customer and status
+    @Override
+    public void saveAll(Collection<Order> batch) {
+        Map<String, Order> added = new LinkedHashMap<>(batch.size() * 4 / 3 + 1);
+        Map<String, String> statuses = new HashMap<>(batch.size() * 4 / 3 + 1);
+        Map<Integer, List<Order>> byDay = new HashMap<>();
+        Map<String, List<Order>> byCustomer = new HashMap<>();
+        Map<String, List<Order>> byStatus = new HashMap<>();
+        for (Order order : batch) {
+            if (orders.containsKey(order.getId())) {
+                save(order);
+                continue;
+            }
+            added.put(order.getId(), order);
+            byDay.computeIfAbsent(order.getEpochDay(), key -> new ArrayList<>()).add(order);
+            byCustomer.computeIfAbsent(order.getCustomer().getId(), key -> new ArrayList<>()).add(order);
+            String status = order.getStatus();
+            byStatus.computeIfAbsent(status, key -> new ArrayList<>()).add(order);
+            statuses.put(order.getId(), status);
+        }
+        // Bulk puts size the concurrent maps once instead of growing them order by order
+        indexedStatus.putAll(statuses);
+        idIndex.putAll(added);
+        byDay.forEach((day, group) -> addAllToIndex(ordersByDay, day, group));
+        byCustomer.forEach((customerId, group) -> addAllToIndex(ordersByCustomer, customerId, group));
+        byStatus.forEach((status, group) -> addAllToIndex(ordersByStatus, status, group));
+        orders.putAll(added);
+    }
+
+    @Override
+    public Optional<Order> findById(String id) {
+        Order order = orders.get(id);
+        // Fall back to the short IDs the console shows
+        return order != null ? Optional.of(order) : idIndex.findByPrefix(id);
+    }
+
+    @Override
+    public List<Order> findAll() {
+        return new ArrayList<>(orders.values());
+    }
+
+    @Override
+    public List<Order> findByDay(LocalDate day) {
+        return lookup(ordersByDay, RestaurantTime.epochDay(day));
+    }
+
+    @Override
+    public List<LocalDate> findDaysBefore(LocalDate day) {
+        List<LocalDate> days = new ArrayList<>();
+        for (int epochDay : ordersByDay.headMap(RestaurantTime.epochDay(day)).keySet()) {
+            days.add(RestaurantTime.toLocalDate(epochDay));
+        }
+        return days;
+    }
+
+    @Override
+    public List<Order> findByCustomerId(String customerId) {
+        return lookup(ordersByCustomer, customerId);
+    }
+
+    @Override
+    public List<Order> findByStatus(String status) {
+        return lookup(ordersByStatus, status);
+    }
+
+    @Override
+    public void delete(String id) {
+        orders.computeIfPresent(id, (key, order) -> {
+            removeFromIndex(ordersByDay, order.getEpochDay(), order);
+            unindex(key, order);
+            return null;
+        });
+    }
+
+    // The bucket is unlinked first, so each order only leaves the other indexes
+    @Override
+    public int deleteByDay(LocalDate day) {
+        Set<Order> bucket = ordersByDay.remove(RestaurantTime.epochDay(day));
+        if (bucket == null) {
+            return 0;
+        }
+        int deleted = 0;
+        for (Order order : bucket) {
+            boolean[] removed = new boolean[1];
+            orders.computeIfPresent(order.getId(), (key, existing) -> {
+                if (existing != order) {
+                    return existing;
+                }
+                unindex(key, order);
+                removed[0] = true;
+                return null;
+            });
+            if (removed[0]) {
+                deleted++;
+            }
+        }
+        return deleted;
+    }
+
+    // Every index but the days; called while the order's entry is locked
+    private void unindex(String id, Order order) {
+        idIndex.remove(id);
+        removeFromIndex(ordersByCustomer, order.getCustomer().getId(), order);
+        String status = indexedStatus.remove(id);
+        if (status != null) {
+            removeFromIndex(ordersByStatus, status, order);
+        }
+    }
+
+    private static <K> void addToIndex(Map<K, Set<Order>> index, K key, Order order) {
+        // Add inside compute() so a concurrent removal cannot drop the bucket in between
+        index.compute(key, (k, bucket) -> {
+            Set<Order> target = bucket != null ? bucket : ConcurrentHashMap.newKeySet();
+            target.add(order);
+            return target;
+        });
+    }
+
+    private static <K> void addAllToIndex(Map<K, Set<Order>> index, K key, List<Order> group) {
+        index.compute(key, (k, bucket) -> {
+            // Sized up front so a large batch does not grow a new bucket step by step
+            Set<Order> target = bucket != null ? bucket : ConcurrentHashMap.newKeySet(group.size());
+            target.addAll(group);
+            return target;
+        });
+    }
+
+    private static <K> void removeFromIndex(Map<K, Set<Order>> index, K key, Order order) {
+        index.computeIfPresent(key, (k, bucket) -> {
+            bucket.remove(order);
+            return bucket.isEmpty() ? null : bucket;
+        });
+    }
+
+    private static <K> List<Order> lookup(Map<K, Set<Order>> index, K key) {
+        Set<Order> bucket = index.get(key);
+        return bucket == null ? Collections.emptyList() : new ArrayList<>(bucket);
+    }
 }
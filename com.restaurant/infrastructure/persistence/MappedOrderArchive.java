@@ -0,0 +1,460 @@
+package infrastructure.persistence;
+
+import domain.model.MenuItemSnapshot;
+import domain.model.Order;
+import domain.model.OrderItem;
+import domain.repository.DeliveredOrderArchive;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Stream;
+
+/**
+ * Delivered orders in memory-mapped files outside the Java heap. Rows go into
+ * fixed-size blocks ({@code archive-000001.blk}, ...) of {@value #BLOCK_ROWS}
+ * rows, each laid out column by column (day, order, customer, item, quantity,
+ * unit price, discount, tax), so a scan reads only packed primitives. Every
+ * block records the range of days it holds and is skipped when a scan falls
+ * outside it. Item names and customer IDs live in small dictionary files.
+ *
+ * A block that fills up is sealed: a sorted copy of its order column is
+ * written after the other columns, so checking whether an order is already
+ * archived is a binary search in the few blocks whose order range covers it,
+ * plus a lookup in the open block's in-memory set.
+ *
+ * {@link #flush()} makes everything appended so far durable; call it before
+ * checkpointing the order journal, which then forgets those orders.
+ */
+public class MappedOrderArchive implements DeliveredOrderArchive, Closeable {
+    static final int BLOCK_ROWS = 16 * 1024;
+    private static final int MAGIC = 0x4f524331;
+    // magic, row count, min day, max day, sealed flag, min and max order; padded for alignment
+    private static final int HEADER_BYTES = 64;
+    private static final int ROW_COUNT_OFFSET = 4;
+    private static final int MIN_DAY_OFFSET = 8;
+    private static final int MAX_DAY_OFFSET = 12;
+    private static final int SEALED_OFFSET = 16;
+    private static final int MIN_ORDER_OFFSET = 24;
+    private static final int MAX_ORDER_OFFSET = 32;
+
+    private static final int DAY_COLUMN = HEADER_BYTES;
+    private static final int ORDER_COLUMN = DAY_COLUMN + 4 * BLOCK_ROWS;
+    private static final int CUSTOMER_COLUMN = ORDER_COLUMN + 8 * BLOCK_ROWS;
+    private static final int ITEM_COLUMN = CUSTOMER_COLUMN + 4 * BLOCK_ROWS;
+    private static final int QUANTITY_COLUMN = ITEM_COLUMN + 4 * BLOCK_ROWS;
+    private static final int PRICE_COLUMN = QUANTITY_COLUMN + 4 * BLOCK_ROWS;
+    private static final int DISCOUNT_COLUMN = PRICE_COLUMN + 8 * BLOCK_ROWS;
+    private static final int TAX_COLUMN = DISCOUNT_COLUMN + 8 * BLOCK_ROWS;
+    private static final int SORTED_ORDER_COLUMN = TAX_COLUMN + 8 * BLOCK_ROWS;
+    private static final int BLOCK_BYTES = SORTED_ORDER_COLUMN + 8 * BLOCK_ROWS;
+
+    private static final String BLOCK_PREFIX = "archive-";
+    private static final String BLOCK_SUFFIX = ".blk";
+
+    private final Path directory;
+    private final List<Block> blocks = new CopyOnWriteArrayList<>();
+
+    // Guarded by this
+    private final Map<String, Integer> itemsByKey = new HashMap<>();
+    private final List<String> itemNames = new CopyOnWriteArrayList<>();
+    private final List<String> itemCategories = new CopyOnWriteArrayList<>();
+    private final Map<Long, Integer> customers = new HashMap<>();
+    // Orders in the last block, until it is sealed
+    private final Set<Long> openBlockOrders = new HashSet<>();
+    private final FileChannel itemDictionary;
+    private final FileChannel customerDictionary;
+
+    private static final class Block {
+        final MappedByteBuffer buffer;
+        // Published after the row's columns are written, so scans never see half a row
+        volatile int rowCount;
+        volatile int minDay;
+        volatile int maxDay;
+        boolean dirty;
+        // Guarded by the archive
+        boolean sealed;
+        long minOrder;
+        long maxOrder;
+
+        Block(MappedByteBuffer buffer) {
+            this.buffer = buffer;
+            this.rowCount = buffer.getInt(ROW_COUNT_OFFSET);
+            this.minDay = buffer.getInt(MIN_DAY_OFFSET);
+            this.maxDay = buffer.getInt(MAX_DAY_OFFSET);
+            this.sealed = buffer.getInt(SEALED_OFFSET) != 0;
+            this.minOrder = buffer.getLong(MIN_ORDER_OFFSET);
+            this.maxOrder = buffer.getLong(MAX_ORDER_OFFSET);
+        }
+
+        boolean containsOrder(long orderId) {
+            if (orderId < minOrder || orderId > maxOrder) {
+                return false;
+            }
+            int low = 0;
+            int high = rowCount - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long found = buffer.getLong(SORTED_ORDER_COLUMN + 8 * mid);
+                if (found < orderId) {
+                    low = mid + 1;
+                } else if (found > orderId) {
+                    high = mid - 1;
+                } else {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    public MappedOrderArchive(Path directory) {
+        this.directory = directory;
+        try {
+            Files.createDirectories(directory);
+            Path items = directory.resolve("items.dict");
+            Path customerIds = directory.resolve("customers.dict");
+            loadDictionaries(items, customerIds);
+            itemDictionary = FileChannel.open(items, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            customerDictionary = FileChannel.open(customerIds, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+            for (Path file : listBlocks()) {
+                blocks.add(new Block(mapBlock(file)));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot open order archive in " + directory, e);
+        }
+        dropRowsWithoutDictionaryEntries();
+        loadOpenBlock();
+    }
+
+    // ===== APPENDS =====
+    @Override
+    public synchronized boolean append(Order order) {
+        int day = order.getEpochDay();
+        long orderId = order.getNumericId();
+        if (isArchived(orderId)) {
+            return false;
+        }
+        long subtotal = order.calculateSubtotal().getCents();
+        long discount = order.calculateDiscount().getCents();
+        long tax = order.calculateTotal().getCents() - (subtotal - discount);
+        int customer = customerOrdinal(order.getCustomer().getNumericId());
+
+        List<OrderItem> items = order.getItems();
+        if (items.isEmpty()) {
+            appendRow(day, orderId, customer, -1, 0, 0, discount, tax);
+        }
+        for (int i = 0; i < items.size(); i++) {
+            OrderItem line = items.get(i);
+            MenuItemSnapshot item = line.getItem();
+            appendRow(day, orderId, customer, itemOrdinal(item.getName(), item.getCategory()),
+                    line.getQuantity(), item.getPriceCents(), i == 0 ? discount : 0, i == 0 ? tax : 0);
+        }
+        return true;
+    }
+
+    private boolean isArchived(long orderId) {
+        if (openBlockOrders.contains(orderId)) {
+            return true;
+        }
+        for (Block block : blocks) {
+            if (block.sealed && block.containsOrder(orderId)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void appendRow(int day, long orderId, int customer, int item, int quantity,
+                           long unitPriceCents, long discountCents, long taxCents) {
+        Block block = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if (block == null || block.rowCount == BLOCK_ROWS) {
+            if (block != null) {
+                seal(block);
+            }
+            block = newBlock();
+        }
+        ByteBuffer buffer = block.buffer;
+        int row = block.rowCount;
+        buffer.putInt(DAY_COLUMN + 4 * row, day);
+        buffer.putLong(ORDER_COLUMN + 8 * row, orderId);
+        buffer.putInt(CUSTOMER_COLUMN + 4 * row, customer);
+        buffer.putInt(ITEM_COLUMN + 4 * row, item);
+        buffer.putInt(QUANTITY_COLUMN + 4 * row, quantity);
+        buffer.putLong(PRICE_COLUMN + 8 * row, unitPriceCents);
+        buffer.putLong(DISCOUNT_COLUMN + 8 * row, discountCents);
+        buffer.putLong(TAX_COLUMN + 8 * row, taxCents);
+        if (row == 0 || day < block.minDay) {
+            block.minDay = day;
+            buffer.putInt(MIN_DAY_OFFSET, day);
+        }
+        if (row == 0 || day > block.maxDay) {
+            block.maxDay = day;
+            buffer.putInt(MAX_DAY_OFFSET, day);
+        }
+        buffer.putInt(ROW_COUNT_OFFSET, row + 1);
+        block.dirty = true;
+        block.rowCount = row + 1;
+        openBlockOrders.add(orderId);
+    }
+
+    /**
+     * Writes the sorted order column of a full block. Its rows, and the
+     * dictionary entries they use, are made durable before the block is
+     * marked sealed, so a sealed block is never dropped on open.
+     */
+    private void seal(Block block) {
+        flush();
+        ByteBuffer buffer = block.buffer;
+        int rows = block.rowCount;
+        long[] orderIds = new long[rows];
+        for (int row = 0; row < rows; row++) {
+            orderIds[row] = buffer.getLong(ORDER_COLUMN + 8 * row);
+        }
+        Arrays.sort(orderIds);
+        for (int row = 0; row < rows; row++) {
+            buffer.putLong(SORTED_ORDER_COLUMN + 8 * row, orderIds[row]);
+        }
+        buffer.putLong(MIN_ORDER_OFFSET, orderIds[0]);
+        buffer.putLong(MAX_ORDER_OFFSET, orderIds[rows - 1]);
+        block.buffer.force();
+        buffer.putInt(SEALED_OFFSET, 1);
+        block.dirty = true;
+        block.minOrder = orderIds[0];
+        block.maxOrder = orderIds[rows - 1];
+        block.sealed = true;
+        openBlockOrders.clear();
+    }
+
+    private Block newBlock() {
+        try {
+            Path file = directory.resolve(String.format("%s%06d%s", BLOCK_PREFIX, blocks.size() + 1, BLOCK_SUFFIX));
+            MappedByteBuffer buffer = mapBlock(file);
+            buffer.putInt(0, MAGIC);
+            Block block = new Block(buffer);
+            blocks.add(block);
+            return block;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot add an order archive block in " + directory, e);
+        }
+    }
+
+    private int itemOrdinal(String name, String category) {
+        String key = name + '\u0000' + category;
+        Integer ordinal = itemsByKey.get(key);
+        if (ordinal == null) {
+            ordinal = itemNames.size();
+            try {
+                SnapshotFiles.Output out = new SnapshotFiles.Output(64);
+                out.writeString(name);
+                out.writeString(category);
+                itemDictionary.write(ByteBuffer.wrap(out.toByteArray()));
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot extend the order archive item dictionary", e);
+            }
+            itemsByKey.put(key, ordinal);
+            itemNames.add(name);
+            itemCategories.add(category);
+        }
+        return ordinal;
+    }
+
+    private int customerOrdinal(long customerId) {
+        Integer ordinal = customers.get(customerId);
+        if (ordinal == null) {
+            ordinal = customers.size();
+            try {
+                ByteBuffer entry = ByteBuffer.allocate(8).putLong(0, customerId);
+                customerDictionary.write(entry);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Cannot extend the order archive customer dictionary", e);
+            }
+            customers.put(customerId, ordinal);
+        }
+        return ordinal;
+    }
+
+    /**
+     * Forces appended rows and dictionary entries to disk. The dictionaries go
+     * first so that no durable row refers to an unknown item or customer.
+     */
+    public synchronized void flush() {
+        try {
+            itemDictionary.force(false);
+            customerDictionary.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot flush the order archive dictionaries", e);
+        }
+        for (Block block : blocks) {
+            if (block.dirty) {
+                block.buffer.force();
+                block.dirty = false;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        flush();
+        try {
+            itemDictionary.close();
+            customerDictionary.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // ===== QUERIES =====
+    @Override
+    public void scan(LocalDate from, LocalDate to, LineVisitor visitor) {
+        int first = (int) from.toEpochDay();
+        int last = (int) to.toEpochDay();
+        for (Block block : blocks) {
+            int rows = block.rowCount;
+            if (rows == 0 || block.maxDay < first || block.minDay > last) {
+                continue;
+            }
+            ByteBuffer buffer = block.buffer;
+            for (int row = 0; row < rows; row++) {
+                int day = buffer.getInt(DAY_COLUMN + 4 * row);
+                if (day < first || day > last) {
+                    continue;
+                }
+                visitor.visit(day,
+                        buffer.getLong(ORDER_COLUMN + 8 * row),
+                        buffer.getInt(CUSTOMER_COLUMN + 4 * row),
+                        buffer.getInt(ITEM_COLUMN + 4 * row),
+                        buffer.getInt(QUANTITY_COLUMN + 4 * row),
+                        buffer.getLong(PRICE_COLUMN + 8 * row),
+                        buffer.getLong(DISCOUNT_COLUMN + 8 * row),
+                        buffer.getLong(TAX_COLUMN + 8 * row));
+            }
+        }
+    }
+
+    @Override
+    public int getItemCount() {
+        return itemNames.size();
+    }
+
+    @Override
+    public String getItemName(int item) {
+        return itemNames.get(item);
+    }
+
+    @Override
+    public String getItemCategory(int item) {
+        return itemCategories.get(item);
+    }
+
+    // ===== LOADING =====
+    private void loadDictionaries(Path items, Path customerIds) throws IOException {
+        if (Files.exists(items)) {
+            ByteBuffer in = SnapshotFiles.map(items);
+            // A torn entry at the end is dropped and rewritten by the next append
+            long valid = 0;
+            try {
+                while (in.hasRemaining()) {
+                    String name = SnapshotFiles.readString(in);
+                    String category = SnapshotFiles.readString(in);
+                    itemsByKey.put(name + '\u0000' + category, itemNames.size());
+                    itemNames.add(name);
+                    itemCategories.add(category);
+                    valid = in.position();
+                }
+            } catch (RuntimeException e) {
+                truncate(items, valid);
+            }
+        }
+        if (Files.exists(customerIds)) {
+            ByteBuffer in = SnapshotFiles.map(customerIds);
+            while (in.remaining() >= 8) {
+                customers.put(in.getLong(), customers.size());
+            }
+            if (in.hasRemaining()) {
+                truncate(customerIds, in.position());
+            }
+        }
+    }
+
+    private static void truncate(Path file, long length) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+    }
+
+    // After a crash the last block's rows may have reached disk before the dictionary entries they use
+    private void dropRowsWithoutDictionaryEntries() {
+        if (blocks.isEmpty()) {
+            return;
+        }
+        Block block = blocks.get(blocks.size() - 1);
+        ByteBuffer buffer = block.buffer;
+        int valid = 0;
+        while (valid < block.rowCount
+                && buffer.getInt(ITEM_COLUMN + 4 * valid) < itemNames.size()
+                && buffer.getInt(CUSTOMER_COLUMN + 4 * valid) < customers.size()) {
+            valid++;
+        }
+        if (valid < block.rowCount) {
+            buffer.putInt(ROW_COUNT_OFFSET, valid);
+            block.rowCount = valid;
+            block.dirty = true;
+        }
+    }
+
+    // Full blocks left unsealed, e.g. by a crash, are sealed now; the last one's orders are kept in memory
+    private void loadOpenBlock() {
+        for (Block block : blocks) {
+            if (!block.sealed && block.rowCount == BLOCK_ROWS) {
+                seal(block);
+            }
+        }
+        Block last = blocks.isEmpty() ? null : blocks.get(blocks.size() - 1);
+        if (last != null && !last.sealed) {
+            for (int row = 0; row < last.rowCount; row++) {
+                openBlockOrders.add(last.buffer.getLong(ORDER_COLUMN + 8 * row));
+            }
+        }
+    }
+
+    private MappedByteBuffer mapBlock(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, BLOCK_BYTES);
+            int magic = buffer.getInt(0);
+            if (magic != 0 && magic != MAGIC) {
+                throw new IOException("Not an order archive block: " + file);
+            }
+            return buffer;
+        }
+    }
+
+    private List<Path> listBlocks() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            List<Path> matching = new ArrayList<>();
+            files.filter(path -> {
+                String name = path.getFileName().toString();
+                return name.startsWith(BLOCK_PREFIX) && name.endsWith(BLOCK_SUFFIX);
+            }).sorted().forEach(matching::add);
+            return matching;
+        }
+    }
+}
@@ -0,0 +1,120 @@
+package infrastructure.persistence;
+
+import domain.model.Customer;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Customer lookup by phone number. Numbers are normalized to their digits,
+ * with the international prefix and the restaurant's own country code folded
+ * away, so "+1 (555) 010-2030", "001 555 010 2030" and "555.010.2030" are
+ * the same key. A second index on the reversed digits answers "ends with"
+ * queries with a range scan.
+ */
+class PhoneIndex {
+    private static final String DEFAULT_COUNTRY_CODE = "1";
+    private static final int NATIONAL_NUMBER_LENGTH = 10;
+
+    private final String countryCode;
+    private final Map<String, Set<Customer>> byNumber = new ConcurrentHashMap<>();
+    // Keyed by reversed number plus customer ID, so several customers may share a number
+    private final NavigableMap<String, Customer> byReversedNumber = new ConcurrentSkipListMap<>();
+
+    PhoneIndex() {
+        this(DEFAULT_COUNTRY_CODE);
+    }
+
+    PhoneIndex(String countryCode) {
+        this.countryCode = countryCode;
+    }
+
+    String normalize(String phone) {
+        if (phone == null) {
+            return "";
+        }
+        String number = digitsOf(phone);
+        if (number.startsWith("00")) {
+            number = number.substring(2);
+        }
+        if (number.length() == countryCode.length() + NATIONAL_NUMBER_LENGTH
+                && number.startsWith(countryCode)) {
+            number = number.substring(countryCode.length());
+        }
+        return number;
+    }
+
+    // Callers serialize add/remove per customer
+    void add(Customer customer, String number) {
+        if (number.isEmpty()) {
+            return;
+        }
+        byNumber.compute(number, (key, customers) -> {
+            Set<Customer> target = customers != null ? customers : ConcurrentHashMap.newKeySet();
+            target.add(customer);
+            return target;
+        });
+        byReversedNumber.put(reversedKey(number, customer), customer);
+    }
+
+    void remove(Customer customer, String number) {
+        if (number.isEmpty()) {
+            return;
+        }
+        byNumber.computeIfPresent(number, (key, customers) -> {
+            customers.remove(customer);
+            return customers.isEmpty() ? null : customers;
+        });
+        byReversedNumber.remove(reversedKey(number, customer));
+    }
+
+    Optional<Customer> find(String phone) {
+        Set<Customer> customers = byNumber.get(normalize(phone));
+        if (customers == null) {
+            return Optional.empty();
+        }
+        return customers.stream().findFirst();
+    }
+
+    List<Customer> findBySuffix(String lastDigits, int limit) {
+        String digits = digitsOf(lastDigits);
+        if (digits.isEmpty() || limit <= 0) {
+            return Collections.emptyList();
+        }
+        String from = reverse(digits);
+        List<Customer> matches = new ArrayList<>();
+        for (Customer customer : byReversedNumber.subMap(from, true, from + Character.MAX_VALUE, false).values()) {
+            matches.add(customer);
+            if (matches.size() >= limit) {
+                break;
+            }
+        }
+        return matches;
+    }
+
+    private static String digitsOf(String value) {
+        StringBuilder digits = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c >= '0' && c <= '9') {
+                digits.append(c);
+            }
+        }
+        return digits.toString();
+    }
+
+    private static String reversedKey(String number, Customer customer) {
+        return reverse(number) + '/' + customer.getId();
+    }
+
+    private static String reverse(String value) {
+        return new StringBuilder(value).reverse().toString();
+    }
+}
@@ -0,0 +1,294 @@
+package infrastructure.persistence;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix index over entity IDs, used to resolve the short IDs shown in the
+ * console back to a single entity.
+ *
+ * Keys are stored in a lazily expanded trie: a key sits in a leaf as soon as
+ * its prefix is unique and is only pushed down when another key shares that
+ * prefix, so a key is never deeper than its longest prefix shared with
+ * another key. Resolving a prefix walks at most one node per character.
+ */
+public class ShortIdIndex<T> {
+    // 0-9, a-z and '-'
+    private static final int FANOUT = 37;
+
+    private final Node<T> root = new Node<>();
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private static final class Node<T> {
+        // Set only on leaves
+        String key;
+        T value;
+        Node<T>[] children;
+        int count;
+
+        boolean isLeaf() {
+            return key != null;
+        }
+    }
+
+    public void put(String id, T value) {
+        String key = checkedKey(id);
+        lock.writeLock().lock();
+        try {
+            insert(key, value);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Adds many entries under one acquisition of the write lock
+    public void putAll(Map<String, T> entries) {
+        List<String> keys = new ArrayList<>(entries.size());
+        for (String id : entries.keySet()) {
+            keys.add(checkedKey(id));
+        }
+        lock.writeLock().lock();
+        try {
+            int i = 0;
+            for (T value : entries.values()) {
+                insert(keys.get(i++), value);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // Rejects unsupported characters before the trie is touched
+    private static String checkedKey(String id) {
+        String key = normalize(id);
+        for (int i = 0; i < key.length(); i++) {
+            slot(key.charAt(i));
+        }
+        return key;
+    }
+
+    // Caller holds the write lock
+    private void insert(String key, T value) {
+        if (replaceExisting(key, value)) {
+            return;
+        }
+        // Counts are raised on the way down, so a key that cannot go in must be rejected first
+        checkInsertable(key);
+        Node<T> node = root;
+        int depth = 0;
+        while (true) {
+            node.count++;
+            int slot = slot(key.charAt(depth));
+            Node<T>[] children = children(node);
+            Node<T> child = children[slot];
+            if (child == null) {
+                children[slot] = leaf(key, value);
+                return;
+            }
+            depth++;
+            if (child.isLeaf()) {
+                children[slot] = split(child, leaf(key, value), depth);
+                return;
+            }
+            node = child;
+        }
+    }
+
+    // Rejects keys that are empty or a prefix of, or extend, a stored key; split() cannot place them
+    private void checkInsertable(String key) {
+        if (key.isEmpty()) {
+            throw new IllegalArgumentException("ID must not be empty");
+        }
+        Node<T> node = root;
+        for (int depth = 0; node.children != null; depth++) {
+            if (depth == key.length()) {
+                throw new IllegalArgumentException("ID '" + key + "' is a prefix of " + node.count + " other IDs");
+            }
+            Node<T> child = node.children[slot(key.charAt(depth))];
+            if (child == null) {
+                return;
+            }
+            if (child.isLeaf()) {
+                if (child.key.startsWith(key) || key.startsWith(child.key)) {
+                    throw new IllegalArgumentException("ID '" + key + "' is a prefix of, or extends, '"
+                            + child.key + "'");
+                }
+                return;
+            }
+            node = child;
+        }
+    }
+
+    public void remove(String id) {
+        String key = normalize(id);
+        lock.writeLock().lock();
+        try {
+            if (get(key) == null) {
+                return;
+            }
+            Node<T> node = root;
+            int depth = 0;
+            while (true) {
+                node.count--;
+                int slot = slot(key.charAt(depth++));
+                Node<T> child = node.children[slot];
+                if (child.isLeaf() || child.count == 1) {
+                    // The subtree only holds this key
+                    node.children[slot] = null;
+                    return;
+                }
+                node = child;
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Returns the entity whose ID starts with the given prefix.
+     *
+     * @throws IllegalArgumentException if the prefix matches more than one ID
+     */
+    public Optional<T> findByPrefix(String prefix) {
+        String key = normalize(prefix);
+        if (key.isEmpty()) {
+            return Optional.empty();
+        }
+        lock.readLock().lock();
+        try {
+            Node<T> node = root;
+            for (int depth = 0; depth < key.length(); depth++) {
+                if (node.children == null) {
+                    return Optional.empty();
+                }
+                int slot = slotOrNegative(key.charAt(depth));
+                if (slot < 0 || node.children[slot] == null) {
+                    return Optional.empty();
+                }
+                node = node.children[slot];
+                if (node.isLeaf()) {
+                    return node.key.startsWith(key) ? Optional.of(node.value) : Optional.empty();
+                }
+            }
+            if (node.count == 0) {
+                return Optional.empty();
+            }
+            if (node.count > 1) {
+                throw new IllegalArgumentException("ID prefix '" + prefix + "' matches "
+                        + node.count + " entries, please enter more characters");
+            }
+            return Optional.of(singleLeaf(node).value);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return root.count;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private boolean replaceExisting(String key, T value) {
+        Node<T> leaf = get(key);
+        if (leaf == null) {
+            return false;
+        }
+        leaf.value = value;
+        return true;
+    }
+
+    private Node<T> get(String key) {
+        Node<T> node = root;
+        for (int depth = 0; depth < key.length(); depth++) {
+            if (node.children == null) {
+                return null;
+            }
+            node = node.children[slot(key.charAt(depth))];
+            if (node == null) {
+                return null;
+            }
+            if (node.isLeaf()) {
+                return node.key.equals(key) ? node : null;
+            }
+        }
+        return null;
+    }
+
+    // Builds the internal nodes needed to tell two leaves apart below the given depth
+    private Node<T> split(Node<T> existing, Node<T> added, int depth) {
+        if (depth >= existing.key.length() || depth >= added.key.length()) {
+            throw new IllegalArgumentException("ID '" + added.key + "' is a prefix of, or extends, '"
+                    + existing.key + "'");
+        }
+        Node<T> parent = new Node<>();
+        parent.count = 2;
+        Node<T>[] children = children(parent);
+        int existingSlot = slot(existing.key.charAt(depth));
+        int addedSlot = slot(added.key.charAt(depth));
+        if (existingSlot == addedSlot) {
+            children[existingSlot] = split(existing, added, depth + 1);
+        } else {
+            children[existingSlot] = existing;
+            children[addedSlot] = added;
+        }
+        return parent;
+    }
+
+    private Node<T> singleLeaf(Node<T> node) {
+        while (!node.isLeaf()) {
+            for (Node<T> child : node.children) {
+                if (child != null) {
+                    node = child;
+                    break;
+                }
+            }
+        }
+        return node;
+    }
+
+    private static <T> Node<T> leaf(String key, T value) {
+        Node<T> node = new Node<>();
+        node.key = key;
+        node.value = value;
+        node.count = 1;
+        return node;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> Node<T>[] children(Node<T> node) {
+        if (node.children == null) {
+            node.children = (Node<T>[]) new Node<?>[FANOUT];
+        }
+        return node.children;
+    }
+
+    private static String normalize(String id) {
+        return id.trim().toLowerCase();
+    }
+
+    private static int slot(char c) {
+        int slot = slotOrNegative(c);
+        if (slot < 0) {
+            throw new IllegalArgumentException("Unsupported character '" + c + "' in ID");
+        }
+        return slot;
+    }
+
+    private static int slotOrNegative(char c) {
+        if (c >= '0' && c <= '9') {
+            return c - '0';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return 10 + (c - 'a');
+        }
+        return c == '-' ? 36 : -1;
+    }
+}
@@ -0,0 +1,200 @@
+package infrastructure.persistence;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AccessDeniedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Binary snapshot and log files. Writes go to a temporary file that is synced
+ * and then renamed over the target, and the rename itself is synced through
+ * the directory, so a crash leaves either the old or the new file, never a
+ * partial one. Reads map the file and parse it in place.
+ */
+final class SnapshotFiles {
+    private static final int BUFFER_BYTES = 256 * 1024;
+
+    interface Writer {
+        void write(Output out) throws IOException;
+    }
+
+    interface Reader {
+        void read(ByteBuffer in) throws IOException;
+    }
+
+    private SnapshotFiles() {
+    }
+
+    static void write(Path file, Writer writer) {
+        Path temp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                Output out = new Output(channel);
+                writer.write(out);
+                out.flush();
+                channel.force(true);
+            }
+            Files.move(temp, file, StandardCopyOption.ATOMIC_MOVE);
+            syncDirectory(file.toAbsolutePath().getParent());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot write snapshot " + file, e);
+        }
+    }
+
+    /**
+     * Makes file creations, renames and deletions in the directory durable;
+     * until then a crash can undo them even though the files' own contents
+     * were synced. Skipped where directories cannot be opened (Windows).
+     */
+    static void syncDirectory(Path directory) throws IOException {
+        FileChannel channel;
+        try {
+            channel = FileChannel.open(directory, StandardOpenOption.READ);
+        } catch (AccessDeniedException e) {
+            return;
+        }
+        try (channel) {
+            channel.force(true);
+        }
+    }
+
+    // Returns false if there is no snapshot yet
+    static boolean read(Path file, Reader reader) {
+        if (!Files.exists(file)) {
+            return false;
+        }
+        try {
+            reader.read(map(file));
+            return true;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read snapshot " + file, e);
+        }
+    }
+
+    // The mapping stays valid after the channel is closed
+    static ByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    // Strings are an int byte count (-1 for null) followed by UTF-8
+    static String readString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    static void skipString(ByteBuffer in) {
+        int length = in.getInt();
+        if (length > 0) {
+            in.position(in.position() + length);
+        }
+    }
+
+    /**
+     * Growable big-endian buffer. With a channel it writes itself out whenever
+     * it fills up; without one it just collects the bytes.
+     */
+    static final class Output {
+        private final WritableByteChannel channel;
+        private ByteBuffer buffer;
+
+        Output(int initialBytes) {
+            this.channel = null;
+            this.buffer = ByteBuffer.allocate(initialBytes);
+        }
+
+        Output(WritableByteChannel channel) {
+            this.channel = channel;
+            this.buffer = ByteBuffer.allocate(BUFFER_BYTES);
+        }
+
+        void writeByte(int value) throws IOException {
+            ensure(1).put((byte) value);
+        }
+
+        void writeBoolean(boolean value) throws IOException {
+            writeByte(value ? 1 : 0);
+        }
+
+        void writeShort(int value) throws IOException {
+            ensure(2).putShort((short) value);
+        }
+
+        void writeInt(int value) throws IOException {
+            ensure(4).putInt(value);
+        }
+
+        void writeLong(long value) throws IOException {
+            ensure(8).putLong(value);
+        }
+
+        void write(byte[] bytes) throws IOException {
+            ensure(bytes.length).put(bytes);
+        }
+
+        void writeString(String value) throws IOException {
+            if (value == null) {
+                writeInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeInt(bytes.length);
+            write(bytes);
+        }
+
+        int size() {
+            return buffer.position();
+        }
+
+        void putInt(int index, int value) {
+            buffer.putInt(index, value);
+        }
+
+        byte[] toByteArray() {
+            byte[] bytes = new byte[buffer.position()];
+            buffer.get(0, bytes);
+            return bytes;
+        }
+
+        // Only meaningful for a buffer without a channel
+        byte[] array() {
+            return buffer.array();
+        }
+
+        void flush() throws IOException {
+            buffer.flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            buffer.clear();
+        }
+
+        private ByteBuffer ensure(int bytes) throws IOException {
+            if (buffer.remaining() < bytes) {
+                if (channel != null && bytes <= buffer.capacity()) {
+                    flush();
+                } else {
+                    ByteBuffer larger = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                    buffer.flip();
+                    larger.put(buffer);
+                    buffer = larger;
+                }
+            }
+            return buffer;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package infrastructure.persistence;
+
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Runs snapshot tasks on a background thread at a fixed delay, e.g. saving
+ * the menu and customers and checkpointing the order log:
+ *
+ * <pre>
+ * new SnapshotScheduler(5, TimeUnit.MINUTES, List.of(
+ *         () -&gt; menuRepository.saveSnapshot(dir.resolve("menu.snap")),
+ *         () -&gt; customerRepository.saveSnapshot(dir.resolve("customers.snap")),
+ *         orderService::evictDeliveredOrders,
+ *         archive::flush,
+ *         orderService::checkpoint));
+ * </pre>
+ *
+ * The archive is flushed before the checkpoint, which forgets evicted orders.
+ *
+ * On restart, load the menu and customer snapshots first and then call
+ * OrderService.recover(). A failed task is counted and retried next period.
+ */
+public class SnapshotScheduler {
+    private final ScheduledExecutorService executor;
+    private final List<Runnable> tasks;
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final AtomicReference<RuntimeException> lastFailure = new AtomicReference<>();
+
+    public SnapshotScheduler(long period, TimeUnit unit, List<Runnable> tasks) {
+        if (period <= 0) {
+            throw new IllegalArgumentException("Snapshot period must be greater than zero");
+        }
+        this.tasks = List.copyOf(tasks);
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "snapshot-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+        executor.scheduleWithFixedDelay(this::runAll, period, period, unit);
+    }
+
+    // Also usable directly, e.g. for a final snapshot at shutdown
+    public void runAll() {
+        for (Runnable task : tasks) {
+            try {
+                task.run();
+                completed.increment();
+            } catch (RuntimeException e) {
+                // Keep the schedule alive; the next run tries again
+                failed.increment();
+                lastFailure.set(e);
+            }
+        }
+    }
+
+    public void shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(timeout, unit);
+    }
+
+    public long getCompletedCount() {
+        return completed.sum();
+    }
+
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    // Null if no task has failed yet
+    public RuntimeException getLastFailure() {
+        return lastFailure.get();
+    }
+}
@@ -0,0 +1,142 @@
+package ui;
+
+import application.CustomerService;
+import application.MenuService;
+import application.OrderRequest;
+import application.OrderService;
+import domain.model.Order;
+import domain.repository.OrderJournal;
+import infrastructure.persistence.InMemoryCustomerRepository;
+import infrastructure.persistence.InMemoryMenuRepository;
+import infrastructure.persistence.InMemoryOrderRepository;
+import infrastructure.persistence.OrderWriteAheadLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Stream;
+
+/**
+ * Compares placing a burst of orders one call at a time (createOrder plus
+ * addItemToOrder per line) with one {@link OrderService#placeOrders} call.
+ * Each round builds fresh services, so neither path benefits from the other's
+ * warm repository; the first rounds include JIT warm-up.
+ *
+ * Usage: {@code BatchIngestionBenchmark [orders] [rounds] [memory|wal]}, by
+ * default 10000 orders, 5 rounds, in memory. With {@code wal} the orders are
+ * journaled to an order log in a temporary directory; one caller placing
+ * orders a call at a time then waits for a group commit per change, so use
+ * a few hundred orders.
+ */
+public class BatchIngestionBenchmark {
+    private static final int MENU_ITEMS = 50;
+    private static final int CUSTOMERS = 2000;
+
+    private final int orders;
+    private final boolean journaled;
+
+    public BatchIngestionBenchmark(int orders, boolean journaled) {
+        if (orders <= 0) {
+            throw new IllegalArgumentException("Orders must be greater than zero");
+        }
+        this.orders = orders;
+        this.journaled = journaled;
+    }
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        boolean journaled = args.length > 2 && args[2].equalsIgnoreCase("wal");
+        BatchIngestionBenchmark benchmark = new BatchIngestionBenchmark(orders, journaled);
+        for (int round = 1; round <= rounds; round++) {
+            benchmark.run(round, false);
+            benchmark.run(round, true);
+        }
+    }
+
+    public void run(int round, boolean batched) {
+        Path logDirectory = journaled ? createTempDirectory() : null;
+        OrderWriteAheadLog log = journaled ? new OrderWriteAheadLog(logDirectory) : null;
+        try {
+            InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+            InMemoryCustomerRepository customerRepository = new InMemoryCustomerRepository();
+            InMemoryOrderRepository orderRepository = new InMemoryOrderRepository();
+            MenuService menuService = new MenuService(menuRepository);
+            CustomerService customerService = new CustomerService(customerRepository);
+            OrderService orderService = new OrderService(orderRepository, customerRepository, menuRepository,
+                    journaled ? log : OrderJournal.NONE);
+            if (log != null) {
+                orderService.recover();
+            }
+
+            List<String> menuItemIds = new ArrayList<>();
+            for (int i = 0; i < MENU_ITEMS; i++) {
+                menuItemIds.add(menuService.addMenuItem("main", "Dish " + i, 5 + i, "Sample", false).getId());
+            }
+            List<String> customerIds = new ArrayList<>();
+            for (int i = 0; i < CUSTOMERS; i++) {
+                customerIds.add(customerService.addCustomer("Customer " + i, "Main St", "555-" + (100000 + i)).getId());
+            }
+            List<OrderRequest> requests = requests(customerIds, menuItemIds);
+
+            long start = System.nanoTime();
+            if (batched) {
+                orderService.placeOrders(requests);
+            } else {
+                for (OrderRequest request : requests) {
+                    Order order = orderService.createOrder(request.getCustomerId());
+                    for (OrderRequest.Line line : request.getLines()) {
+                        orderService.addItemToOrder(order.getId(), line.getMenuItemId(), line.getQuantity());
+                    }
+                }
+            }
+            double millis = (System.nanoTime() - start) / 1e6;
+            System.out.printf("round %d, %s, %-8s: %d orders in %.1f ms (%.2f us/order), %d stored%n",
+                    round, journaled ? "journaled" : "in memory", batched ? "batch" : "per call",
+                    orders, millis, millis * 1000 / orders, orderRepository.findAll().size());
+        } finally {
+            if (log != null) {
+                log.close();
+                deleteRecursively(logDirectory);
+            }
+        }
+    }
+
+    // The same orders every round: one to four lines each, from random customers
+    private List<OrderRequest> requests(List<String> customerIds, List<String> menuItemIds) {
+        Random random = new Random(7);
+        List<OrderRequest> requests = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            OrderRequest request = new OrderRequest(customerIds.get(random.nextInt(customerIds.size())));
+            int lines = 1 + random.nextInt(4);
+            for (int line = 0; line < lines; line++) {
+                request.addLine(menuItemIds.get(random.nextInt(menuItemIds.size())), 1 + random.nextInt(2));
+            }
+            requests.add(request);
+        }
+        return requests;
+    }
+
+    private static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("order-log");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create a directory for the order log", e);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot remove " + directory, e);
+        }
+    }
+}
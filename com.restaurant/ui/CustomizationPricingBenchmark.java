@@ -0,0 +1,127 @@
+package ui;
+
+import application.MenuService;
+import domain.decorator.CustomizationCache;
+import domain.decorator.ExtraToppingDecorator;
+import domain.decorator.MenuItemDecorator;
+import domain.decorator.SideItemDecorator;
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
+import domain.model.MenuItemSnapshot;
+import infrastructure.persistence.InMemoryMenuRepository;
+
+/**
+ * Prices customized items at decorator chain depths 1 to 20, three ways:
+ * walking the chain and adding up each customization, as decorators priced
+ * themselves before; reading the decorator's precomputed price; and reading
+ * the price of the flat snapshot that {@link CustomizationCache} compiles
+ * the chain into, which is what order lines hold. Also times compiling a
+ * chain, which happens once per order line, the first time and once the
+ * customization is interned, and checks that compiling it again yields the
+ * same shared snapshot.
+ *
+ * Usage: {@code CustomizationPricingBenchmark [maxDepth] [pricesPerDepth]},
+ * by default depth 20 and 2000000 prices per depth and way.
+ */
+public class CustomizationPricingBenchmark {
+    // Chains per depth, with different toppings, so the loop does not read one object over and over
+    private static final int CHAINS = 64;
+    // Compiles of customizations already interned, timed per depth
+    private static final int COMPILES = 64_000;
+    private static final String[] TOPPINGS = {"Cheese", "Bacon", "Mushrooms", "Onions", "Jalapenos"};
+
+    private final int maxDepth;
+    private final int prices;
+
+    public CustomizationPricingBenchmark(int maxDepth, int prices) {
+        if (maxDepth <= 0 || prices <= 0) {
+            throw new IllegalArgumentException("Depth and prices must be greater than zero");
+        }
+        this.maxDepth = maxDepth;
+        this.prices = prices;
+    }
+
+    public static void main(String[] args) {
+        int maxDepth = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int prices = args.length > 1 ? Integer.parseInt(args[1]) : 2_000_000;
+        new CustomizationPricingBenchmark(maxDepth, prices).run();
+    }
+
+    public void run() {
+        MenuService menuService = new MenuService(new InMemoryMenuRepository());
+        MenuItem burger = menuService.addMenuItem("main", "Burger", 9.50, "Beef patty", false);
+        MenuCatalog catalog = menuService.getCatalog();
+        CustomizationCache cache = new CustomizationCache();
+        // Warm every path at the largest depth first, so depth 1 is not the one paying for the JIT
+        price(chains(burger, maxDepth), cache, catalog, maxDepth);
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            price(chains(burger, depth), cache, catalog, depth);
+        }
+    }
+
+    private void price(MenuItem[] chains, CustomizationCache cache, MenuCatalog catalog, int depth) {
+        MenuItemSnapshot[] compiled = new MenuItemSnapshot[CHAINS];
+        long start = System.nanoTime();
+        for (int i = 0; i < CHAINS; i++) {
+            compiled[i] = cache.compile(chains[i], catalog);
+        }
+        double firstCompileNanos = (System.nanoTime() - start) / (double) CHAINS;
+        boolean shared = true;
+        start = System.nanoTime();
+        for (int i = 0; i < COMPILES; i++) {
+            shared &= cache.compile(chains[i & (CHAINS - 1)], catalog) == compiled[i & (CHAINS - 1)];
+        }
+        double compileNanos = (System.nanoTime() - start) / (double) COMPILES;
+
+        long sum = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < prices; i++) {
+            sum += walkedCents(chains[i & (CHAINS - 1)]);
+        }
+        double walkedNanos = (System.nanoTime() - start) / (double) prices;
+        start = System.nanoTime();
+        for (int i = 0; i < prices; i++) {
+            sum -= chains[i & (CHAINS - 1)].getPrice().getCents();
+        }
+        double decoratorNanos = (System.nanoTime() - start) / (double) prices;
+        start = System.nanoTime();
+        for (int i = 0; i < prices; i++) {
+            sum += compiled[i & (CHAINS - 1)].getPriceCents();
+        }
+        double snapshotNanos = (System.nanoTime() - start) / (double) prices;
+        start = System.nanoTime();
+        for (int i = 0; i < prices; i++) {
+            sum -= compiled[i & (CHAINS - 1)].getPriceCents();
+        }
+        if (sum != 0) {
+            throw new IllegalStateException("Prices differ at depth " + depth);
+        }
+        System.out.printf("depth %2d: walked %6.1f ns, decorator %5.1f ns, compiled snapshot %5.1f ns per price;"
+                        + " compile %6.0f ns first, %5.0f ns again, shared %s%n",
+                depth, walkedNanos, decoratorNanos, snapshotNanos, firstCompileNanos, compileNanos, shared);
+    }
+
+    // Base price plus every customization, read link by link down the chain
+    private static long walkedCents(MenuItem item) {
+        if (item instanceof MenuItemDecorator) {
+            MenuItemDecorator decorator = (MenuItemDecorator) item;
+            return walkedCents(decorator.getWrapped()) + decorator.getModifierPrice().getCents();
+        }
+        return item.getPrice().getCents();
+    }
+
+    private static MenuItem[] chains(MenuItem base, int depth) {
+        MenuItem[] chains = new MenuItem[CHAINS];
+        for (int i = 0; i < CHAINS; i++) {
+            MenuItem item = base;
+            for (int level = 0; level < depth; level++) {
+                int variant = (i + level) % TOPPINGS.length;
+                item = level % 2 == 0
+                        ? new ExtraToppingDecorator(item, TOPPINGS[variant], 0.50 + 0.25 * variant)
+                        : new SideItemDecorator(item, "Fries", 2.00);
+            }
+            chains[i] = item;
+        }
+        return chains;
+    }
+}
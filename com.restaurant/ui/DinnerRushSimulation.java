@@ -0,0 +1,118 @@
+package ui;
+
+import application.MenuService;
+import application.OrderService;
+import domain.model.Customer;
+import domain.model.Order;
+import domain.repository.OrderJournal;
+import domain.service.OrderProcessingService;
+import domain.service.OrderProcessingService.Station;
+import infrastructure.persistence.InMemoryCustomerRepository;
+import infrastructure.persistence.InMemoryMenuRepository;
+import infrastructure.persistence.InMemoryOrderRepository;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Simulated dinner rush through the kitchen dispatcher. Orders of a main,
+ * a drink and sometimes a starter or dessert arrive in waves; simulated
+ * cooks take a fixed time per unit at each station (the grill is slowest,
+ * so it becomes the bottleneck). The same rush is run without and then with
+ * work stealing, printing throughput, order lead time and each station's
+ * queue wait.
+ *
+ * Usage: {@code DinnerRushSimulation [orders] [cooksPerStation]}, by default
+ * 1500 orders and 2 cooks per station.
+ */
+public class DinnerRushSimulation {
+    private static final String[] MENU_TYPES = {"main", "appetizer", "beverage", "dessert"};
+    private static final int ITEMS_PER_TYPE = 5;
+    // Milliseconds per unit, indexed by station ordinal: grill, cold, bar, pastry
+    private static final long[] PREP_MILLIS = {8, 3, 1, 4};
+    private static final int WAVE_ORDERS = 50;
+    private static final long WAVE_GAP_MILLIS = 100;
+
+    private final int orders;
+    private final int cooksPerStation;
+
+    public DinnerRushSimulation(int orders, int cooksPerStation) {
+        if (orders <= 0 || cooksPerStation <= 0) {
+            throw new IllegalArgumentException("Orders and cooks per station must be greater than zero");
+        }
+        this.orders = orders;
+        this.cooksPerStation = cooksPerStation;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1500;
+        int cooks = args.length > 1 ? Integer.parseInt(args[1]) : 2;
+        DinnerRushSimulation simulation = new DinnerRushSimulation(orders, cooks);
+        simulation.run(false);
+        simulation.run(true);
+    }
+
+    public void run(boolean workStealing) throws InterruptedException {
+        InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+        MenuService menuService = new MenuService(menuRepository);
+        OrderService orderService = new OrderService(new InMemoryOrderRepository(), new InMemoryCustomerRepository(),
+                menuRepository, OrderJournal.NONE);
+        List<List<String>> menuItemIds = new ArrayList<>();
+        for (String type : MENU_TYPES) {
+            List<String> ids = new ArrayList<>();
+            for (int i = 0; i < ITEMS_PER_TYPE; i++) {
+                ids.add(menuService.addMenuItem(type, type + " " + i, 5 + i, "Sample", false).getId());
+            }
+            menuItemIds.add(ids);
+        }
+
+        Map<Station, Integer> cooks = new EnumMap<>(Station.class);
+        for (Station station : Station.values()) {
+            cooks.put(station, cooksPerStation);
+        }
+        OrderProcessingService kitchen = new OrderProcessingService(cooks, workStealing,
+                (station, order, line) -> Thread.sleep(PREP_MILLIS[station.ordinal()] * line.getQuantity()),
+                orderService::advanceOrder);
+
+        Customer customer = new Customer("Walk-in", "Dining room", "555-0000");
+        Random random = new Random(1);
+        long start = System.nanoTime();
+        for (int i = 0; i < orders; i++) {
+            Order order = orderService.createOrder(customer);
+            orderService.addItemToOrder(order.getId(), pick(menuItemIds, 0, random), 1);
+            if (random.nextBoolean()) {
+                orderService.addItemToOrder(order.getId(), pick(menuItemIds, 1, random), 1);
+            }
+            orderService.addItemToOrder(order.getId(), pick(menuItemIds, 2, random), 1 + random.nextInt(2));
+            if (random.nextInt(3) == 0) {
+                orderService.addItemToOrder(order.getId(), pick(menuItemIds, 3, random), 1);
+            }
+            // About one order in twenty jumps the queue, e.g. a table that has waited too long
+            kitchen.submit(order, random.nextInt(20) == 0 ? 1 : 0);
+            if (i % WAVE_ORDERS == WAVE_ORDERS - 1) {
+                Thread.sleep(WAVE_GAP_MILLIS);
+            }
+        }
+        kitchen.shutdown(5, TimeUnit.MINUTES);
+        double seconds = (System.nanoTime() - start) / 1e9;
+
+        System.out.printf("work stealing %s: %d orders in %.1f s (%.0f orders/s), lead time avg %.0f ms, %d ready%n",
+                workStealing ? "on" : "off", kitchen.getCompletedOrderCount(), seconds,
+                kitchen.getCompletedOrderCount() / seconds, kitchen.getAverageLeadTimeMillis(),
+                orderService.getOrdersByStatus("Ready").size());
+        for (Station station : Station.values()) {
+            System.out.printf("  %-6s lines %5d, stolen %5d, queue wait avg %7.1f ms, max %7.1f ms%n",
+                    station, kitchen.getCompletedLineCount(station), kitchen.getStolenLineCount(station),
+                    kitchen.getAverageQueueWaitMillis(station), kitchen.getMaxQueueWaitMillis(station));
+        }
+    }
+
+    private static String pick(List<List<String>> menuItemIds, int type, Random random) {
+        List<String> ids = menuItemIds.get(type);
+        return ids.get(random.nextInt(ids.size()));
+    }
+}
@@ -0,0 +1,136 @@
+package ui;
+
+import domain.model.Customer;
+import domain.model.IdGenerator;
+import domain.model.Order;
+import domain.model.TimeOrderedIdGenerator;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+
+/**
+ * Measures ID throughput with several threads taking IDs at once, for the
+ * path entities used before, {@code UUID.randomUUID().toString()}, and for
+ * the time-ordered generator: one ID per call, blocks of IDs as batch
+ * ingestion takes them, and new orders whose ID is then turned into text.
+ * The generator's IDs from all threads are checked to be unique.
+ *
+ * The generator has a 12-bit sequence per millisecond. Past about 4 million
+ * IDs a second a full sequence carries into the next millisecond, so
+ * callers never wait, but the IDs' timestamps run ahead of the clock for as
+ * long as the burst lasts.
+ *
+ * Usage: {@code IdGenerationBenchmark [idsPerThread] [threadCounts] [rounds]},
+ * by default 1000000 IDs, {@code 1,2,4,8} threads and 3 rounds.
+ */
+public class IdGenerationBenchmark {
+    private static final int BLOCK = 64;
+
+    private final int idsPerThread;
+
+    public IdGenerationBenchmark(int idsPerThread) {
+        if (idsPerThread <= 0 || idsPerThread % BLOCK != 0) {
+            throw new IllegalArgumentException("IDs per thread must be a positive multiple of " + BLOCK);
+        }
+        this.idsPerThread = idsPerThread;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int idsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        String threadCounts = args.length > 1 ? args[1] : "1,2,4,8";
+        int rounds = args.length > 2 ? Integer.parseInt(args[2]) : 3;
+        IdGenerationBenchmark benchmark = new IdGenerationBenchmark(idsPerThread);
+        for (int round = 1; round <= rounds; round++) {
+            for (String count : threadCounts.split(",")) {
+                benchmark.run(round, Integer.parseInt(count.trim()));
+            }
+        }
+    }
+
+    // Returns something derived from the IDs, so the work cannot be optimized away
+    private interface Worker {
+        long run(int thread);
+    }
+
+    private volatile long checksum;
+
+    public void run(int round, int threads) throws InterruptedException {
+        Customer customer = new Customer("Ana", "Main St", "555-0100");
+        IdGenerator generator = new TimeOrderedIdGenerator(1);
+        double uuid = measure(threads, thread -> {
+            long length = 0;
+            for (int i = 0; i < idsPerThread; i++) {
+                length += UUID.randomUUID().toString().length();
+            }
+            return length;
+        });
+        long[][] taken = new long[threads][idsPerThread];
+        double single = measure(threads, thread -> {
+            long[] own = taken[thread];
+            for (int i = 0; i < idsPerThread; i++) {
+                own[i] = generator.nextId();
+            }
+            return own[idsPerThread - 1];
+        });
+        checkUnique(taken);
+        double blocks = measure(threads, thread -> {
+            long[] own = taken[thread];
+            long[] block = new long[BLOCK];
+            for (int i = 0; i < idsPerThread; i += BLOCK) {
+                generator.nextIds(block);
+                System.arraycopy(block, 0, own, i, BLOCK);
+            }
+            return own[idsPerThread - 1];
+        });
+        checkUnique(taken);
+        double orders = measure(threads, thread -> {
+            long length = 0;
+            for (int i = 0; i < idsPerThread; i++) {
+                length += new Order(customer).getId().length();
+            }
+            return length;
+        });
+        System.out.printf("round %d, %d threads: UUID strings %5.2f M/s, nextId %5.2f M/s,"
+                        + " blocks of %d %5.2f M/s, orders with text IDs %5.2f M/s%n",
+                round, threads, uuid, single, BLOCK, blocks, orders);
+    }
+
+    // Millions of IDs a second over all threads, started together
+    private double measure(int threads, Worker worker) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] running = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            running[t] = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                checksum += worker.run(thread);
+            }, "id-benchmark-" + t);
+            running[t].start();
+        }
+        long begin = System.nanoTime();
+        start.countDown();
+        for (Thread thread : running) {
+            thread.join();
+        }
+        double seconds = (System.nanoTime() - begin) / 1e9;
+        return (double) threads * idsPerThread / seconds / 1e6;
+    }
+
+    private static void checkUnique(long[][] taken) {
+        long[] all = new long[taken.length * taken[0].length];
+        for (int t = 0; t < taken.length; t++) {
+            System.arraycopy(taken[t], 0, all, t * taken[t].length, taken[t].length);
+        }
+        Arrays.sort(all);
+        for (int i = 1; i < all.length; i++) {
+            if (all[i] == all[i - 1]) {
+                throw new IllegalStateException("ID " + all[i] + " was handed out twice");
+            }
+        }
+    }
+}
@@ -0,0 +1,146 @@
+package ui;
+
+import domain.model.Money;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Random;
+
+/**
+ * Prices the same orders with {@link Money}, with {@code double} as the
+ * order used to, and with {@link BigDecimal}: each order's lines are
+ * multiplied out and summed, 8% tax is added, and the totals are summed into
+ * the day's revenue. Prints the time per pass and how far each revenue is
+ * from the exact one, which is worked out in whole cents up front. The
+ * {@code double} pass runs twice: with the tax left unrounded, as the order
+ * used to compute it, and with the tax rounded to the cent per order.
+ *
+ * The tree has no build that could pull in JMH, so this is a plain main;
+ * the first rounds include JIT warm-up, later ones are steady state.
+ *
+ * Usage: {@code MoneyBenchmark [orders] [rounds]}, by default 1000000
+ * orders and 8 rounds.
+ */
+public class MoneyBenchmark {
+    private static final int MENU_ITEMS = 50;
+    private static final int MAX_LINES = 4;
+    private static final int TAX_RATE_BASIS_POINTS = 800;
+    private static final double TAX_RATE = 0.08;
+    private static final BigDecimal TAX_RATE_DECIMAL = new BigDecimal("0.08");
+
+    private final int orders;
+    // Lines of order i are lines[i * MAX_LINES] up to lineCounts[i], as menu item indexes
+    private final int[] lines;
+    private final int[] quantities;
+    private final int[] lineCounts;
+    private final long[] priceCents = new long[MENU_ITEMS];
+    private final Money[] prices = new Money[MENU_ITEMS];
+    private final double[] priceAmounts = new double[MENU_ITEMS];
+    private final BigDecimal[] priceDecimals = new BigDecimal[MENU_ITEMS];
+
+    public MoneyBenchmark(int orders) {
+        if (orders <= 0) {
+            throw new IllegalArgumentException("Orders must be greater than zero");
+        }
+        this.orders = orders;
+        lines = new int[orders * MAX_LINES];
+        quantities = new int[orders * MAX_LINES];
+        lineCounts = new int[orders];
+        Random random = new Random(7);
+        for (int i = 0; i < MENU_ITEMS; i++) {
+            // Prices like 4.95 or 12.49, which double cannot hold exactly
+            priceCents[i] = 199 + 50L * i + (i % 3 == 0 ? 96 : 0);
+            prices[i] = Money.ofCents(priceCents[i]);
+            priceAmounts[i] = priceCents[i] / 100.0;
+            priceDecimals[i] = BigDecimal.valueOf(priceCents[i], 2);
+        }
+        for (int i = 0; i < orders; i++) {
+            lineCounts[i] = 1 + random.nextInt(MAX_LINES);
+            for (int line = 0; line < lineCounts[i]; line++) {
+                lines[i * MAX_LINES + line] = random.nextInt(MENU_ITEMS);
+                quantities[i * MAX_LINES + line] = 1 + random.nextInt(3);
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        new MoneyBenchmark(orders).run(rounds);
+    }
+
+    public void run(int rounds) {
+        long exactCents = exactRevenueCents();
+        System.out.printf("%d orders, exact revenue %s%n", orders, Money.ofCents(exactCents));
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            Money money = revenueWithMoney();
+            double moneyMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            double amount = revenueWithDouble(false);
+            double doubleMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            double roundedAmount = revenueWithDouble(true);
+            double roundedMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            BigDecimal decimal = revenueWithBigDecimal();
+            double decimalMillis = (System.nanoTime() - start) / 1e6;
+            System.out.printf("round %d: Money %.1f ms (off by %d cents), double %.1f ms (off by %.6f),"
+                            + " double with rounded tax %.1f ms (off by %.6f), BigDecimal %.1f ms (off by %s)%n",
+                    round, moneyMillis, money.getCents() - exactCents,
+                    doubleMillis, amount - exactCents / 100.0, roundedMillis, roundedAmount - exactCents / 100.0,
+                    decimalMillis, decimal.subtract(BigDecimal.valueOf(exactCents, 2)).toPlainString());
+        }
+    }
+
+    // Whole cents with the tax rounded half up per order, the expected result
+    private long exactRevenueCents() {
+        long revenue = 0;
+        for (int i = 0; i < orders; i++) {
+            long subtotal = 0;
+            for (int line = i * MAX_LINES; line < i * MAX_LINES + lineCounts[i]; line++) {
+                subtotal += priceCents[lines[line]] * quantities[line];
+            }
+            revenue += subtotal + (subtotal * TAX_RATE_BASIS_POINTS + 5_000) / 10_000;
+        }
+        return revenue;
+    }
+
+    private Money revenueWithMoney() {
+        Money revenue = Money.ZERO;
+        for (int i = 0; i < orders; i++) {
+            Money subtotal = Money.ZERO;
+            for (int line = i * MAX_LINES; line < i * MAX_LINES + lineCounts[i]; line++) {
+                subtotal = subtotal.add(prices[lines[line]].multiply(quantities[line]));
+            }
+            revenue = revenue.add(subtotal.add(subtotal.percentage(TAX_RATE_BASIS_POINTS)));
+        }
+        return revenue;
+    }
+
+    private double revenueWithDouble(boolean roundTax) {
+        double revenue = 0;
+        for (int i = 0; i < orders; i++) {
+            double subtotal = 0;
+            for (int line = i * MAX_LINES; line < i * MAX_LINES + lineCounts[i]; line++) {
+                subtotal += priceAmounts[lines[line]] * quantities[line];
+            }
+            double tax = subtotal * TAX_RATE;
+            revenue += subtotal + (roundTax ? Math.round(tax * 100) / 100.0 : tax);
+        }
+        return revenue;
+    }
+
+    private BigDecimal revenueWithBigDecimal() {
+        BigDecimal revenue = BigDecimal.ZERO;
+        for (int i = 0; i < orders; i++) {
+            BigDecimal subtotal = BigDecimal.ZERO;
+            for (int line = i * MAX_LINES; line < i * MAX_LINES + lineCounts[i]; line++) {
+                subtotal = subtotal.add(priceDecimals[lines[line]].multiply(BigDecimal.valueOf(quantities[line])));
+            }
+            BigDecimal tax = subtotal.multiply(TAX_RATE_DECIMAL).setScale(2, RoundingMode.HALF_UP);
+            revenue = revenue.add(subtotal.add(tax));
+        }
+        return revenue;
+    }
+}
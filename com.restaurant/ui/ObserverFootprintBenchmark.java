@@ -0,0 +1,89 @@
+package ui;
+
+import domain.model.Customer;
+import domain.model.Order;
+import domain.observer.OrderObserver;
+import domain.observer.OrderObserverRegistry;
+import infrastructure.notification.ConsoleNotifier;
+import infrastructure.notification.EmailNotifier;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Measures the heap each order costs for notifications, as a heap
+ * histogram would: live heap is read after full collections, before and
+ * after the orders exist. Orders are created against one shared
+ * {@link OrderObserverRegistry} holding a console and an email notifier;
+ * then each order is given what it used to carry, its own observer list
+ * with a new console and email notifier, and the heap is read again.
+ *
+ * Usage: {@code ObserverFootprintBenchmark [orders]}, by default 1000000.
+ * Run with a fixed heap (e.g. {@code -Xms2g -Xmx2g}) so the readings are
+ * not disturbed by the heap resizing.
+ */
+public class ObserverFootprintBenchmark {
+    private final int orders;
+
+    public ObserverFootprintBenchmark(int orders) {
+        if (orders <= 0) {
+            throw new IllegalArgumentException("Orders must be greater than zero");
+        }
+        this.orders = orders;
+    }
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        new ObserverFootprintBenchmark(orders).run();
+    }
+
+    public void run() {
+        OrderObserverRegistry registry = new OrderObserverRegistry();
+        registry.subscribe(new ConsoleNotifier());
+        registry.subscribe(new EmailNotifier());
+        Customer customer = new Customer("Ana", "Main St", "555-0100");
+
+        long before = liveHeap();
+        Order[] created = new Order[orders];
+        for (int i = 0; i < orders; i++) {
+            created[i] = new Order(i + 1, customer, 0, 0, registry);
+        }
+        long withRegistry = liveHeap();
+        // Held alongside the orders; a slot here costs what the list field did in each order
+        Object[] perOrderObservers = new Object[orders];
+        for (int i = 0; i < orders; i++) {
+            List<OrderObserver> observers = new ArrayList<>();
+            observers.add(new ConsoleNotifier());
+            observers.add(new EmailNotifier());
+            perOrderObservers[i] = observers;
+        }
+        long withLists = liveHeap();
+
+        double orderBytes = (withRegistry - before) / (double) orders;
+        double listBytes = (withLists - before) / (double) orders;
+        System.out.printf("%d orders: %.1f bytes per order with the shared registry,"
+                        + " %.1f bytes with a list and two notifiers of its own;"
+                        + " %.1f bytes (%.0f MB in all) saved%n",
+                orders, orderBytes, listBytes, listBytes - orderBytes,
+                (listBytes - orderBytes) * orders / (1024 * 1024));
+        // Keep everything reachable until the last reading
+        if (created[orders - 1] == null || perOrderObservers[orders - 1] == null) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static long liveHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // Repeated until the reading settles, since one request may not collect everything
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
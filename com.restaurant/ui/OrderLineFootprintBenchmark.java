@@ -0,0 +1,136 @@
+package ui;
+
+import application.MenuService;
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
+import domain.model.MenuItemSnapshot;
+import domain.model.OrderItem;
+import domain.service.PriceRule;
+import infrastructure.persistence.InMemoryMenuRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Measures the heap that order lines take when their prices must stay as
+ * they were when ordered. A menu is repriced once a day for a month; lines
+ * are spread over those days and built three ways, one at a time:
+ * <ul>
+ *   <li>lines sharing the catalog's snapshot of the item, as orders do now;</li>
+ *   <li>lines with a snapshot of their own, which is what the snapshots
+ *       would cost if they were not shared;</li>
+ *   <li>lines with their own copy of the menu item, which is what keeping
+ *       old prices took while lines referred to live menu items.</li>
+ * </ul>
+ * Each figure is the live heap after full collections, divided by the lines.
+ *
+ * Usage: {@code OrderLineFootprintBenchmark [lines]}, by default 10000000.
+ * Ten million lines of the larger layouts need about 750 MB, so run with a
+ * fixed heap of a few GB (e.g. {@code -Xms3g -Xmx3g}). Menu item copies
+ * share their strings with the original, so the last figure is a lower
+ * bound.
+ */
+public class OrderLineFootprintBenchmark {
+    private static final int MENU_ITEMS = 200;
+    private static final int DAYS = 30;
+
+    private final int lines;
+
+    public OrderLineFootprintBenchmark(int lines) {
+        if (lines <= 0) {
+            throw new IllegalArgumentException("Lines must be greater than zero");
+        }
+        this.lines = lines;
+    }
+
+    public static void main(String[] args) {
+        int lines = args.length > 0 ? Integer.parseInt(args[0]) : 10_000_000;
+        new OrderLineFootprintBenchmark(lines).run();
+    }
+
+    // An order line as it was before snapshots: the menu item itself, which had to be copied to keep its price
+    private static final class LiveItemLine {
+        final MenuItem item;
+        final int quantity;
+
+        LiveItemLine(MenuItem item, int quantity) {
+            this.item = item;
+            this.quantity = quantity;
+        }
+    }
+
+    public void run() {
+        InMemoryMenuRepository menuRepository = new InMemoryMenuRepository(DAYS);
+        MenuService menuService = new MenuService(menuRepository);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < MENU_ITEMS; i++) {
+            ids.add(menuService.addMenuItem("main", "Dish " + i, 5 + i * 0.25, "House special number " + i
+                    + ", served with seasonal sides", false).getId());
+        }
+        List<MenuCatalog> catalogs = new ArrayList<>();
+        for (int day = 0; day < DAYS; day++) {
+            catalogs.add(menuService.repriceMenu(List.of(PriceRule.percentage(1))));
+        }
+        System.out.printf("%d lines over %d catalogs of %d items%n", lines, DAYS, MENU_ITEMS);
+
+        Random random = new Random(7);
+        long before = liveHeap();
+        OrderItem[] shared = new OrderItem[lines];
+        for (int i = 0; i < lines; i++) {
+            MenuCatalog catalog = catalogs.get((int) ((long) i * DAYS / lines));
+            shared[i] = new OrderItem(catalog.getSnapshot(ids.get(random.nextInt(MENU_ITEMS))).get(),
+                    1 + random.nextInt(3));
+        }
+        report("shared snapshots", before, shared);
+        shared = null;
+
+        random = new Random(7);
+        before = liveHeap();
+        OrderItem[] ownSnapshots = new OrderItem[lines];
+        for (int i = 0; i < lines; i++) {
+            MenuCatalog catalog = catalogs.get((int) ((long) i * DAYS / lines));
+            MenuItemSnapshot snapshot = catalog.getSnapshot(ids.get(random.nextInt(MENU_ITEMS))).get();
+            ownSnapshots[i] = new OrderItem(MenuItemSnapshot.restore(snapshot.getOrdinal(), snapshot.getMenuItemId(),
+                    snapshot.getName(), snapshot.getCategory(), snapshot.getPriceCents(), snapshot.getCatalogVersion()),
+                    1 + random.nextInt(3));
+        }
+        report("a snapshot per line", before, ownSnapshots);
+        ownSnapshots = null;
+
+        random = new Random(7);
+        before = liveHeap();
+        LiveItemLine[] copies = new LiveItemLine[lines];
+        for (int i = 0; i < lines; i++) {
+            MenuCatalog catalog = catalogs.get((int) ((long) i * DAYS / lines));
+            MenuItem item = catalog.findById(ids.get(random.nextInt(MENU_ITEMS))).get();
+            copies[i] = new LiveItemLine(item.copy(), 1 + random.nextInt(3));
+        }
+        report("a menu item copy per line", before, copies);
+    }
+
+    private void report(String layout, long before, Object[] held) {
+        long bytes = liveHeap() - before;
+        System.out.printf("  %-26s: %7.1f bytes per line, %6.0f MB in all%n",
+                layout, bytes / (double) lines, bytes / (1024.0 * 1024));
+        // Keep the lines reachable until the reading is taken
+        if (held[lines - 1] == null) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static long liveHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        long used = Long.MAX_VALUE;
+        // Repeated until the reading settles, since one request may not collect everything
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            long now = runtime.totalMemory() - runtime.freeMemory();
+            if (now >= used) {
+                return now;
+            }
+            used = now;
+        }
+        return used;
+    }
+}
@@ -0,0 +1,157 @@
+package ui;
+
+import domain.model.Customer;
+import domain.model.MenuItemSnapshot;
+import domain.model.Money;
+import domain.model.Order;
+import domain.model.OrderItem;
+import domain.service.discount.DiscountStrategy;
+import domain.service.discount.PercentageDiscount;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Prints a batch of orders, as the daily report does, two ways: with
+ * {@link Order#toString()}, which reads the order's running totals, and
+ * with the same text rebuilt by walking the lines for every figure, as the
+ * order did before it kept totals (subtotal walked five times, the discount
+ * worked out twice). The output of both is compared once and must match.
+ * Each round prints the time per pass, and the time to read just the
+ * subtotal, tax and total of every order, which is what the sales report
+ * needs.
+ *
+ * Usage: {@code OrderPrintingBenchmark [orders] [rounds]}, by default
+ * 100000 orders and 5 rounds.
+ */
+public class OrderPrintingBenchmark {
+    private static final int MENU_ITEMS = 50;
+    private static final int TAX_RATE_BASIS_POINTS = 800;
+    // One order in this many has a discount
+    private static final int DISCOUNT_EVERY = 3;
+
+    private final int orders;
+
+    public OrderPrintingBenchmark(int orders) {
+        if (orders <= 0) {
+            throw new IllegalArgumentException("Orders must be greater than zero");
+        }
+        this.orders = orders;
+    }
+
+    public static void main(String[] args) {
+        int orders = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+        new OrderPrintingBenchmark(orders).run(rounds);
+    }
+
+    public void run(int rounds) {
+        List<Order> batch = orders();
+        for (Order order : batch) {
+            if (!order.toString().equals(recomputed(order))) {
+                throw new IllegalStateException("Printed totals differ for order " + order.getId());
+            }
+        }
+        for (int round = 1; round <= rounds; round++) {
+            long chars = 0;
+            long start = System.nanoTime();
+            for (Order order : batch) {
+                chars += order.toString().length();
+            }
+            double cachedMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            for (Order order : batch) {
+                chars -= recomputed(order).length();
+            }
+            double recomputedMillis = (System.nanoTime() - start) / 1e6;
+            if (chars != 0) {
+                throw new IllegalStateException("Printed text differs in length");
+            }
+            long cents = 0;
+            start = System.nanoTime();
+            for (Order order : batch) {
+                cents += order.calculateSubtotal().getCents() + order.calculateTax().getCents()
+                        + order.calculateTotal().getCents();
+            }
+            double cachedTotalsMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            for (Order order : batch) {
+                cents -= recomputedTotalsCents(order);
+            }
+            double recomputedTotalsMillis = (System.nanoTime() - start) / 1e6;
+            if (cents != 0) {
+                throw new IllegalStateException("Totals differ");
+            }
+            System.out.printf("round %d: %d orders printed with running totals %.0f ms, recomputed %.0f ms (%.2fx);"
+                            + " totals only %.1f ms vs %.1f ms (%.1fx)%n",
+                    round, orders, cachedMillis, recomputedMillis, recomputedMillis / cachedMillis,
+                    cachedTotalsMillis, recomputedTotalsMillis, recomputedTotalsMillis / cachedTotalsMillis);
+        }
+    }
+
+    // Subtotal, tax and total summed, each worked out from the lines as before
+    private static long recomputedTotalsCents(Order order) {
+        List<OrderItem> items = order.getItems();
+        DiscountStrategy discountStrategy = order.getDiscountStrategy();
+        Money tax = subtotal(items).percentage(TAX_RATE_BASIS_POINTS);
+        Money discounted = discountStrategy != null ? discountStrategy.applyDiscount(subtotal(items)) : subtotal(items);
+        Money total = discounted.add(discounted.percentage(TAX_RATE_BASIS_POINTS));
+        return subtotal(items).getCents() + tax.getCents() + total.getCents();
+    }
+
+    // Same text as Order.toString(), with every total worked out from the lines again
+    private static String recomputed(Order order) {
+        List<OrderItem> items = order.getItems();
+        DiscountStrategy discountStrategy = order.getDiscountStrategy();
+        StringBuilder sb = new StringBuilder();
+        sb.append("Order #").append(order.getId().substring(0, 8)).append("\n");
+        sb.append("Customer: ").append(order.getCustomer().getName()).append("\n");
+        sb.append("Status: ").append(order.getStatus()).append("\n");
+        sb.append("Items:\n");
+        for (OrderItem item : items) {
+            sb.append("  ").append(item).append("\n");
+        }
+        sb.append("Subtotal: $").append(subtotal(items)).append("\n");
+        if (discountStrategy != null) {
+            Money discount = subtotal(items).subtract(discountStrategy.applyDiscount(subtotal(items)));
+            sb.append("Discount: -$").append(discount).append("\n");
+        }
+        sb.append("Tax: $").append(subtotal(items).percentage(TAX_RATE_BASIS_POINTS)).append("\n");
+        Money discounted = discountStrategy != null ? discountStrategy.applyDiscount(subtotal(items)) : subtotal(items);
+        sb.append("Total: $").append(discounted.add(discounted.percentage(TAX_RATE_BASIS_POINTS))).append("\n");
+        return sb.toString();
+    }
+
+    private static Money subtotal(List<OrderItem> items) {
+        Money subtotal = Money.ZERO;
+        for (OrderItem item : items) {
+            subtotal = subtotal.add(item.getSubtotal());
+        }
+        return subtotal;
+    }
+
+    // One to six lines of one to three units each
+    private List<Order> orders() {
+        Random random = new Random(7);
+        MenuItemSnapshot[] menu = new MenuItemSnapshot[MENU_ITEMS];
+        for (int i = 0; i < MENU_ITEMS; i++) {
+            menu[i] = MenuItemSnapshot.restore(i, "item-" + i, "Dish " + i, "Main Dish", 450 + 25L * i, 1);
+        }
+        Customer customer = new Customer("Ana", "Main St", "555-0100");
+        DiscountStrategy discount = new PercentageDiscount(10);
+        List<Order> batch = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            Order order = new Order(customer);
+            int lines = 1 + random.nextInt(6);
+            for (int line = 0; line < lines; line++) {
+                order.addItem(menu[random.nextInt(MENU_ITEMS)], 1 + random.nextInt(3));
+            }
+            if (i % DISCOUNT_EVERY == 0) {
+                order.setDiscountStrategy(discount);
+            }
+            batch.add(order);
+        }
+        return batch;
+    }
+}
@@ -0,0 +1,130 @@
+package ui;
+
+import domain.model.Customer;
+import domain.model.Order;
+import domain.model.RestaurantTime;
+import infrastructure.persistence.InMemoryOrderRepository;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+/**
+ * Compares the indexed {@link InMemoryOrderRepository} with a plain list
+ * that is scanned on every query, at growing order histories. Orders are
+ * spread over a year and a few thousand customers; nearly all are delivered,
+ * with a few still in the kitchen, as in a long-running service. Each query
+ * (one day, one customer, orders in Preparing) is run many times per round
+ * and its average time printed, along with how many orders it returned.
+ *
+ * Usage: {@code OrderRepositoryBenchmark [orderCounts] [rounds]}, by default
+ * {@code 10000,100000,1000000} orders and 3 rounds.
+ */
+public class OrderRepositoryBenchmark {
+    private static final int DAYS = 365;
+    private static final int CUSTOMERS = 5000;
+    // One order in this many is still open, the rest are delivered
+    private static final int OPEN_EVERY = 200;
+    private static final int QUERIES = 200;
+
+    private final int orders;
+
+    public OrderRepositoryBenchmark(int orders) {
+        if (orders <= 0) {
+            throw new IllegalArgumentException("Orders must be greater than zero");
+        }
+        this.orders = orders;
+    }
+
+    public static void main(String[] args) {
+        String counts = args.length > 0 ? args[0] : "10000,100000,1000000";
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        for (String count : counts.split(",")) {
+            new OrderRepositoryBenchmark(Integer.parseInt(count.trim())).run(rounds);
+        }
+    }
+
+    public void run(int rounds) {
+        Customer[] customers = new Customer[CUSTOMERS];
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers[i] = new Customer("Customer " + i, "Main St", "555-" + (100000 + i));
+        }
+        LocalDate firstDay = RestaurantTime.today().minusDays(DAYS - 1);
+        List<Order> history = history(customers, RestaurantTime.epochDay(firstDay));
+        InMemoryOrderRepository repository = new InMemoryOrderRepository();
+        long start = System.nanoTime();
+        repository.saveAll(history);
+        System.out.printf("%d orders: indexed in %.0f ms%n", orders, (System.nanoTime() - start) / 1e6);
+
+        LocalDate day = firstDay.plusDays(DAYS / 2);
+        int epochDay = RestaurantTime.epochDay(day);
+        String customerId = customers[CUSTOMERS / 2].getId();
+        for (int round = 1; round <= rounds; round++) {
+            compare(round, "day", () -> repository.findByDay(day).size(),
+                    history, order -> order.getEpochDay() == epochDay);
+            compare(round, "customer", () -> repository.findByCustomerId(customerId).size(),
+                    history, order -> order.getCustomer().getId().equals(customerId));
+            compare(round, "preparing", () -> repository.findByStatus("Preparing").size(),
+                    history, order -> order.getStatus().equals("Preparing"));
+        }
+    }
+
+    private interface Query {
+        int run();
+    }
+
+    private void compare(int round, String name, Query indexed, List<Order> history, Predicate<Order> filter) {
+        int found = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            found = indexed.run();
+        }
+        double indexedMicros = (System.nanoTime() - start) / 1e3 / QUERIES;
+        int scanned = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < QUERIES; i++) {
+            scanned = scan(history, filter).size();
+        }
+        double scanMicros = (System.nanoTime() - start) / 1e3 / QUERIES;
+        if (found != scanned) {
+            throw new IllegalStateException("Index returned " + found + " orders for " + name
+                    + ", the scan " + scanned);
+        }
+        System.out.printf("  round %d, %-9s: %6d orders, indexed %10.1f us, list scan %10.1f us (%.0fx)%n",
+                round, name, found, indexedMicros, scanMicros, scanMicros / indexedMicros);
+    }
+
+    // What a list-backed repository does for every query
+    private static List<Order> scan(List<Order> history, Predicate<Order> filter) {
+        List<Order> matches = new ArrayList<>();
+        for (Order order : history) {
+            if (filter.test(order)) {
+                matches.add(order);
+            }
+        }
+        return matches;
+    }
+
+    private List<Order> history(Customer[] customers, int firstEpochDay) {
+        Random random = new Random(7);
+        List<Order> history = new ArrayList<>(orders);
+        for (int i = 0; i < orders; i++) {
+            int epochDay = firstEpochDay + (int) ((long) i * DAYS / orders);
+            long createdMillis = epochDay * 86_400_000L + 43_200_000L;
+            Order order = new Order(i + 1, customers[random.nextInt(customers.length)], createdMillis,
+                    epochDay, null);
+            if (i % OPEN_EVERY != 0) {
+                // Received, Preparing, Ready, Delivered
+                for (int step = 0; step < 3; step++) {
+                    order.nextState();
+                }
+            } else if (random.nextBoolean()) {
+                order.nextState();
+            }
+            history.add(order);
+        }
+        return history;
+    }
+}
@@ -0,0 +1,156 @@
+package ui;
+
+import application.CustomerService;
+import application.KitchenBoard;
+import application.MenuService;
+import application.OrderService;
+import application.ReportService;
+import application.SalesReportView;
+import domain.service.OrderProcessingService;
+import infrastructure.persistence.InMemoryCustomerRepository;
+import infrastructure.persistence.InMemoryMenuRepository;
+import infrastructure.persistence.InMemoryOrderRepository;
+import infrastructure.persistence.MappedOrderArchive;
+import infrastructure.persistence.OrderWriteAheadLog;
+import infrastructure.persistence.SnapshotScheduler;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Starts the restaurant with everything kept on disk: the menu and customers
+ * as snapshots, orders in the write-ahead log and delivered orders in the
+ * memory-mapped archive. On start the snapshots are loaded and the order log
+ * replayed; while running, snapshots, archive flushes and log checkpoints
+ * happen in the background, and once more on shutdown.
+ *
+ * Usage: {@code RestaurantApplication [dataDirectory] [port]}, by default
+ * {@code restaurant-data} in the working directory. Without a port the
+ * console runs on standard input and exiting it shuts down. With a port the
+ * terminal server listens on loopback instead until the process is stopped.
+ */
+public class RestaurantApplication implements Closeable {
+    private static final long SNAPSHOT_MINUTES = 1;
+    private static final int COOKS_PER_STATION = 2;
+    private static final long SHUTDOWN_SECONDS = 5;
+
+    private final Path menuSnapshot;
+    private final Path customerSnapshot;
+    private final InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+    private final InMemoryCustomerRepository customerRepository = new InMemoryCustomerRepository();
+    private final MappedOrderArchive archive;
+    private final OrderWriteAheadLog orderLog;
+    private final MenuService menuService;
+    private final CustomerService customerService;
+    private final OrderService orderService;
+    private final ReportService reportService;
+    private final KitchenBoard kitchenBoard = new KitchenBoard();
+    private final OrderProcessingService kitchen;
+    private final SnapshotScheduler snapshots;
+    private boolean closed;
+
+    public RestaurantApplication(Path dataDirectory) {
+        try {
+            Files.createDirectories(dataDirectory);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create data directory " + dataDirectory, e);
+        }
+        menuSnapshot = dataDirectory.resolve("menu.snap");
+        customerSnapshot = dataDirectory.resolve("customers.snap");
+        // Orders refer to menu ordinals and customers, so those are loaded before the log is replayed
+        menuRepository.loadSnapshot(menuSnapshot);
+        customerRepository.loadSnapshot(customerSnapshot);
+        archive = new MappedOrderArchive(dataDirectory.resolve("archive"));
+        orderLog = new OrderWriteAheadLog(dataDirectory.resolve("orders"));
+
+        menuService = new MenuService(menuRepository);
+        customerService = new CustomerService(customerRepository);
+        orderService = new OrderService(new InMemoryOrderRepository(), customerRepository, menuRepository, orderLog);
+        SalesReportView salesView = new SalesReportView(archive);
+        orderService.addGlobalObserver(salesView);
+        reportService = new ReportService(salesView);
+        // Before any notifier is registered, so customers are not told about old orders again
+        orderService.recover();
+
+        kitchen = new OrderProcessingService(COOKS_PER_STATION, kitchenBoard, orderService::advanceOrder);
+        // The archive is flushed before the checkpoint, which forgets the evicted orders
+        snapshots = new SnapshotScheduler(SNAPSHOT_MINUTES, TimeUnit.MINUTES, List.of(
+                () -> menuRepository.saveSnapshot(menuSnapshot),
+                () -> customerRepository.saveSnapshot(customerSnapshot),
+                orderService::evictDeliveredOrders,
+                archive::flush,
+                orderService::checkpoint));
+    }
+
+    public static void main(String[] args) throws Exception {
+        Path dataDirectory = Paths.get(args.length > 0 ? args[0] : "restaurant-data");
+        RestaurantApplication application = new RestaurantApplication(dataDirectory);
+        if (args.length > 1) {
+            application.serve(Integer.parseInt(args[1]));
+        } else {
+            try (application) {
+                application.newConsole().start();
+            }
+        }
+    }
+
+    public RestaurantConsoleApp newConsole() {
+        return new RestaurantConsoleApp(menuService, orderService, customerService, reportService,
+                kitchen, kitchenBoard);
+    }
+
+    public RestaurantServer newServer() {
+        return new RestaurantServer(menuService, orderService, customerService, reportService,
+                kitchen, kitchenBoard);
+    }
+
+    // Runs the terminal server until the process is stopped, then shuts down cleanly
+    public void serve(int port) throws InterruptedException {
+        RestaurantServer server = newServer();
+        server.start(port);
+        System.out.println("Restaurant server listening on port " + server.getPort());
+        CountDownLatch stopped = new CountDownLatch(1);
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            server.close();
+            close();
+            stopped.countDown();
+        }, "restaurant-shutdown"));
+        stopped.await();
+    }
+
+    /**
+     * Stops the background snapshots and the kitchen, takes a last snapshot
+     * and checkpoint, and closes the order log and archive.
+     */
+    @Override
+    public synchronized void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            snapshots.shutdown(SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+            // Lines still on the kitchen screen are abandoned; their orders stay in Preparing
+            kitchen.shutdown(SHUTDOWN_SECONDS, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        snapshots.runAll();
+        if (snapshots.getLastFailure() != null) {
+            System.err.println("Last snapshot failed: " + snapshots.getLastFailure().getMessage());
+        }
+        if (kitchen.getLastAdvanceFailure() != null) {
+            System.err.println(kitchen.getFailedAdvanceCount() + " orders could not be advanced by the kitchen, last: "
+                    + kitchen.getLastAdvanceFailure().getMessage());
+        }
+        orderLog.close();
+        archive.close();
+    }
+}
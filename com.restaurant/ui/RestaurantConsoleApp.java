@@ -1,40 +1,73 @@
 package ui;
 
 import application.CustomerService;
+import application.KitchenBoard;
 import application.MenuService;
 import application.OrderService;
 import application.ReportService;
 import domain.decorator.ExtraToppingDecorator;
 import domain.decorator.SideItemDecorator;
 import domain.model.Customer;
+import domain.model.MenuCatalog;
 import domain.model.MenuItem;
+import domain.model.Money;
 import domain.model.Order;
+import domain.model.RestaurantTime;
+import domain.service.OrderProcessingService;
+import domain.service.PriceRule;
 import domain.service.discount.FixedDiscount;
 import domain.service.discount.NoDiscount;
 import domain.service.discount.PercentageDiscount;
 import infrastructure.notification.ConsoleNotifier;
 import infrastructure.notification.EmailNotifier;
+import infrastructure.notification.OrderNotifier;
 
-import java.text.ParseException;
-import java.text.SimpleDateFormat;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.time.temporal.TemporalAdjusters;
 import java.util.*;
 
 public class RestaurantConsoleApp {
+    private static final DateTimeFormatter DATE_FORMAT = DateTimeFormatter.ofPattern("MM/dd/yyyy");
+
     private final Scanner scanner;
     private final MenuService menuService;
     private final OrderService orderService;
     private final CustomerService customerService;
     private final ReportService reportService;
+    // Both null when no kitchen is attached
+    private final OrderProcessingService kitchen;
+    private final KitchenBoard kitchenBoard;
     private boolean running;
 
     public RestaurantConsoleApp(MenuService menuService, OrderService orderService,
                                CustomerService customerService, ReportService reportService) {
+        this(menuService, orderService, customerService, reportService, null, null);
+    }
+
+    // The kitchen's cook must be the board, so lines sent to the kitchen show up on the kitchen screen
+    public RestaurantConsoleApp(MenuService menuService, OrderService orderService,
+                               CustomerService customerService, ReportService reportService,
+                               OrderProcessingService kitchen, KitchenBoard kitchenBoard) {
+        if ((kitchen == null) != (kitchenBoard == null)) {
+            throw new IllegalArgumentException("A kitchen needs its board, and a board its kitchen");
+        }
+        this.kitchen = kitchen;
+        this.kitchenBoard = kitchenBoard;
         this.scanner = new Scanner(System.in);
         this.menuService = menuService;
         this.orderService = orderService;
         this.customerService = customerService;
         this.reportService = reportService;
         this.running = true;
+        
+        // One set of notifiers follows every order; email is sent off the console thread
+        OrderNotifier emailNotifier = new OrderNotifier();
+        emailNotifier.subscribe(new EmailNotifier());
+        orderService.addGlobalObserver(new ConsoleNotifier());
+        orderService.addGlobalObserver(emailNotifier);
     }
 
     public void start() {
@@ -42,8 +75,10 @@ public class RestaurantConsoleApp {
         System.out.println("WELCOME TO RESTAURANT ORDER MANAGEMENT SYSTEM");
         System.out.println("=================================================");
         
-        // Add some sample data
-        initializeSampleData();
+        // Add some sample data, unless a saved menu was loaded
+        if (menuService.getAllMenuItems().isEmpty()) {
+            initializeSampleData();
+        }
         
         while (running) {
             displayMainMenu();
@@ -93,6 +128,7 @@ public class RestaurantConsoleApp {
             System.out.println("2. Add New Menu Item");
             System.out.println("3. Edit Menu Item");
             System.out.println("4. Remove Menu Item");
+            System.out.println("5. Reprice Menu");
             System.out.println("0. Back to Main Menu");
             
             int choice = getIntInput("Enter your choice: ");
@@ -109,6 +145,9 @@ public class RestaurantConsoleApp {
                 case 4:
                     removeMenuItem();
                     break;
+                case 5:
+                    repriceMenu();
+                    break;
                 case 0:
                     subMenuRunning = false;
                     break;
@@ -119,29 +158,23 @@ public class RestaurantConsoleApp {
     }
 
     private void displayAllMenuItems() {
-        List<MenuItem> menuItems = menuService.getAllMenuItems();
-        if (menuItems.isEmpty()) {
+        MenuCatalog catalog = menuService.getCatalog();
+        if (catalog.getItems().isEmpty()) {
             System.out.println("No menu items found.");
             return;
         }
         
         System.out.println("\n=== MENU ITEMS ===");
-        Map<String, List<MenuItem>> itemsByCategory = new HashMap<>();
-        
-        // Group items by category
-        for (MenuItem item : menuItems) {
-            String category = item.getCategory();
-            if (!itemsByCategory.containsKey(category)) {
-                itemsByCategory.put(category, new ArrayList<>());
-            }
-            itemsByCategory.get(category).add(item);
-        }
+        // The catalog is already grouped by category
+        Map<String, List<MenuItem>> itemsByCategory = catalog.getItemsByCategory();
         
         // Display items by category
         for (String category : itemsByCategory.keySet()) {
             System.out.println("\n" + category.toUpperCase() + ":");
             for (MenuItem item : itemsByCategory.get(category)) {
-                System.out.println(item.getId().substring(0, 8) + " | " + item);
+                // The price a repricing published, not the item's own
+                System.out.println(item.getId().substring(0, 8) + " | " + item.getName() + " | "
+                        + catalog.getSnapshot(item.getId()).get().getPrice() + " | " + item.getDescription());
             }
         }
     }
@@ -198,13 +231,14 @@ public class RestaurantConsoleApp {
         displayAllMenuItems();
         String itemId = getStringInput("\nEnter item ID to edit: ");
         
-        Optional<MenuItem> itemOpt = menuService.getMenuItemById(itemId);
+        Optional<MenuItem> itemOpt = findMenuItem(itemId);
         if (!itemOpt.isPresent()) {
             System.out.println("Menu item not found.");
             return;
         }
         
-        MenuItem item = itemOpt.get();
+        // The listed item is shared with older catalogs, so the edits go to a copy
+        MenuItem item = itemOpt.get().copy();
         System.out.println("\nEditing: " + item);
         
         String name = getStringInput("Enter new name (or press Enter to keep current): ");
@@ -216,7 +250,7 @@ public class RestaurantConsoleApp {
         if (!priceStr.isEmpty()) {
             try {
                 double price = Double.parseDouble(priceStr);
-                item.setPrice(price);
+                item.setPrice(Money.of(price));
             } catch (NumberFormatException e) {
                 System.out.println("Invalid price format. Price not updated.");
             }
@@ -243,6 +277,26 @@ public class RestaurantConsoleApp {
         }
     }
 
+    private void repriceMenu() {
+        String category = getStringInput("Category to reprice (or press Enter for the whole menu): ");
+        String target = category.isEmpty() ? null : category;
+        double percentage = getDoubleInput("Enter price change percentage (negative to lower prices): ");
+        String ending = getStringInput("Round to prices ending in how many cents, e.g. 99 (or press Enter to skip): ");
+
+        try {
+            List<PriceRule> rules = new ArrayList<>();
+            rules.add(PriceRule.percentage(target, percentage));
+            if (!ending.isEmpty()) {
+                rules.add(PriceRule.endingIn(target, Integer.parseInt(ending)));
+            }
+            MenuCatalog catalog = menuService.repriceMenu(rules);
+            System.out.println("Menu repriced: " + rules);
+            System.out.println("Open orders keep their current prices. Menu version is now " + catalog.getVersion() + ".");
+        } catch (Exception e) {
+            System.out.println("Error repricing menu: " + e.getMessage());
+        }
+    }
+
     // ===== ORDER MANAGEMENT =====
     private void orderManagementMenu() {
         boolean subMenuRunning = true;
@@ -254,6 +308,10 @@ public class RestaurantConsoleApp {
             System.out.println("4. Apply Discount");
             System.out.println("5. Progress Order Status");
             System.out.println("6. View Order Details");
+            if (kitchen != null) {
+                System.out.println("7. Send Order to Kitchen");
+                System.out.println("8. Kitchen Screen");
+            }
             System.out.println("0. Back to Main Menu");
             
             int choice = getIntInput("Enter your choice: ");
@@ -276,6 +334,20 @@ public class RestaurantConsoleApp {
                 case 6:
                     viewOrderDetails();
                     break;
+                case 7:
+                    if (kitchen == null) {
+                        System.out.println("Invalid choice. Please try again.");
+                    } else {
+                        sendOrderToKitchen();
+                    }
+                    break;
+                case 8:
+                    if (kitchen == null) {
+                        System.out.println("Invalid choice. Please try again.");
+                    } else {
+                        kitchenScreen();
+                    }
+                    break;
                 case 0:
                     subMenuRunning = false;
                     break;
@@ -296,7 +368,7 @@ public class RestaurantConsoleApp {
         for (Order order : orders) {
             System.out.println(order.getId().substring(0, 8) + " | Customer: " + 
                 order.getCustomer().getName() + " | Status: " + order.getStatus() + 
-                " | Total: $" + String.format("%.2f", order.calculateTotal()));
+                " | Total: $" + order.calculateTotal());
         }
     }
 
@@ -341,10 +413,6 @@ public class RestaurantConsoleApp {
             return;
         }
         
-        // Add observers to the order
-        orderService.addOrderObserver(order.getId(), new ConsoleNotifier());
-        orderService.addOrderObserver(order.getId(), new EmailNotifier());
-        
         System.out.println("Order created successfully! Order ID: " + order.getId().substring(0, 8));
     }
 
@@ -352,7 +420,7 @@ public class RestaurantConsoleApp {
         displayAllOrders();
         String orderId = getStringInput("\nEnter order ID: ");
         
-        Optional<Order> orderOpt = orderService.getOrderById(orderId);
+        Optional<Order> orderOpt = findOrder(orderId);
         if (!orderOpt.isPresent()) {
             System.out.println("Order not found.");
             return;
@@ -368,7 +436,7 @@ public class RestaurantConsoleApp {
                 continue;
             }
             
-            Optional<MenuItem> menuItemOpt = menuService.getMenuItemById(menuItemId);
+            Optional<MenuItem> menuItemOpt = findMenuItem(menuItemId);
             if (!menuItemOpt.isPresent()) {
                 System.out.println("Menu item not found.");
                 continue;
@@ -397,7 +465,7 @@ public class RestaurantConsoleApp {
             int quantity = getIntInput("Enter quantity: ");
             
             try {
-                orderService.addItemToOrder(orderId, menuItem.getId(), quantity);
+                orderService.addItemToOrder(orderId, menuItem, quantity);
                 System.out.println("Item added to order successfully!");
             } catch (Exception e) {
                 System.out.println("Error adding item to order: " + e.getMessage());
@@ -412,7 +480,7 @@ public class RestaurantConsoleApp {
         displayAllOrders();
         String orderId = getStringInput("\nEnter order ID: ");
         
-        Optional<Order> orderOpt = orderService.getOrderById(orderId);
+        Optional<Order> orderOpt = findOrder(orderId);
         if (!orderOpt.isPresent()) {
             System.out.println("Order not found.");
             return;
@@ -422,6 +490,7 @@ public class RestaurantConsoleApp {
         System.out.println("1. Percentage Discount");
         System.out.println("2. Fixed Amount Discount");
         System.out.println("3. No Discount");
+        System.out.println("4. Active Promotions");
         
         int discountChoice = getIntInput("Enter your choice: ");
         
@@ -441,6 +510,10 @@ public class RestaurantConsoleApp {
                     orderService.applyDiscount(orderId, new NoDiscount());
                     System.out.println("No discount applied to order.");
                     break;
+                case 4:
+                    orderService.applyPromotions(orderId);
+                    System.out.println("Active promotions applied to order!");
+                    break;
                 default:
                     System.out.println("Invalid choice.");
             }
@@ -464,11 +537,54 @@ public class RestaurantConsoleApp {
         }
     }
 
+    // The kitchen moves the order to Preparing and Ready as its lines are made
+    private void sendOrderToKitchen() {
+        displayAllOrders();
+        String orderId = getStringInput("\nEnter order ID: ");
+        Optional<Order> order = findOrder(orderId);
+        if (!order.isPresent()) {
+            System.out.println("Order not found.");
+            return;
+        }
+        int priority = getIntInput("Priority (0 for normal, higher goes first): ");
+        try {
+            kitchen.submit(order.get(), priority);
+            System.out.println("Order sent to the kitchen.");
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            System.out.println("Error sending order to the kitchen: " + e.getMessage());
+        }
+    }
+
+    private void kitchenScreen() {
+        while (true) {
+            List<KitchenBoard.Entry> lines = kitchenBoard.getInProgress();
+            if (lines.isEmpty()) {
+                System.out.println("No lines are being prepared.");
+                return;
+            }
+            System.out.println("\n=== KITCHEN ===");
+            for (KitchenBoard.Entry entry : lines) {
+                System.out.println(entry.getNumber() + " | " + entry.getStation() + " | Order "
+                        + entry.getOrderId().substring(0, 8) + " | " + entry.getLine().getQuantity()
+                        + "x " + entry.getLine().getItem().getDisplayName());
+            }
+            String number = getStringInput("Line number to mark done (blank to go back): ");
+            if (number.isEmpty()) {
+                return;
+            }
+            try {
+                kitchenBoard.markDone(Long.parseLong(number));
+            } catch (IllegalArgumentException e) {
+                System.out.println("Error: " + e.getMessage());
+            }
+        }
+    }
+
     private void viewOrderDetails() {
         displayAllOrders();
         String orderId = getStringInput("\nEnter order ID: ");
         
-        Optional<Order> orderOpt = orderService.getOrderById(orderId);
+        Optional<Order> orderOpt = findOrder(orderId);
         if (!orderOpt.isPresent()) {
             System.out.println("Order not found.");
             return;
@@ -544,7 +660,7 @@ public class RestaurantConsoleApp {
         displayAllCustomers();
         String customerId = getStringInput("\nEnter customer ID to edit: ");
         
-        Optional<Customer> customerOpt = customerService.getCustomerById(customerId);
+        Optional<Customer> customerOpt = findCustomer(customerId);
         if (!customerOpt.isPresent()) {
             System.out.println("Customer not found.");
             return;
@@ -584,7 +700,17 @@ public class RestaurantConsoleApp {
             System.out.println("Address: " + customer.getAddress());
             System.out.println("Phone: " + customer.getPhone());
         } else {
-            System.out.println("No customer found with that phone number.");
+            // Staff often only catch the last few digits
+            List<Customer> matches = customerService.findCustomersByPhoneEnding(phone, 10);
+            if (matches.isEmpty()) {
+                System.out.println("No customer found with that phone number.");
+                return;
+            }
+            System.out.println("\nCustomers whose phone ends with " + phone + ":");
+            for (Customer customer : matches) {
+                System.out.println(customer.getId().substring(0, 8) + " | " + customer.getName() + 
+                    " | " + customer.getPhone());
+            }
         }
     }
 
@@ -596,6 +722,7 @@ public class RestaurantConsoleApp {
             System.out.println("1. Daily Sales Report");
             System.out.println("2. Most Popular Items");
             System.out.println("3. Revenue by Category");
+            System.out.println("4. Sales Report for a Period");
             System.out.println("0. Back to Main Menu");
             
             int choice = getIntInput("Enter your choice: ");
@@ -609,6 +736,9 @@ public class RestaurantConsoleApp {
                 case 3:
                     generateRevenueByCategoryReport();
                     break;
+                case 4:
+                    generatePeriodSalesReport();
+                    break;
                 case 0:
                     subMenuRunning = false;
                     break;
@@ -619,26 +749,26 @@ public class RestaurantConsoleApp {
     }
 
     private void generateDailySalesReport() {
-        Date date = getDateInput("Enter date (MM/dd/yyyy): ");
+        LocalDate date = getDateInput("Enter date (MM/dd/yyyy): ");
         if (date == null) {
             return;
         }
         
-        String report = reportService.generateDailySalesReport(date);
+        String report = reportService.generateSalesReport(date, date);
         System.out.println(report);
     }
 
     private void generateMostPopularItemsReport() {
-        Date date = getDateInput("Enter date (MM/dd/yyyy): ");
+        LocalDate date = getDateInput("Enter date (MM/dd/yyyy): ");
         if (date == null) {
             return;
         }
         
         int limit = getIntInput("Enter number of top items to display: ");
-        Map<String, Integer> popularItems = reportService.getMostPopularItems(date, limit);
+        Map<String, Integer> popularItems = reportService.getMostPopularItems(date, date, limit);
         
         System.out.println("\n=== MOST POPULAR ITEMS ===");
-        System.out.println("Date: " + date);
+        System.out.println("Date: " + DATE_FORMAT.format(date));
         
         if (popularItems.isEmpty()) {
             System.out.println("No data available for the selected date.");
@@ -653,28 +783,82 @@ public class RestaurantConsoleApp {
     }
 
     private void generateRevenueByCategoryReport() {
-        Date date = getDateInput("Enter date (MM/dd/yyyy): ");
+        LocalDate date = getDateInput("Enter date (MM/dd/yyyy): ");
         if (date == null) {
             return;
         }
         
-        Map<String, Double> categoryRevenue = reportService.getRevenueByCategory(date);
+        Map<String, Money> categoryRevenue = reportService.getRevenueByCategory(date, date);
         
         System.out.println("\n=== REVENUE BY CATEGORY ===");
-        System.out.println("Date: " + date);
+        System.out.println("Date: " + DATE_FORMAT.format(date));
         
         if (categoryRevenue.isEmpty()) {
             System.out.println("No data available for the selected date.");
             return;
         }
         
-        double totalRevenue = 0;
-        for (Map.Entry<String, Double> entry : categoryRevenue.entrySet()) {
-            System.out.println(entry.getKey() + ": $" + String.format("%.2f", entry.getValue()));
-            totalRevenue += entry.getValue();
+        Money totalRevenue = Money.ZERO;
+        for (Map.Entry<String, Money> entry : categoryRevenue.entrySet()) {
+            System.out.println(entry.getKey() + ": $" + entry.getValue());
+            totalRevenue = totalRevenue.add(entry.getValue());
         }
         
-        System.out.println("\nTotal Revenue: $" + String.format("%.2f", totalRevenue));
+        System.out.println("\nTotal Revenue: $" + totalRevenue);
+    }
+
+    private void generatePeriodSalesReport() {
+        System.out.println("1. Week containing a date");
+        System.out.println("2. Month containing a date");
+        System.out.println("3. Year to date");
+        System.out.println("4. Custom range");
+        int choice = getIntInput("Enter your choice: ");
+
+        LocalDate from;
+        LocalDate to;
+        switch (choice) {
+            case 1: {
+                LocalDate date = getDateInput("Enter date (MM/dd/yyyy): ");
+                if (date == null) {
+                    return;
+                }
+                from = date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                to = from.plusDays(6);
+                break;
+            }
+            case 2: {
+                LocalDate date = getDateInput("Enter date (MM/dd/yyyy): ");
+                if (date == null) {
+                    return;
+                }
+                from = date.withDayOfMonth(1);
+                to = date.with(TemporalAdjusters.lastDayOfMonth());
+                break;
+            }
+            case 3:
+                to = RestaurantTime.today();
+                from = to.withDayOfYear(1);
+                break;
+            case 4:
+                from = getDateInput("Enter start date (MM/dd/yyyy): ");
+                if (from == null) {
+                    return;
+                }
+                to = getDateInput("Enter end date (MM/dd/yyyy): ");
+                if (to == null) {
+                    return;
+                }
+                if (to.isBefore(from)) {
+                    System.out.println("End date must not be before start date.");
+                    return;
+                }
+                break;
+            default:
+                System.out.println("Invalid choice.");
+                return;
+        }
+
+        System.out.println(reportService.generateSalesReport(from, to));
     }
 
     // ===== HELPER METHODS =====
@@ -719,14 +903,41 @@ public class RestaurantConsoleApp {
         }
     }
     
-    private Date getDateInput(String prompt) {
-        SimpleDateFormat dateFormat = new SimpleDateFormat("MM/dd/yyyy");
+    // Short IDs can match several entities; report that instead of failing the menu
+    private Optional<Order> findOrder(String orderId) {
+        try {
+            return orderService.getOrderById(orderId);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private Optional<MenuItem> findMenuItem(String menuItemId) {
+        try {
+            return menuService.getMenuItemById(menuItemId);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private Optional<Customer> findCustomer(String customerId) {
+        try {
+            return customerService.getCustomerById(customerId);
+        } catch (IllegalArgumentException e) {
+            System.out.println(e.getMessage());
+            return Optional.empty();
+        }
+    }
+    
+    private LocalDate getDateInput(String prompt) {
         while (true) {
             try {
                 System.out.print(prompt);
                 String input = scanner.nextLine().trim();
-                return dateFormat.parse(input);
-            } catch (ParseException e) {
+                return LocalDate.parse(input, DATE_FORMAT);
+            } catch (DateTimeParseException e) {
                 System.out.println("Invalid date format. Please use MM/dd/yyyy.");
                 String retry = getStringInput("Try again? (y/n): ");
                 if (!retry.equalsIgnoreCase("y")) {
@@ -742,46 +953,19 @@ public class RestaurantConsoleApp {
         menuService.addMenuItem("main", "Beef Steak", 24.99, "Premium cut beef steak", false);
         menuService.addMenuItem("main", "Vegetable Pasta", 12.99, "Pasta with seasonal vegetables", false);
         
-        menuService.addMenuItem("appetizer", "Caesar Salad", 8.99, "Fresh romaine lett
-
-    public String getId() {
-        return id;
-    }
-
-    public String getName() {
-        return name;
-    }
-
-    public void setName(String name) {
-        this.name = name;
-    }
-
-    public double getPrice() {
-        return price;
-    }
-
-    public void setPrice(double price) {
-        this.price = price;
-    }
-
-    public String getCategory() {
-        return category;
-    }
-
-    public void setCategory(String category) {
-        this.category = category;
-    }
-
-    public String getDescription() {
-        return description;
-    }
-
-    public void setDescription(String description) {
-        this.description = description;
-    }
-
-    @Override
-    public String toString() {
-        return name + " - $" + String.format("%.2f", price) + " (" + description + ")";
+        menuService.addMenuItem("appetizer", "Caesar Salad", 8.99, "Fresh romaine lettuce with Caesar dressing", true);
+        menuService.addMenuItem("appetizer", "Garlic Bread", 5.99, "Toasted bread with garlic butter", true);
+        menuService.addMenuItem("appetizer", "Chicken Wings", 10.99, "Spicy buffalo wings", false);
+        
+        menuService.addMenuItem("beverage", "Soda", 2.49, "Assorted soft drinks", false);
+        menuService.addMenuItem("beverage", "Red Wine", 7.99, "Glass of house red wine", true);
+        menuService.addMenuItem("beverage", "Iced Tea", 2.99, "Freshly brewed iced tea", false);
+        
+        menuService.addMenuItem("dessert", "Chocolate Cake", 6.99, "Rich chocolate layer cake", false);
+        menuService.addMenuItem("dessert", "Pecan Pie", 5.99, "Classic southern pecan pie", true);
+        
+        // Add sample customers
+        customerService.addCustomer("John Doe", "123 Main St", "555-1234");
+        customerService.addCustomer("Jane Smith", "456 Oak Ave", "555-5678");
     }
 }
@@ -0,0 +1,179 @@
+package ui;
+
+import application.CustomerService;
+import application.MenuService;
+import application.OrderService;
+import application.ReportService;
+import application.SalesReportView;
+import domain.repository.OrderJournal;
+import infrastructure.persistence.InMemoryCustomerRepository;
+import infrastructure.persistence.InMemoryMenuRepository;
+import infrastructure.persistence.InMemoryOrderRepository;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Local load test for {@link RestaurantServer}. Starts a server on a free
+ * loopback port with an in-memory sample menu, then has many simulated
+ * terminals each open a connection and run a host-stand, kitchen and cashier
+ * workflow: create an order, add items, read the menu, advance the order to
+ * delivered, read it back and now and then pull a report. Prints throughput
+ * and the p50, p99 and worst request latency.
+ *
+ * Usage: {@code RestaurantLoadGenerator [terminals] [rounds] [thinkMillis]},
+ * by default 200 terminals, 20 rounds each and 20 ms of think time on average.
+ */
+public class RestaurantLoadGenerator {
+    private static final int MENU_ITEMS = 30;
+    private static final int THREAD_STACK_BYTES = 256 * 1024;
+
+    private final int terminals;
+    private final int rounds;
+    private final int thinkMillis;
+
+    public RestaurantLoadGenerator(int terminals, int rounds, int thinkMillis) {
+        if (terminals <= 0 || rounds <= 0 || thinkMillis < 0) {
+            throw new IllegalArgumentException("Terminals and rounds must be greater than zero, think time not negative");
+        }
+        this.terminals = terminals;
+        this.rounds = rounds;
+        this.thinkMillis = thinkMillis;
+    }
+
+    public static void main(String[] args) throws Exception {
+        int terminals = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int rounds = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        int thinkMillis = args.length > 2 ? Integer.parseInt(args[2]) : 20;
+        new RestaurantLoadGenerator(terminals, rounds, thinkMillis).run();
+    }
+
+    public void run() throws Exception {
+        InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+        InMemoryCustomerRepository customerRepository = new InMemoryCustomerRepository();
+        MenuService menuService = new MenuService(menuRepository);
+        CustomerService customerService = new CustomerService(customerRepository);
+        OrderService orderService = new OrderService(new InMemoryOrderRepository(), customerRepository,
+                menuRepository, OrderJournal.NONE);
+        SalesReportView salesView = new SalesReportView();
+        orderService.addGlobalObserver(salesView);
+        ReportService reportService = new ReportService(salesView);
+
+        List<String> menuItemIds = new ArrayList<>();
+        for (int i = 0; i < MENU_ITEMS; i++) {
+            menuItemIds.add(menuService.addMenuItem("main", "Dish " + i, 5 + i, "Sample dish", false).getId());
+        }
+
+        try (RestaurantServer server = new RestaurantServer(menuService, orderService, customerService, reportService)) {
+            server.start(0);
+            long[][] latencies = new long[terminals][];
+            AtomicReference<Exception> failure = new AtomicReference<>();
+            List<Thread> threads = new ArrayList<>(terminals);
+            for (int t = 0; t < terminals; t++) {
+                int terminal = t;
+                Thread thread = new Thread(null, () -> {
+                    try {
+                        latencies[terminal] = runTerminal(server.getPort(), terminal, menuItemIds);
+                    } catch (Exception e) {
+                        failure.compareAndSet(null, e);
+                    }
+                }, "terminal-" + t, THREAD_STACK_BYTES);
+                threads.add(thread);
+            }
+            long start = System.nanoTime();
+            for (Thread thread : threads) {
+                thread.start();
+            }
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            long elapsed = System.nanoTime() - start;
+            if (failure.get() != null) {
+                throw failure.get();
+            }
+            report(latencies, elapsed);
+        }
+    }
+
+    // One terminal's session; returns the latency of every request, in nanoseconds
+    private long[] runTerminal(int port, int terminal, List<String> menuItemIds) throws IOException, InterruptedException {
+        Random random = new Random(terminal);
+        List<Long> latencies = new ArrayList<>();
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            socket.setTcpNoDelay(true);
+            BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+            Writer out = new BufferedWriter(new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8));
+            String customerId = call(in, out, latencies,
+                    "ADD_CUSTOMER\tTerminal " + terminal + "\tMain St\t555-" + (100000 + terminal)).get(0);
+            for (int round = 0; round < rounds; round++) {
+                Thread.sleep(random.nextInt(2 * thinkMillis + 1));
+                String orderId = call(in, out, latencies, "CREATE_ORDER\t" + customerId).get(0);
+                call(in, out, latencies, "ADD_ITEM\t" + orderId + "\t"
+                        + menuItemIds.get(random.nextInt(menuItemIds.size())) + "\t" + (1 + random.nextInt(3)));
+                call(in, out, latencies, "ADD_ITEM\t" + orderId + "\t"
+                        + menuItemIds.get(random.nextInt(menuItemIds.size())) + "\t1");
+                call(in, out, latencies, "MENU");
+                for (int step = 0; step < 3; step++) {
+                    call(in, out, latencies, "ADVANCE\t" + orderId);
+                }
+                call(in, out, latencies, "ORDER\t" + orderId);
+                if (round % 5 == 0) {
+                    call(in, out, latencies, "REPORT\t2020-01-01\t2100-12-31");
+                }
+            }
+            call(in, out, latencies, "QUIT");
+        }
+        long[] result = new long[latencies.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = latencies.get(i);
+        }
+        return result;
+    }
+
+    // Sends one request and reads the whole reply, timing the round trip
+    private static List<String> call(BufferedReader in, Writer out, List<Long> latencies, String request)
+            throws IOException {
+        long start = System.nanoTime();
+        out.write(request);
+        out.write('\n');
+        out.flush();
+        String header = in.readLine();
+        if (header == null || !header.startsWith("OK ")) {
+            throw new IOException(request.replace('\t', ' ') + " -> " + header);
+        }
+        int count = Integer.parseInt(header.substring(3));
+        List<String> lines = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            lines.add(in.readLine());
+        }
+        latencies.add(System.nanoTime() - start);
+        return lines;
+    }
+
+    private void report(long[][] latencies, long elapsedNanos) {
+        long[] all = Arrays.stream(latencies).flatMapToLong(Arrays::stream).sorted().toArray();
+        double seconds = elapsedNanos / 1e9;
+        System.out.printf("%d terminals, %d requests in %.1f s (%.0f requests/s)%n",
+                terminals, all.length, seconds, all.length / seconds);
+        System.out.printf("latency p50 %.2f ms, p99 %.2f ms, max %.2f ms%n",
+                percentile(all, 50) / 1e6, percentile(all, 99) / 1e6, all[all.length - 1] / 1e6);
+    }
+
+    // Nearest-rank percentile of sorted values
+    private static long percentile(long[] sorted, int percent) {
+        int rank = (int) Math.ceil(percent / 100.0 * sorted.length);
+        return sorted[Math.max(0, rank - 1)];
+    }
+}
@@ -0,0 +1,412 @@
+package ui;
+
+import application.CustomerService;
+import application.KitchenBoard;
+import application.MenuService;
+import application.OrderService;
+import application.ReportService;
+import domain.model.Customer;
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
+import domain.model.MenuItemSnapshot;
+import domain.model.Money;
+import domain.model.Order;
+import domain.model.OrderItem;
+import domain.service.OrderProcessingService;
+import domain.service.PriceRule;
+import domain.service.discount.DiscountStrategy;
+import domain.service.discount.FixedDiscount;
+import domain.service.discount.NoDiscount;
+import domain.service.discount.PercentageDiscount;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Network front end so the host stand, kitchen screen and cashier can work
+ * against the same services at once. Each request is one line of
+ * tab-separated fields starting with a command, e.g.
+ * {@code ADD_ITEM<TAB>orderId<TAB>menuItemId<TAB>2}. The reply is
+ * {@code OK <n>} followed by n lines of tab-separated fields, or
+ * {@code ERR <message>}. Dates are ISO, e.g. 2024-03-31.
+ *
+ * With a kitchen attached, SEND puts an order on the kitchen's queues,
+ * KITCHEN lists the lines being made and DONE marks one finished; the
+ * kitchen moves the order to Preparing and Ready on its own.
+ *
+ * Every connection has its own thread, which spends nearly all its time
+ * blocked reading the next request. The threads get small stacks so a
+ * thousand terminals fit comfortably.
+ */
+public class RestaurantServer implements Closeable {
+    private static final int THREAD_STACK_BYTES = 256 * 1024;
+    private static final int ACCEPT_BACKLOG = 1024;
+
+    private final MenuService menuService;
+    private final OrderService orderService;
+    private final CustomerService customerService;
+    private final ReportService reportService;
+    // Both null when no kitchen is attached
+    private final OrderProcessingService kitchen;
+    private final KitchenBoard kitchenBoard;
+    private final Set<Socket> connections = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger connectionCount = new AtomicInteger();
+    private ServerSocket serverSocket;
+    private volatile boolean running;
+
+    public RestaurantServer(MenuService menuService, OrderService orderService,
+                            CustomerService customerService, ReportService reportService) {
+        this(menuService, orderService, customerService, reportService, null, null);
+    }
+
+    // The kitchen's cook must be the board, so lines sent to the kitchen show up on KITCHEN
+    public RestaurantServer(MenuService menuService, OrderService orderService,
+                            CustomerService customerService, ReportService reportService,
+                            OrderProcessingService kitchen, KitchenBoard kitchenBoard) {
+        if ((kitchen == null) != (kitchenBoard == null)) {
+            throw new IllegalArgumentException("A kitchen needs its board, and a board its kitchen");
+        }
+        this.menuService = menuService;
+        this.orderService = orderService;
+        this.customerService = customerService;
+        this.reportService = reportService;
+        this.kitchen = kitchen;
+        this.kitchenBoard = kitchenBoard;
+    }
+
+    // Port 0 picks a free port, see getPort(); loopback only unless a bind address is given
+    public synchronized void start(int port) {
+        start(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+    }
+
+    public synchronized void start(InetSocketAddress address) {
+        if (running) {
+            throw new IllegalStateException("Server is already running");
+        }
+        try {
+            serverSocket = new ServerSocket();
+            serverSocket.bind(address, ACCEPT_BACKLOG);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot listen on " + address, e);
+        }
+        running = true;
+        Thread acceptor = new Thread(this::acceptConnections, "restaurant-server");
+        acceptor.setDaemon(true);
+        acceptor.start();
+    }
+
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    public int getConnectionCount() {
+        return connections.size();
+    }
+
+    // Stops accepting and drops every open connection
+    @Override
+    public synchronized void close() {
+        running = false;
+        closeQuietly(serverSocket);
+        for (Socket socket : connections) {
+            closeQuietly(socket);
+        }
+    }
+
+    private void acceptConnections() {
+        while (running) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (IOException e) {
+                if (running) {
+                    System.err.println("Failed to accept connection: " + e.getMessage());
+                    continue;
+                }
+                return;
+            }
+            connections.add(socket);
+            Thread terminal = new Thread(null, () -> serve(socket),
+                    "terminal-" + connectionCount.incrementAndGet(), THREAD_STACK_BYTES);
+            terminal.setDaemon(true);
+            terminal.start();
+        }
+    }
+
+    private void serve(Socket socket) {
+        try (socket;
+             BufferedReader in = new BufferedReader(
+                     new InputStreamReader(socket.getInputStream(), StandardCharsets.UTF_8));
+             Writer out = new BufferedWriter(
+                     new OutputStreamWriter(socket.getOutputStream(), StandardCharsets.UTF_8))) {
+            socket.setTcpNoDelay(true);
+            String line;
+            while ((line = in.readLine()) != null) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                String[] fields = line.split("\t", -1);
+                if (fields[0].equalsIgnoreCase("QUIT")) {
+                    out.write("OK 0\n");
+                    out.flush();
+                    return;
+                }
+                out.write(respond(fields));
+                out.flush();
+            }
+        } catch (SocketException e) {
+            // Closed by the terminal or by close()
+        } catch (IOException e) {
+            System.err.println("Terminal connection failed: " + e.getMessage());
+        } finally {
+            connections.remove(socket);
+        }
+    }
+
+    // Business errors go back to the terminal; the connection stays open
+    private String respond(String[] fields) {
+        List<String> lines = new ArrayList<>();
+        try {
+            handle(fields, lines);
+        } catch (IllegalArgumentException | IllegalStateException | DateTimeParseException e) {
+            return "ERR " + clean(e.getMessage()) + "\n";
+        } catch (RuntimeException e) {
+            System.err.println("Request " + fields[0] + " failed: " + e);
+            return "ERR Internal error\n";
+        }
+        StringBuilder reply = new StringBuilder().append("OK ").append(lines.size()).append('\n');
+        for (String line : lines) {
+            reply.append(line).append('\n');
+        }
+        return reply.toString();
+    }
+
+    private void handle(String[] fields, List<String> reply) {
+        switch (fields[0].toUpperCase()) {
+            case "PING":
+                break;
+
+            // ===== MENU =====
+            case "MENU": {
+                // Prices from the catalog's snapshots, so a repricing shows up all at once
+                MenuCatalog catalog = menuService.getCatalog();
+                for (MenuItem item : catalog.getItems()) {
+                    MenuItemSnapshot snapshot = catalog.getSnapshot(item.getId()).get();
+                    reply.add(row(item.getId(), snapshot.getCategory(), snapshot.getName(), snapshot.getPrice()));
+                }
+                break;
+            }
+            case "ADD_MENU_ITEM": {
+                expect(fields, 6, "ADD_MENU_ITEM type name price description extra");
+                MenuItem item = menuService.addMenuItem(fields[1], fields[2], Double.parseDouble(fields[3]),
+                        fields[4], Boolean.parseBoolean(fields[5]));
+                reply.add(item.getId());
+                break;
+            }
+            case "REMOVE_MENU_ITEM":
+                expect(fields, 2, "REMOVE_MENU_ITEM menuItemId");
+                menuService.removeMenuItem(fields[1]);
+                break;
+            case "REPRICE": {
+                // Empty category means the whole menu; the price ending is optional
+                expect(fields, 2, "REPRICE percentage [category] [endingCents]");
+                String category = fields.length > 2 && !fields[2].isEmpty() ? fields[2] : null;
+                List<PriceRule> rules = new ArrayList<>();
+                rules.add(PriceRule.percentage(category, Double.parseDouble(fields[1])));
+                if (fields.length > 3 && !fields[3].isEmpty()) {
+                    rules.add(PriceRule.endingIn(category, Integer.parseInt(fields[3])));
+                }
+                reply.add(String.valueOf(menuService.repriceMenu(rules).getVersion()));
+                break;
+            }
+
+            // ===== CUSTOMERS =====
+            case "CUSTOMERS":
+                for (Customer customer : customerService.getAllCustomers()) {
+                    reply.add(customerRow(customer));
+                }
+                break;
+            case "ADD_CUSTOMER":
+                expect(fields, 4, "ADD_CUSTOMER name address phone");
+                reply.add(customerService.addCustomer(fields[1], fields[2], fields[3]).getId());
+                break;
+            case "FIND_CUSTOMER": {
+                expect(fields, 2, "FIND_CUSTOMER phone");
+                Optional<Customer> customer = customerService.getCustomerByPhone(fields[1]);
+                customer.ifPresent(found -> reply.add(customerRow(found)));
+                break;
+            }
+
+            // ===== ORDERS =====
+            case "CREATE_ORDER":
+                expect(fields, 2, "CREATE_ORDER customerId");
+                reply.add(orderService.createOrder(fields[1]).getId());
+                break;
+            case "ADD_ITEM":
+                expect(fields, 4, "ADD_ITEM orderId menuItemId quantity");
+                orderService.addItemToOrder(fields[1], fields[2], Integer.parseInt(fields[3]));
+                break;
+            case "DISCOUNT":
+                expect(fields, 3, "DISCOUNT orderId PERCENT|FIXED|NONE [value]");
+                orderService.applyDiscount(fields[1], parseDiscount(fields));
+                break;
+            case "ADVANCE":
+                expect(fields, 2, "ADVANCE orderId");
+                orderService.progressOrderState(fields[1]);
+                reply.add(order(fields[1]).getStatus());
+                break;
+            case "ORDER": {
+                expect(fields, 2, "ORDER orderId");
+                Order order = order(fields[1]);
+                reply.add(orderRow(order));
+                for (OrderItem item : order.getItems()) {
+                    reply.add(row(item.getItem().getName(), item.getQuantity(), item.getSubtotal()));
+                }
+                break;
+            }
+            case "ORDERS":
+                expect(fields, 2, "ORDERS status");
+                for (Order order : orderService.getOrdersByStatus(fields[1])) {
+                    reply.add(orderRow(order));
+                }
+                break;
+
+            // ===== KITCHEN =====
+            case "SEND": {
+                expect(fields, 2, "SEND orderId [priority]");
+                int priority = fields.length > 2 ? Integer.parseInt(fields[2]) : 0;
+                kitchen().submit(order(fields[1]), priority);
+                break;
+            }
+            case "KITCHEN":
+                kitchen();
+                for (KitchenBoard.Entry entry : kitchenBoard.getInProgress()) {
+                    reply.add(row(entry.getNumber(), entry.getStation(), entry.getOrderId(),
+                            entry.getLine().getQuantity(), entry.getLine().getItem().getDisplayName()));
+                }
+                break;
+            case "DONE":
+                expect(fields, 2, "DONE lineNumber");
+                kitchen();
+                kitchenBoard.markDone(Long.parseLong(fields[1]));
+                break;
+
+            // ===== REPORTS =====
+            case "REPORT":
+                expect(fields, 3, "REPORT from to");
+                for (String line : reportService.generateSalesReport(date(fields[1]), date(fields[2])).split("\n")) {
+                    reply.add(line);
+                }
+                break;
+            case "POPULAR": {
+                expect(fields, 4, "POPULAR from to limit");
+                Map<String, Integer> items = reportService.getMostPopularItems(
+                        date(fields[1]), date(fields[2]), Integer.parseInt(fields[3]));
+                items.forEach((name, units) -> reply.add(row(name, units)));
+                break;
+            }
+            case "REVENUE":
+                expect(fields, 3, "REVENUE from to");
+                reportService.getRevenueByCategory(date(fields[1]), date(fields[2]))
+                        .forEach((category, revenue) -> reply.add(row(category, revenue)));
+                break;
+
+            default:
+                throw new IllegalArgumentException("Unknown command: " + fields[0]);
+        }
+    }
+
+    private OrderProcessingService kitchen() {
+        if (kitchen == null) {
+            throw new IllegalStateException("No kitchen is attached to this server");
+        }
+        return kitchen;
+    }
+
+    private Order order(String orderId) {
+        return orderService.getOrderById(orderId)
+                .orElseThrow(() -> new IllegalArgumentException("Order not found: " + orderId));
+    }
+
+    private static DiscountStrategy parseDiscount(String[] fields) {
+        switch (fields[2].toUpperCase()) {
+            case "PERCENT":
+                expect(fields, 4, "DISCOUNT orderId PERCENT value");
+                return new PercentageDiscount(Double.parseDouble(fields[3]));
+            case "FIXED":
+                expect(fields, 4, "DISCOUNT orderId FIXED value");
+                return new FixedDiscount(Double.parseDouble(fields[3]));
+            case "NONE":
+                return new NoDiscount();
+            default:
+                throw new IllegalArgumentException("Invalid discount type: " + fields[2]);
+        }
+    }
+
+    private static LocalDate date(String text) {
+        return LocalDate.parse(text);
+    }
+
+    private static void expect(String[] fields, int count, String usage) {
+        if (fields.length < count) {
+            throw new IllegalArgumentException("Usage: " + usage);
+        }
+    }
+
+    private static String customerRow(Customer customer) {
+        return row(customer.getId(), customer.getName(), customer.getAddress(), customer.getPhone());
+    }
+
+    private static String orderRow(Order order) {
+        Money total = order.calculateTotal();
+        return row(order.getId(), order.getCustomer().getName(), order.getStatus(), total);
+    }
+
+    private static String row(Object... values) {
+        StringBuilder row = new StringBuilder();
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                row.append('\t');
+            }
+            row.append(clean(String.valueOf(values[i])));
+        }
+        return row.toString();
+    }
+
+    // Field values must not break the line framing
+    private static String clean(String value) {
+        return value == null ? "" : value.replace('\t', ' ').replace('\n', ' ').replace('\r', ' ');
+    }
+
+    private static void closeQuietly(Closeable closeable) {
+        if (closeable == null) {
+            return;
+        }
+        try {
+            closeable.close();
+        } catch (IOException e) {
+            // Shutting down anyway
+        }
+    }
+}
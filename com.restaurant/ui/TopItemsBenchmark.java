@@ -0,0 +1,148 @@
+package ui;
+
+import application.ApproximateTopItems;
+import application.ReportService;
+import application.SalesReportView;
+import domain.model.Customer;
+import domain.model.MenuItemSnapshot;
+import domain.model.Order;
+import domain.model.RestaurantTime;
+import domain.state.DeliveredState;
+
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Compares the exact best-seller ranking over a long range, which merges
+ * every rollup's item counts into one map, with the approximate one, which
+ * merges the rollups' bounded sketches. A year of delivered orders is fed
+ * straight to a {@link SalesReportView}; item popularity is Zipf-like over a
+ * long tail of specials, so most items sell only a few times. Prints query
+ * time, entries held while ranking, how many of the true top items the
+ * approximate ranking found, and its worst observed overcount against the
+ * bound it reports.
+ *
+ * Usage: {@code TopItemsBenchmark [distinctItems] [ordersPerDay] [days] [rounds]},
+ * by default 50000 items, 400 orders a day, 365 days and 5 rounds.
+ */
+public class TopItemsBenchmark {
+    private static final int TOP = 10;
+    private static final double ZIPF_EXPONENT = 1.1;
+    // Capacity of the sketch each rollup keeps
+    private static final int SKETCH_COUNTERS = 1024;
+
+    private final int distinctItems;
+    private final int ordersPerDay;
+    private final int days;
+
+    public TopItemsBenchmark(int distinctItems, int ordersPerDay, int days) {
+        if (distinctItems <= 0 || ordersPerDay <= 0 || days <= 0) {
+            throw new IllegalArgumentException("Items, orders per day and days must be greater than zero");
+        }
+        this.distinctItems = distinctItems;
+        this.ordersPerDay = ordersPerDay;
+        this.days = days;
+    }
+
+    public static void main(String[] args) {
+        int distinctItems = args.length > 0 ? Integer.parseInt(args[0]) : 50_000;
+        int ordersPerDay = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int days = args.length > 2 ? Integer.parseInt(args[2]) : 365;
+        int rounds = args.length > 3 ? Integer.parseInt(args[3]) : 5;
+        new TopItemsBenchmark(distinctItems, ordersPerDay, days).run(rounds);
+    }
+
+    public void run(int rounds) {
+        SalesReportView view = new SalesReportView();
+        ReportService reportService = new ReportService(view);
+        Map<String, Integer> trueUnits = new HashMap<>();
+        LocalDate from = RestaurantTime.today().minusDays(days - 1);
+        LocalDate to = RestaurantTime.today();
+        long loadStart = System.nanoTime();
+        long units = deliver(view, from, trueUnits);
+        System.out.printf("loaded %d orders, %d units of %d distinct items in %.0f ms%n",
+                (long) ordersPerDay * days, units, trueUnits.size(), (System.nanoTime() - loadStart) / 1e6);
+
+        for (int round = 1; round <= rounds; round++) {
+            long start = System.nanoTime();
+            Map<String, Integer> exact = reportService.getMostPopularItems(from, to, TOP);
+            double exactMillis = (System.nanoTime() - start) / 1e6;
+            start = System.nanoTime();
+            ApproximateTopItems approximate = reportService.getApproximateMostPopularItems(from, to, TOP);
+            double approximateMillis = (System.nanoTime() - start) / 1e6;
+
+            int found = 0;
+            long worstOvercount = 0;
+            for (Map.Entry<String, Integer> entry : approximate.getItems().entrySet()) {
+                if (exact.containsKey(entry.getKey())) {
+                    found++;
+                }
+                worstOvercount = Math.max(worstOvercount, entry.getValue() - trueUnits.get(entry.getKey()));
+            }
+            System.out.printf("round %d: exact %.1f ms holding %d entries, approximate %.1f ms holding at most %d;"
+                            + " %d/%d of the true top %d, worst overcount %d (bound %d)%n",
+                    round, exactMillis, trueUnits.size(), approximateMillis, SKETCH_COUNTERS,
+                    found, TOP, TOP, worstOvercount, approximate.getMaxError());
+        }
+    }
+
+    // Each order is one to four lines of one or two units; returns the units sold
+    private long deliver(SalesReportView view, LocalDate from, Map<String, Integer> trueUnits) {
+        Random random = new Random(7);
+        double[] cumulative = zipfCumulative();
+        MenuItemSnapshot[] items = new MenuItemSnapshot[distinctItems];
+        Customer customer = new Customer("Guest", "Main St", "555-0100");
+        long units = 0;
+        long orderId = 1;
+        for (int d = 0; d < days; d++) {
+            int epochDay = RestaurantTime.epochDay(from.plusDays(d));
+            long createdMillis = epochDay * 86_400_000L + 43_200_000L;
+            for (int o = 0; o < ordersPerDay; o++) {
+                Order order = new Order(orderId++, customer, createdMillis, epochDay, null);
+                int lines = 1 + random.nextInt(4);
+                for (int line = 0; line < lines; line++) {
+                    int item = pick(cumulative, random.nextDouble());
+                    if (items[item] == null) {
+                        items[item] = MenuItemSnapshot.restore(item, "item-" + item, "Special " + item,
+                                "Main Dish", 500 + item % 2000, 1);
+                    }
+                    int quantity = 1 + random.nextInt(2);
+                    order.addItem(items[item], quantity);
+                    trueUnits.merge(items[item].getName(), quantity, Integer::sum);
+                    units += quantity;
+                }
+                view.stateChanged(order, DeliveredState.INSTANCE);
+            }
+        }
+        return units;
+    }
+
+    private double[] zipfCumulative() {
+        double[] cumulative = new double[distinctItems];
+        double sum = 0;
+        for (int i = 0; i < distinctItems; i++) {
+            sum += 1 / Math.pow(i + 1, ZIPF_EXPONENT);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < distinctItems; i++) {
+            cumulative[i] /= sum;
+        }
+        return cumulative;
+    }
+
+    private static int pick(double[] cumulative, double u) {
+        int low = 0;
+        int high = cumulative.length - 1;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (cumulative[mid] < u) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
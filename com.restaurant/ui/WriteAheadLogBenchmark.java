@@ -0,0 +1,206 @@
+package ui;
+
+import application.CustomerService;
+import application.MenuService;
+import application.OrderRequest;
+import application.OrderService;
+import domain.model.Customer;
+import domain.model.Order;
+import infrastructure.persistence.InMemoryCustomerRepository;
+import infrastructure.persistence.InMemoryMenuRepository;
+import infrastructure.persistence.InMemoryOrderRepository;
+import infrastructure.persistence.OrderWriteAheadLog;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+/**
+ * Measures the order log on local disk with its default group commit
+ * settings, in two parts.
+ *
+ * Appends: a number of staff threads each create orders through
+ * {@link OrderService}, add three lines and advance them to Delivered,
+ * seven journaled changes per order, each returning once it is on disk.
+ * Prints changes per second and the average wait per change; throughput
+ * grows with the number of appenders sharing each fsync.
+ *
+ * Recovery: a log of the given number of events is written (each order
+ * placed with three lines is four events), then a fresh order service
+ * recovers from it, first from the log alone and again after a checkpoint.
+ * The recovery runs in the same JVM as the writes, so the replay code may
+ * already be partly compiled.
+ *
+ * Usage: {@code WriteAheadLogBenchmark [appenderCounts] [seconds] [events]},
+ * by default {@code 1,16,64} appenders for 3 seconds each and 1000000 events.
+ * The logs go to a temporary directory that is removed afterwards.
+ */
+public class WriteAheadLogBenchmark {
+    private static final int MENU_ITEMS = 50;
+    private static final int CUSTOMERS = 2000;
+    private static final int LINES = 3;
+    // Received, Preparing, Ready, Delivered
+    private static final int ADVANCES = 3;
+    private static final int PLACED_PER_CALL = 1000;
+
+    private final InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+    private final List<String> menuItemIds = new ArrayList<>();
+    private final List<Customer> customers = new ArrayList<>();
+
+    public WriteAheadLogBenchmark() {
+        MenuService menuService = new MenuService(menuRepository);
+        for (int i = 0; i < MENU_ITEMS; i++) {
+            menuItemIds.add(menuService.addMenuItem("main", "Dish " + i, 5 + i, "Sample", false).getId());
+        }
+        CustomerService customerService = new CustomerService(new InMemoryCustomerRepository());
+        for (int i = 0; i < CUSTOMERS; i++) {
+            customers.add(customerService.addCustomer("Customer " + i, "Main St", "555-" + (100000 + i)));
+        }
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        String appenderCounts = args.length > 0 ? args[0] : "1,16,64";
+        int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 3;
+        int events = args.length > 2 ? Integer.parseInt(args[2]) : 1_000_000;
+        WriteAheadLogBenchmark benchmark = new WriteAheadLogBenchmark();
+        for (String count : appenderCounts.split(",")) {
+            benchmark.appends(Integer.parseInt(count.trim()), seconds);
+        }
+        benchmark.recovery(events);
+    }
+
+    public void appends(int appenders, int seconds) throws InterruptedException {
+        Path directory = createTempDirectory();
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory)) {
+            OrderService orderService = newOrderService(log);
+            LongAdder changes = new LongAdder();
+            long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+            Thread[] staff = new Thread[appenders];
+            for (int t = 0; t < appenders; t++) {
+                Random random = new Random(t);
+                staff[t] = new Thread(() -> {
+                    while (System.nanoTime() < deadline) {
+                        Order order = orderService.createOrder(customers.get(random.nextInt(CUSTOMERS)));
+                        for (int line = 0; line < LINES; line++) {
+                            orderService.addItemToOrder(order.getId(),
+                                    menuItemIds.get(random.nextInt(MENU_ITEMS)), 1 + random.nextInt(2));
+                        }
+                        for (int step = 0; step < ADVANCES; step++) {
+                            orderService.progressOrderState(order.getId());
+                        }
+                        changes.add(1 + LINES + ADVANCES);
+                    }
+                }, "staff-" + t);
+            }
+            long start = System.nanoTime();
+            for (Thread thread : staff) {
+                thread.start();
+            }
+            for (Thread thread : staff) {
+                thread.join();
+            }
+            double elapsed = (System.nanoTime() - start) / 1e9;
+            long total = changes.sum();
+            System.out.printf("%3d appenders: %7d changes in %.1f s, %8.0f changes/s, %.2f ms per change%n",
+                    appenders, total, elapsed, total / elapsed, appenders * elapsed * 1000 / total);
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    public void recovery(int events) {
+        Path directory = createTempDirectory();
+        try {
+            int orders = events / (1 + LINES);
+            long start = System.nanoTime();
+            try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory)) {
+                OrderService orderService = newOrderService(log);
+                Random random = new Random(7);
+                for (int placed = 0; placed < orders; placed += PLACED_PER_CALL) {
+                    List<OrderRequest> requests = new ArrayList<>(PLACED_PER_CALL);
+                    for (int i = placed; i < Math.min(orders, placed + PLACED_PER_CALL); i++) {
+                        OrderRequest request = new OrderRequest(customers.get(random.nextInt(CUSTOMERS)));
+                        for (int line = 0; line < LINES; line++) {
+                            request.addLine(menuItemIds.get(random.nextInt(MENU_ITEMS)), 1 + random.nextInt(2));
+                        }
+                        requests.add(request);
+                    }
+                    orderService.placeOrders(requests);
+                }
+            }
+            System.out.printf("wrote %d events (%d orders), %.1f MB of log, in %.0f ms%n",
+                    (long) orders * (1 + LINES), orders, directorySize(directory) / (1024.0 * 1024),
+                    (System.nanoTime() - start) / 1e6);
+
+            recover(directory, "from the log", orders, true);
+            recover(directory, "from the checkpoint", orders, false);
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    // Recovers into a fresh order service and optionally checkpoints what it recovered
+    private void recover(Path directory, String source, int orders, boolean checkpoint) {
+        long start = System.nanoTime();
+        try (OrderWriteAheadLog log = new OrderWriteAheadLog(directory)) {
+            InMemoryOrderRepository orderRepository = new InMemoryOrderRepository();
+            OrderService orderService = new OrderService(orderRepository, new InMemoryCustomerRepository(),
+                    menuRepository, log);
+            orderService.recover();
+            double millis = (System.nanoTime() - start) / 1e6;
+            int recovered = orderRepository.findAll().size();
+            if (recovered != orders) {
+                throw new IllegalStateException("Recovered " + recovered + " of " + orders + " orders");
+            }
+            System.out.printf("recovered %d orders %s in %.0f ms (%.0f events/s)%n",
+                    recovered, source, millis, orders * (1 + LINES) / (millis / 1000));
+            if (checkpoint) {
+                orderService.checkpoint();
+            }
+        }
+    }
+
+    private OrderService newOrderService(OrderWriteAheadLog log) {
+        OrderService orderService = new OrderService(new InMemoryOrderRepository(), new InMemoryCustomerRepository(),
+                menuRepository, log);
+        orderService.recover();
+        return orderService;
+    }
+
+    private static long directorySize(Path directory) {
+        try (Stream<Path> files = Files.list(directory)) {
+            long bytes = 0;
+            for (Path file : (Iterable<Path>) files::iterator) {
+                bytes += Files.size(file);
+            }
+            return bytes;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot list " + directory, e);
+        }
+    }
+
+    private static Path createTempDirectory() {
+        try {
+            return Files.createTempDirectory("order-log");
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot create a directory for the order log", e);
+        }
+    }
+
+    private static void deleteRecursively(Path directory) {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : (Iterable<Path>) files.sorted(Comparator.reverseOrder())::iterator) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot remove " + directory, e);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package domain.decorator;
+
+import domain.model.MenuItemSnapshot;
+import domain.model.MenuItemSnapshot.Modifier;
+import domain.model.Money;
+import support.TestRunner;
+
+import java.util.List;
+
+import static support.Assert.check;
+import static support.Assert.checkEquals;
+
+// Interning of compiled customizations and the bounds on what is kept
+public class CustomizationCacheTest {
+    private static final List<Modifier> EXTRA_CHEESE = List.of(new Modifier("Extra cheese", Money.of(1.50)));
+
+    public static void main(String[] args) {
+        TestRunner.run(CustomizationCacheTest.class);
+    }
+
+    private static MenuItemSnapshot burger(long priceCents, long catalogVersion) {
+        return MenuItemSnapshot.restore(0, "burger", "Burger", "Mains", priceCents, catalogVersion);
+    }
+
+    static void sameCustomizationIsShared() {
+        CustomizationCache cache = new CustomizationCache();
+        MenuItemSnapshot base = burger(1000, 1);
+        MenuItemSnapshot first = cache.compile(base, EXTRA_CHEESE);
+        check(first == cache.compile(base, List.copyOf(EXTRA_CHEESE)), "equal modifiers share one snapshot");
+        checkEquals(1150L, first.getPriceCents(), "base plus modifier");
+    }
+
+    static void repricedBaseIsNeverConfused() {
+        CustomizationCache cache = new CustomizationCache();
+        MenuItemSnapshot before = cache.compile(burger(1000, 1), EXTRA_CHEESE);
+        MenuItemSnapshot after = cache.compile(burger(1200, 2), EXTRA_CHEESE);
+        checkEquals(1150L, before.getPriceCents(), "old base price");
+        checkEquals(1350L, after.getPriceCents(), "new base price");
+    }
+
+    static void onlyTheNewestBasesAreKept() {
+        CustomizationCache cache = new CustomizationCache();
+        MenuItemSnapshot oldest = burger(1000, 1);
+        MenuItemSnapshot kept = cache.compile(oldest, EXTRA_CHEESE);
+        for (int version = 2; version <= CustomizationCache.BASES_PER_ITEM + 1; version++) {
+            cache.compile(burger(1000 + version, version), EXTRA_CHEESE);
+        }
+        MenuItemSnapshot again = cache.compile(oldest, EXTRA_CHEESE);
+        check(again != kept, "the oldest base was evicted");
+        checkEquals(kept.getPriceCents(), again.getPriceCents(), "recompiled to the same price");
+    }
+
+    static void variantsPerBaseAreBounded() {
+        CustomizationCache cache = new CustomizationCache();
+        MenuItemSnapshot base = burger(1000, 1);
+        for (int i = 0; i < CustomizationCache.VARIANTS_PER_BASE; i++) {
+            cache.compile(base, List.of(new Modifier("Note " + i, Money.ZERO)));
+        }
+        List<Modifier> overflow = List.of(new Modifier("One too many", Money.ZERO));
+        MenuItemSnapshot first = cache.compile(base, overflow);
+        check(first != cache.compile(base, overflow), "past the bound, snapshots are not interned");
+        checkEquals(1000L, first.getPriceCents(), "but still priced correctly");
+    }
+}
@@ -0,0 +1,115 @@
+package domain.model;
+
+import domain.observer.OrderObserver;
+import domain.state.DeliveredState;
+import domain.state.OrderState;
+import domain.state.PreparingState;
+import domain.state.ReadyState;
+import domain.state.ReceivedState;
+import support.TestRunner;
+import support.Threads;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static support.Assert.check;
+import static support.Assert.checkEquals;
+
+// Compare-and-set state transitions under contention
+public class OrderStateTest {
+    private static final int THREADS = 16;
+
+    public static void main(String[] args) {
+        TestRunner.run(OrderStateTest.class);
+    }
+
+    static void transitionsFollowTheLifecycle() {
+        Order order = new Order(new Customer("Ana", "Main St", "555-0100"));
+        check(order.getState() == ReceivedState.INSTANCE, "new orders are received");
+        check(order.nextState(), "received -> preparing");
+        check(order.nextState(), "preparing -> ready");
+        check(order.nextState(), "ready -> delivered");
+        check(order.getState() == DeliveredState.INSTANCE, "ends delivered");
+        check(!order.nextState(), "delivered is terminal");
+    }
+
+    static void staleExpectedStateLoses() {
+        Order order = new Order(new Customer("Ana", "Main St", "555-0100"));
+        check(order.advanceFrom(ReceivedState.INSTANCE), "first advance wins");
+        check(!order.advanceFrom(ReceivedState.INSTANCE), "second advance from the same state loses");
+        check(order.getState() == PreparingState.INSTANCE, "moved exactly one step");
+    }
+
+    // Every thread tries every transition of the same order; each must happen, and be seen, exactly once
+    static void racingThreadsFireEachTransitionOnce() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            Map<OrderState, AtomicInteger> seen = new ConcurrentHashMap<>();
+            Order order = new Order(new Customer("Ana", "Main St", "555-0100"), countingObserver(seen));
+            AtomicInteger wins = new AtomicInteger();
+            Threads.runConcurrently(THREADS, () -> {
+                for (int step = 0; step < 3; step++) {
+                    if (order.nextState()) {
+                        wins.incrementAndGet();
+                    }
+                }
+            });
+            checkEquals(3, wins.get(), "winning transitions in round " + round);
+            checkEquals(DeliveredState.INSTANCE, order.getState(), "final state in round " + round);
+            for (OrderState state : List.of(PreparingState.INSTANCE, ReadyState.INSTANCE, DeliveredState.INSTANCE)) {
+                checkEquals(1, seen.getOrDefault(state, new AtomicInteger()).get(),
+                        state.getStateName() + " notifications in round " + round);
+            }
+        }
+    }
+
+    // Threads advance many orders at once from whatever state they last saw
+    static void manyOrdersUnderContentionAreDeliveredOnce() throws Exception {
+        AtomicInteger delivered = new AtomicInteger();
+        OrderObserver observer = new OrderObserver() {
+            @Override
+            public void update(Order order) {
+            }
+
+            @Override
+            public void stateChanged(Order order, OrderState newState) {
+                if (newState == DeliveredState.INSTANCE) {
+                    delivered.incrementAndGet();
+                }
+            }
+        };
+        List<Order> orders = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            orders.add(new Order(new Customer("C" + i, "Main St", "555-0100"), observer));
+        }
+        Threads.runConcurrently(THREADS, () -> {
+            for (Order order : orders) {
+                OrderState seen = order.getState();
+                if (seen != DeliveredState.INSTANCE) {
+                    order.advanceFrom(seen);
+                }
+            }
+        });
+        // Finish whatever the threads left, single-threaded
+        for (Order order : orders) {
+            while (order.nextState()) {
+            }
+        }
+        checkEquals(orders.size(), delivered.get(), "delivery notifications");
+    }
+
+    private static OrderObserver countingObserver(Map<OrderState, AtomicInteger> seen) {
+        return new OrderObserver() {
+            @Override
+            public void update(Order order) {
+            }
+
+            @Override
+            public void stateChanged(Order order, OrderState newState) {
+                seen.computeIfAbsent(newState, state -> new AtomicInteger()).incrementAndGet();
+            }
+        };
+    }
+}
@@ -0,0 +1,107 @@
+package domain.service;
+
+import domain.model.Customer;
+import domain.model.MenuItemSnapshot;
+import domain.model.Order;
+import domain.service.OrderProcessingService.Station;
+import domain.state.ReadyState;
+import support.TestRunner;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static support.Assert.check;
+import static support.Assert.checkEquals;
+import static support.Assert.checkThrows;
+
+// Kitchen dispatch: failed lines, interrupted cooks and lines no station makes
+public class OrderProcessingServiceTest {
+    private static final MenuItemSnapshot STEAK = MenuItemSnapshot.restore(0, "steak", "Steak", "Main Dish", 2500, 1);
+    private static final MenuItemSnapshot SODA = MenuItemSnapshot.restore(1, "soda", "Soda", "Beverage", 200, 1);
+    private static final MenuItemSnapshot TASTING = MenuItemSnapshot.restore(2, "tasting", "Tasting", "Specials", 9000, 1);
+
+    public static void main(String[] args) {
+        TestRunner.run(OrderProcessingServiceTest.class);
+    }
+
+    private static Order order(MenuItemSnapshot... items) {
+        Order order = new Order(new Customer("Ana", "Main St", "555-0100"));
+        for (MenuItemSnapshot item : items) {
+            order.addItem(item, 1);
+        }
+        return order;
+    }
+
+    private static void awaitReady(Order order) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (order.getState() != ReadyState.INSTANCE && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+    }
+
+    static void interruptedLineDoesNotStopTheCook() throws Exception {
+        AtomicInteger calls = new AtomicInteger();
+        Map<Station, Integer> oneCookEach = new EnumMap<>(Station.class);
+        for (Station station : Station.values()) {
+            oneCookEach.put(station, 1);
+        }
+        // Without stealing, nobody else could make the grill's lines if its cook stopped
+        OrderProcessingService kitchen = new OrderProcessingService(oneCookEach, false, (station, order, line) -> {
+            if (calls.incrementAndGet() == 1) {
+                throw new InterruptedException("line abandoned");
+            }
+        }, (orderId, expected) -> false);
+        Order abandoned = order(STEAK);
+        kitchen.submit(abandoned);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (kitchen.getFailedLineCount() == 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        checkEquals(1L, kitchen.getFailedLineCount(), "the interrupted line failed");
+
+        Order next = order(STEAK, SODA);
+        kitchen.submit(next);
+        kitchen.shutdown(5, TimeUnit.SECONDS);
+        checkEquals(1L, kitchen.getCompletedOrderCount(), "the cooks carried on with the next order");
+        checkEquals(3, calls.get(), "every line reached a cook");
+    }
+
+    static void failedAdvanceIsReported() throws Exception {
+        IllegalStateException refused = new IllegalStateException("order log unavailable");
+        OrderProcessingService kitchen = new OrderProcessingService(1, (station, order, line) -> { },
+                (orderId, expected) -> {
+                    throw refused;
+                });
+        kitchen.submit(order(STEAK));
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (kitchen.getFailedAdvanceCount() < 2 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        kitchen.shutdown(5, TimeUnit.SECONDS);
+        // Received to Preparing when the first line starts, Preparing to Ready when the last one is done
+        checkEquals(2L, kitchen.getFailedAdvanceCount(), "both advances failed");
+        check(kitchen.getLastAdvanceFailure() == refused, "the failure is kept");
+        checkEquals(0L, kitchen.getFailedLineCount(), "the line itself was made");
+    }
+
+    static void ordersAdvanceOnTheirOwn() throws Exception {
+        Order order = order(STEAK, SODA);
+        OrderProcessingService kitchen = new OrderProcessingService(1, (station, submitted, line) -> { },
+                (orderId, expected) -> order.advanceFrom(expected));
+        kitchen.submit(order);
+        awaitReady(order);
+        check(order.getState() == ReadyState.INSTANCE, "ready once every line is made");
+        kitchen.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    static void lineWithoutAStationQueuesNothing() {
+        OrderProcessingService kitchen = new OrderProcessingService(1, (station, order, line) -> { },
+                (orderId, expected) -> false);
+        Order order = order(SODA, TASTING);
+        checkThrows(IllegalArgumentException.class, () -> kitchen.submit(order), "no station makes Specials");
+        checkEquals(0, kitchen.getQueueDepth(Station.BAR), "the soda was not queued either");
+        checkEquals(0L, kitchen.getCompletedLineCount(Station.BAR), "nor made");
+    }
+}
@@ -0,0 +1,52 @@
+package domain.service.discount;
+
+import domain.model.Customer;
+import domain.model.MainDish;
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
+import domain.model.MenuItemSnapshot;
+import domain.model.Money;
+import domain.model.Order;
+import support.TestRunner;
+
+import java.util.List;
+
+import static support.Assert.checkEquals;
+
+// Compiled promotions only trust an ordinal for the item it had at compile time
+public class PromotionPlanTest {
+
+    public static void main(String[] args) {
+        TestRunner.run(PromotionPlanTest.class);
+    }
+
+    private static MenuCatalog menuWithSteak() {
+        MenuItem steak = new MainDish("Steak", Money.of(25.00), "Grilled", false);
+        steak.setId("steak");
+        return MenuCatalog.EMPTY.with(steak);
+    }
+
+    private static long discountOn(PromotionPlan plan, MenuItemSnapshot item) {
+        Order order = new Order(new Customer("Ana", "Main St", "555-0100"));
+        order.addItem(item, 1);
+        return plan.discountCents(order, order.getItems(), item.getPriceCents());
+    }
+
+    static void compiledItemGetsItsRate() {
+        MenuCatalog catalog = menuWithSteak();
+        PromotionPlan plan = PromotionPlan.compile(
+                List.of(Promotion.itemPercentage("Steak night", "steak", 50)), catalog);
+        checkEquals(1250L, discountOn(plan, catalog.getSnapshot("steak").get()), "half off the steak");
+    }
+
+    static void otherItemWithTheSameOrdinalIsNotDiscounted() {
+        MenuCatalog catalog = menuWithSteak();
+        PromotionPlan plan = PromotionPlan.compile(List.of(
+                Promotion.itemPercentage("Steak night", "steak", 50),
+                Promotion.combo("Steak and soda", 3.00, List.of("steak", "soda-x"))), catalog);
+        int steakOrdinal = catalog.getSnapshot("steak").get().getOrdinal();
+        // A line from a menu rebuilt since, where that ordinal went to another item
+        MenuItemSnapshot soda = MenuItemSnapshot.restore(steakOrdinal, "soda", "Soda", "Beverage", 200, 1);
+        checkEquals(0L, discountOn(plan, soda), "the soda keeps its price");
+    }
+}
@@ -0,0 +1,115 @@
+package infrastructure.notification;
+
+import domain.model.Customer;
+import domain.model.Order;
+import domain.observer.OrderObserver;
+import domain.observer.OrderStateChange;
+import domain.state.OrderState;
+import domain.state.PreparingState;
+import support.TestRunner;
+import support.Threads;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static support.Assert.check;
+import static support.Assert.checkEquals;
+
+// Asynchronous delivery: batches, new orders, and no event lost to a shutdown
+public class OrderNotifierTest {
+    private static final int PUBLISHERS = 4;
+    private static final int EVENTS_EACH = 2000;
+
+    public static void main(String[] args) {
+        TestRunner.run(OrderNotifierTest.class);
+    }
+
+    // Counts every change however it arrives: queued, batched or on the publishing thread
+    private static class CountingObserver implements OrderObserver {
+        final AtomicInteger changes = new AtomicInteger();
+        final List<Integer> batchSizes = new CopyOnWriteArrayList<>();
+        final List<List<Order>> received = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void update(Order order) {
+        }
+
+        @Override
+        public void stateChanged(Order order, OrderState newState) {
+            changes.incrementAndGet();
+        }
+
+        @Override
+        public void stateChanged(List<OrderStateChange> batch) {
+            batchSizes.add(batch.size());
+            changes.addAndGet(batch.size());
+        }
+
+        @Override
+        public void ordersReceived(List<Order> orders) {
+            received.add(orders);
+        }
+    }
+
+    static void publishersRacingShutdownLoseNothing() throws Exception {
+        Order order = new Order(new Customer("Ana", "Main St", "555-0100"));
+        for (OrderNotifier.BackpressurePolicy policy : List.of(OrderNotifier.BackpressurePolicy.BLOCK,
+                OrderNotifier.BackpressurePolicy.DROP_OLDEST)) {
+            for (int round = 0; round < 20; round++) {
+                OrderNotifier notifier = new OrderNotifier(8, 4, policy);
+                CountingObserver observer = new CountingObserver();
+                notifier.subscribe(observer);
+                Threads.runConcurrently(PUBLISHERS + 1, thread -> {
+                    if (thread == 0) {
+                        Thread.sleep(1);
+                        notifier.shutdown(10, TimeUnit.SECONDS);
+                        return;
+                    }
+                    for (int i = 0; i < EVENTS_EACH; i++) {
+                        notifier.stateChanged(order, PreparingState.INSTANCE);
+                    }
+                });
+                notifier.shutdown(10, TimeUnit.SECONDS);
+                checkEquals(PUBLISHERS * EVENTS_EACH, observer.changes.get() + (int) notifier.getDroppedCount(),
+                        policy + " round " + round + ", delivered plus dropped");
+            }
+        }
+    }
+
+    static void queuedChangesArriveAsBatchesAndNewOrdersAreForwarded() throws Exception {
+        Order order = new Order(new Customer("Ana", "Main St", "555-0100"));
+        CountDownLatch firstCall = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CountingObserver observer = new CountingObserver() {
+            @Override
+            public void stateChanged(List<OrderStateChange> batch) {
+                firstCall.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                super.stateChanged(batch);
+            }
+        };
+        OrderNotifier notifier = new OrderNotifier(1024, 64, OrderNotifier.BackpressurePolicy.BLOCK);
+        notifier.subscribe(observer);
+        notifier.stateChanged(order, PreparingState.INSTANCE);
+        check(firstCall.await(10, TimeUnit.SECONDS), "worker picked up the first change");
+        // Queued while the worker is busy with the first one
+        for (int i = 0; i < 100; i++) {
+            notifier.stateChanged(order, PreparingState.INSTANCE);
+        }
+        notifier.ordersReceived(List.of(order));
+        release.countDown();
+        notifier.shutdown(10, TimeUnit.SECONDS);
+
+        checkEquals(101, observer.changes.get(), "changes delivered");
+        checkEquals(List.of(1, 64, 36), observer.batchSizes, "batch sizes");
+        checkEquals(List.of(List.of(order)), observer.received, "new orders forwarded");
+        checkEquals(102L, notifier.getDeliveredCount(), "delivered events");
+    }
+}
@@ -0,0 +1,204 @@
+package infrastructure.persistence;
+
+import application.MenuService;
+import application.OrderService;
+import domain.model.Customer;
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
+import domain.model.Money;
+import domain.model.Order;
+import domain.service.PriceRule;
+import support.TestRunner;
+import support.Threads;
+
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static support.Assert.check;
+import static support.Assert.checkEquals;
+import static support.Assert.checkThrows;
+import static support.Assert.deleteRecursively;
+import static support.Assert.tempDirectory;
+
+// Repricings publish prices in catalog snapshots only; open orders keep the prices they were created against
+public class InMemoryMenuRepositoryTest {
+    private static final int REPRICINGS = 200;
+    private static final int ORDER_TAKERS = 3;
+    private static final int ORDERS_EACH = 300;
+
+    public static void main(String[] args) {
+        TestRunner.run(InMemoryMenuRepositoryTest.class);
+    }
+
+    private static long lineCents(Order order) {
+        return order.getItems().get(0).getItem().getPriceCents();
+    }
+
+    private static long publishedCents(InMemoryMenuRepository menuRepository, MenuItem item) {
+        return menuRepository.getCatalog().getSnapshot(item.getId()).get().getPriceCents();
+    }
+
+    static void openOrderKeepsItsPricesWithSeparatelyBuiltServices() {
+        InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+        MenuService menuService = new MenuService(menuRepository);
+        OrderService orderService = new OrderService(new InMemoryOrderRepository(),
+                new InMemoryCustomerRepository(), menuRepository);
+        MenuItem steak = menuService.addMenuItem("main", "Steak", 25.00, "Grilled", false);
+        Customer customer = new Customer("Ana", "Main St", "555-0100");
+
+        Order open = orderService.createOrder(customer);
+        menuService.repriceMenu(List.of(PriceRule.percentage(10)));
+        orderService.addItemToOrder(open.getId(), steak.getId(), 1);
+        Order later = orderService.createOrder(customer);
+        orderService.addItemToOrder(later.getId(), steak.getId(), 1);
+
+        checkEquals(2500L, lineCents(open), "order opened before the repricing");
+        checkEquals(2750L, lineCents(later), "order opened after it");
+    }
+
+    static void openOrderKeepsItsPricesAcrossAnEditedPrice() {
+        InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+        MenuService menuService = new MenuService(menuRepository);
+        OrderService orderService = new OrderService(new InMemoryOrderRepository(),
+                new InMemoryCustomerRepository(), menuRepository);
+        MenuItem steak = menuService.addMenuItem("main", "Steak", 25.00, "Grilled", false);
+        Customer customer = new Customer("Ana", "Main St", "555-0100");
+
+        Order open = orderService.createOrder(customer);
+        MenuItem edited = steak.copy();
+        edited.setPrice(Money.of(30.00));
+        menuService.updateMenuItem(edited);
+        orderService.addItemToOrder(open.getId(), steak.getId(), 1);
+        Order later = orderService.createOrder(customer);
+        orderService.addItemToOrder(later.getId(), steak.getId(), 1);
+
+        checkEquals(2500L, lineCents(open), "order opened before the price edit");
+        checkEquals(3000L, lineCents(later), "order opened after it");
+    }
+
+    static void editsThatKeepThePriceAreNotPinned() {
+        InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+        MenuService menuService = new MenuService(menuRepository);
+        MenuItem steak = menuService.addMenuItem("main", "Steak", 25.00, "Grilled", false);
+        MenuCatalog before = menuRepository.getCatalog();
+        MenuItem renamed = steak.copy();
+        renamed.setName("Sirloin");
+        menuService.updateMenuItem(renamed);
+
+        check(menuRepository.catalogFor(before.getVersion()) == menuRepository.getCatalog(),
+                "a rename leaves orders on the current catalog");
+    }
+
+    static void onlyTheMostRecentRepricingsAreRetained() {
+        InMemoryMenuRepository menuRepository = new InMemoryMenuRepository(2);
+        MenuService menuService = new MenuService(menuRepository);
+        menuService.addMenuItem("main", "Steak", 25.00, "Grilled", false);
+        MenuCatalog original = menuRepository.getCatalog();
+        MenuCatalog first = menuService.repriceMenu(List.of(PriceRule.percentage(10)));
+        MenuCatalog second = menuService.repriceMenu(List.of(PriceRule.percentage(10)));
+        MenuCatalog third = menuService.repriceMenu(List.of(PriceRule.percentage(10)));
+
+        check(menuRepository.catalogFor(original.getVersion()) == first, "oldest retained prices");
+        check(menuRepository.catalogFor(first.getVersion()) == first, "before the second repricing");
+        check(menuRepository.catalogFor(second.getVersion()) == second, "before the third repricing");
+        check(menuRepository.catalogFor(third.getVersion()) == third, "no repricing since");
+    }
+
+    static void repricingWhileOrdersAreTakenNeverLeaksNewPrices() throws Exception {
+        InMemoryMenuRepository menuRepository = new InMemoryMenuRepository(REPRICINGS);
+        MenuService menuService = new MenuService(menuRepository);
+        OrderService orderService = new OrderService(new InMemoryOrderRepository(),
+                new InMemoryCustomerRepository(), menuRepository);
+        MenuItem steak = menuService.addMenuItem("main", "Steak", 25.00, "Grilled", false);
+        Customer customer = new Customer("Ana", "Main St", "555-0100");
+        // Steak price at every catalog version
+        Map<Long, Long> priceByVersion = new ConcurrentHashMap<>();
+        MenuCatalog initial = menuRepository.getCatalog();
+        priceByVersion.put(initial.getVersion(), initial.getSnapshot(steak.getId()).get().getPriceCents());
+        Queue<Order> orders = new ConcurrentLinkedQueue<>();
+
+        Threads.runConcurrently(ORDER_TAKERS + 1, thread -> {
+            if (thread == 0) {
+                for (int i = 0; i < REPRICINGS; i++) {
+                    MenuCatalog repriced = menuService.repriceMenu(List.of(PriceRule.percentage(1)));
+                    priceByVersion.put(repriced.getVersion(), repriced.getSnapshot(steak.getId()).get().getPriceCents());
+                }
+                return;
+            }
+            for (int i = 0; i < ORDERS_EACH; i++) {
+                Order order = orderService.createOrder(customer);
+                Thread.yield();
+                orderService.addItemToOrder(order.getId(), steak.getId(), 1);
+                orders.add(order);
+            }
+        });
+
+        for (Order order : orders) {
+            checkEquals(priceByVersion.get(order.getCatalogVersion()), lineCents(order),
+                    "price at version " + order.getCatalogVersion());
+        }
+    }
+
+    static void repricingLeavesItemsOfOlderCatalogsAlone() {
+        InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+        MenuService menuService = new MenuService(menuRepository);
+        MenuItem steak = menuService.addMenuItem("main", "Steak", 25.00, "Grilled", false);
+        MenuCatalog before = menuRepository.getCatalog();
+        MenuCatalog after = menuService.repriceMenu(List.of(PriceRule.percentage(10)));
+
+        checkEquals(2500L, steak.getPrice().getCents(), "the item itself");
+        checkEquals(2500L, before.getSnapshot(steak.getId()).get().getPriceCents(), "older catalog");
+        checkEquals(2750L, after.getSnapshot(steak.getId()).get().getPriceCents(), "repriced catalog");
+    }
+
+    static void editsKeepRepricedPricesUnlessThePriceChanges() throws Exception {
+        InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+        MenuService menuService = new MenuService(menuRepository);
+        MenuItem steak = menuService.addMenuItem("main", "Steak", 25.00, "Grilled", false);
+        menuService.repriceMenu(List.of(PriceRule.percentage(10)));
+
+        MenuItem described = steak.copy();
+        described.setDescription("Grilled, with fries");
+        menuService.updateMenuItem(described);
+        checkEquals(2750L, publishedCents(menuRepository, steak), "after a description edit");
+
+        Path directory = tempDirectory("menu");
+        try {
+            menuRepository.saveSnapshot(directory.resolve("menu.snap"));
+            InMemoryMenuRepository reloaded = new InMemoryMenuRepository();
+            check(reloaded.loadSnapshot(directory.resolve("menu.snap")), "snapshot loaded");
+            MenuItem saved = reloaded.findById(steak.getId()).get().copy();
+            saved.setName("Sirloin");
+            reloaded.save(saved);
+            checkEquals(2750L, publishedCents(reloaded, saved), "after a rename of the saved menu");
+        } finally {
+            deleteRecursively(directory);
+        }
+
+        MenuItem repriced = menuRepository.findById(steak.getId()).get().copy();
+        repriced.setPrice(Money.of(30.00));
+        menuService.updateMenuItem(repriced);
+        checkEquals(3000L, publishedCents(menuRepository, steak), "after a price edit");
+    }
+
+    static void editsNeverReachOlderCatalogs() {
+        InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+        MenuService menuService = new MenuService(menuRepository);
+        MenuItem steak = menuService.addMenuItem("main", "Steak", 25.00, "Grilled", false);
+        MenuCatalog before = menuRepository.getCatalog();
+
+        MenuItem renamed = steak.copy();
+        renamed.setName("Sirloin");
+        menuService.updateMenuItem(renamed);
+        checkEquals("Steak", before.findById(steak.getId()).get().getName(), "older catalog");
+        checkEquals("Sirloin", menuRepository.getCatalog().findById(steak.getId()).get().getName(), "current catalog");
+
+        MenuItem published = menuRepository.findById(steak.getId()).get();
+        checkThrows(IllegalArgumentException.class, () -> menuService.updateMenuItem(published),
+                "saving the published item itself");
+    }
+}
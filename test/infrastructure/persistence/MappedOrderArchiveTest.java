@@ -0,0 +1,68 @@
+package infrastructure.persistence;
+
+import domain.model.Customer;
+import domain.model.MenuItemSnapshot;
+import domain.model.Order;
+import domain.model.RestaurantTime;
+import support.TestRunner;
+
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static support.Assert.check;
+import static support.Assert.checkEquals;
+import static support.Assert.deleteRecursively;
+import static support.Assert.tempDirectory;
+
+// Orders re-delivered by a journal replay are archived once, however old they are
+public class MappedOrderArchiveTest {
+    // Enough orders to seal a block and start the next
+    private static final int ORDERS = MappedOrderArchive.BLOCK_ROWS + 5000;
+    private static final int DAYS = 10;
+    private static final long FIRST_ID = 1_000_000;
+
+    private static final Customer CUSTOMER = new Customer(42, "Ana", "Main St", "555-0100");
+    private static final MenuItemSnapshot SODA = MenuItemSnapshot.restore(0, "soda", "Soda", "Beverages", 200, 1);
+
+    public static void main(String[] args) {
+        TestRunner.run(MappedOrderArchiveTest.class);
+    }
+
+    // Orders are spread over the days oldest first, one line each
+    private static Order delivered(long id) {
+        int day = RestaurantTime.epochDay(RestaurantTime.today()) - DAYS + (int) ((id - FIRST_ID) * DAYS / ORDERS);
+        Order order = new Order(id, CUSTOMER, day * 86_400_000L, day, null);
+        order.addItem(SODA, 1);
+        return order;
+    }
+
+    private static long archivedRows(MappedOrderArchive archive) {
+        AtomicLong rows = new AtomicLong();
+        archive.scan(RestaurantTime.today().minusDays(DAYS + 1), RestaurantTime.today(),
+                (day, orderId, customer, item, quantity, unitPrice, discount, tax) -> rows.incrementAndGet());
+        return rows.get();
+    }
+
+    static void replayedOrdersAreArchivedOnce() {
+        Path directory = tempDirectory("archive");
+        try {
+            try (MappedOrderArchive archive = new MappedOrderArchive(directory)) {
+                for (long id = FIRST_ID; id < FIRST_ID + ORDERS; id++) {
+                    check(archive.append(delivered(id)), "first delivery of " + id);
+                }
+                check(!archive.append(delivered(FIRST_ID)), "oldest order, same run");
+                check(!archive.append(delivered(FIRST_ID + ORDERS - 1)), "newest order, same run");
+            }
+            try (MappedOrderArchive archive = new MappedOrderArchive(directory)) {
+                // Oldest day, a sealed block, and the block still being filled
+                for (long id : new long[] {FIRST_ID, FIRST_ID + ORDERS / 3, FIRST_ID + ORDERS - 1}) {
+                    check(!archive.append(delivered(id)), "replayed order " + id);
+                }
+                checkEquals((long) ORDERS, archivedRows(archive), "rows after replay");
+                check(archive.append(delivered(FIRST_ID + ORDERS)), "an order not seen before");
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+}
@@ -0,0 +1,229 @@
+package infrastructure.persistence;
+
+import application.MenuService;
+import application.OrderService;
+import domain.model.Customer;
+import domain.model.MenuCatalog;
+import domain.model.MenuItem;
+import domain.model.MenuItemSnapshot;
+import domain.model.Order;
+import domain.observer.OrderObserver;
+import domain.service.PriceRule;
+import domain.state.OrderState;
+import domain.state.ReceivedState;
+import support.TestRunner;
+import support.Threads;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static support.Assert.check;
+import static support.Assert.checkEquals;
+import static support.Assert.checkThrows;
+import static support.Assert.deleteRecursively;
+import static support.Assert.tempDirectory;
+
+// Order log replay across restarts, with and without a saved menu
+public class OrderWriteAheadLogTest {
+    private static final int WRITERS = 4;
+    private static final int CHECKPOINTS = 50;
+
+    public static void main(String[] args) {
+        TestRunner.run(OrderWriteAheadLogTest.class);
+    }
+
+    // One run of the application: a menu, an order log and the services on top
+    private static final class Session implements AutoCloseable {
+        final InMemoryMenuRepository menuRepository = new InMemoryMenuRepository();
+        final InMemoryOrderRepository orderRepository = new InMemoryOrderRepository();
+        final MenuService menuService = new MenuService(menuRepository);
+        final OrderWriteAheadLog log;
+        final OrderService orderService;
+
+        Session(Path directory) {
+            log = new OrderWriteAheadLog(directory);
+            orderService = new OrderService(orderRepository, new InMemoryCustomerRepository(),
+                    menuRepository, log);
+        }
+
+        String itemOn(Order order) {
+            return orderRepository.findById(order.getId()).get().getItems().get(0).getItem().getName();
+        }
+
+        @Override
+        public void close() {
+            log.close();
+        }
+    }
+
+    static void ordersFromRebuiltMenusKeepTheirItems() throws Exception {
+        Path directory = tempDirectory("wal");
+        try {
+            Order soda;
+            Order steak;
+            try (Session first = new Session(directory)) {
+                first.orderService.recover();
+                MenuItem item = first.menuService.addMenuItem("beverage", "Soda", 2.00, "Cold", false);
+                soda = first.orderService.createOrder(new Customer("Ana", "Main St", "555-0100"));
+                first.orderService.addItemToOrder(soda.getId(), item.getId(), 1);
+            }
+            // The menu was not saved, so the next run hands out the same ordinal and version again
+            try (Session second = new Session(directory)) {
+                second.orderService.recover();
+                MenuItem item = second.menuService.addMenuItem("main", "Steak", 25.00, "Grilled", false);
+                steak = second.orderService.createOrder(new Customer("Bo", "High St", "555-0101"));
+                second.orderService.addItemToOrder(steak.getId(), item.getId(), 1);
+            }
+            try (Session third = new Session(directory)) {
+                third.orderService.recover();
+                checkEquals("Soda", third.itemOn(soda), "first run's order");
+                checkEquals("Steak", third.itemOn(steak), "second run's order");
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    static void savedMenuResumesOrdinalsAndVersions() throws Exception {
+        Path directory = tempDirectory("menu");
+        try {
+            Path file = directory.resolve("menu.snap");
+            MenuCatalog saved;
+            try (Session first = new Session(directory)) {
+                MenuItem soda = first.menuService.addMenuItem("beverage", "Soda", 2.00, "Cold", false);
+                first.menuService.addMenuItem("main", "Steak", 25.00, "Grilled", false);
+                first.menuService.addMenuItem("dessert", "Flan", 6.00, "Caramel", false);
+                first.menuService.removeMenuItem(soda.getId());
+                first.menuService.repriceMenu(List.of(PriceRule.percentage(10)));
+                first.menuRepository.saveSnapshot(file);
+                saved = first.menuRepository.getCatalog();
+            }
+            try (Session second = new Session(directory)) {
+                check(second.menuRepository.loadSnapshot(file), "snapshot found");
+                MenuCatalog loaded = second.menuRepository.getCatalog();
+                checkEquals(saved.getVersion(), loaded.getVersion(), "catalog version");
+                checkEquals(saved.getOrdinalsById(), loaded.getOrdinalsById(), "ordinals, removed items included");
+                for (MenuItem item : saved.getItems()) {
+                    MenuItemSnapshot before = saved.getSnapshot(item.getId()).get();
+                    MenuItemSnapshot after = loaded.getSnapshot(item.getId()).get();
+                    checkEquals(before.getOrdinal(), after.getOrdinal(), "ordinal of " + item.getName());
+                    checkEquals(before.getPriceCents(), after.getPriceCents(), "price of " + item.getName());
+                    checkEquals(before.getCatalogVersion(), after.getCatalogVersion(),
+                            "snapshot version of " + item.getName());
+                }
+                MenuItem wine = second.menuService.addMenuItem("beverage", "Wine", 8.00, "Red", true);
+                MenuCatalog edited = second.menuRepository.getCatalog();
+                checkEquals(saved.getOrdinalCount(), edited.getSnapshot(wine.getId()).get().getOrdinal(),
+                        "new items get a fresh ordinal");
+                checkEquals(saved.getVersion() + 1, edited.getVersion(), "versions carry on");
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    static void checkpointsDuringWritesLoseNothing() throws Exception {
+        Path directory = tempDirectory("checkpoint");
+        try {
+            Map<String, Integer> quantities = new ConcurrentHashMap<>();
+            try (Session first = new Session(directory)) {
+                first.orderService.recover();
+                MenuItem soda = first.menuService.addMenuItem("beverage", "Soda", 2.00, "Cold", false);
+                AtomicBoolean checkpointing = new AtomicBoolean(true);
+                // Writers keep going until thread 0 has taken its last checkpoint, so that one races them too
+                Threads.runConcurrently(WRITERS + 1, thread -> {
+                    if (thread == 0) {
+                        try {
+                            for (int i = 0; i < CHECKPOINTS; i++) {
+                                first.orderService.checkpoint();
+                            }
+                        } finally {
+                            checkpointing.set(false);
+                        }
+                        return;
+                    }
+                    for (int i = 0; checkpointing.get(); i++) {
+                        Order order = first.orderService.createOrder(
+                                new Customer("Writer " + thread, "Main St", "555-010" + thread));
+                        int quantity = 1 + i % 3;
+                        first.orderService.addItemToOrder(order.getId(), soda.getId(), quantity);
+                        quantities.put(order.getId(), quantity);
+                    }
+                });
+            }
+            try (Session second = new Session(directory)) {
+                second.orderService.recover();
+                checkEquals(quantities.size(), second.orderRepository.findAll().size(), "recovered orders");
+                for (Map.Entry<String, Integer> entry : quantities.entrySet()) {
+                    Order order = second.orderRepository.findById(entry.getKey()).get();
+                    checkEquals(entry.getValue(), order.getItems().get(0).getQuantity(), "quantity on " + entry.getKey());
+                }
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    static void lineEditsSurviveARestart() throws Exception {
+        Path directory = tempDirectory("edits");
+        try {
+            Order order;
+            try (Session first = new Session(directory)) {
+                first.orderService.recover();
+                MenuItem soda = first.menuService.addMenuItem("beverage", "Soda", 2.00, "Cold", false);
+                MenuItem steak = first.menuService.addMenuItem("main", "Steak", 25.00, "Grilled", false);
+                order = first.orderService.createOrder(new Customer("Ana", "Main St", "555-0100"));
+                first.orderService.addItemToOrder(order.getId(), soda.getId(), 1);
+                first.orderService.addItemToOrder(order.getId(), steak.getId(), 1);
+                first.orderService.changeItemQuantity(order.getId(), 1, 3);
+                first.orderService.removeItemFromOrder(order.getId(), 0);
+            }
+            try (Session second = new Session(directory)) {
+                second.orderService.recover();
+                Order recovered = second.orderRepository.findById(order.getId()).get();
+                checkEquals(1, recovered.getItems().size(), "lines left");
+                checkEquals("Steak", second.itemOn(order), "remaining line");
+                checkEquals(7500L, recovered.calculateSubtotal().getCents(), "subtotal");
+            }
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+
+    // A transition that cannot be journaled is not applied, and nobody hears of it
+    static void stateChangesAreJournaledBeforeTheyApply() throws Exception {
+        Path directory = tempDirectory("state");
+        try {
+            Session session = new Session(directory);
+            session.orderService.recover();
+            Order order = session.orderService.createOrder(new Customer("Ana", "Main St", "555-0100"));
+            List<String> heard = new ArrayList<>();
+            session.orderService.addOrderObserver(order.getId(), new OrderObserver() {
+                @Override
+                public void update(Order changed) {
+                }
+
+                @Override
+                public void stateChanged(Order changed, OrderState newState) {
+                    heard.add(newState.getStateName());
+                }
+            });
+            session.close();
+
+            checkThrows(IllegalStateException.class, () -> session.orderService.progressOrderState(order.getId()),
+                    "advancing with the log closed");
+            check(order.getState() == ReceivedState.INSTANCE, "state unchanged");
+            checkThrows(IllegalStateException.class,
+                    () -> session.orderService.advanceOrder(order.getId(), ReceivedState.INSTANCE),
+                    "kitchen advance with the log closed");
+            check(order.getState() == ReceivedState.INSTANCE, "still unchanged");
+            checkEquals(List.of(), heard, "notifications");
+        } finally {
+            deleteRecursively(directory);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package support;
+
+/**
+ * Runs every test class in the tree; add new ones here. From the project root:
+ * <pre>
+ * javac -d bin-test $(find com.restaurant test -name '*.java' ! -name module-info.java)
+ * java -cp bin-test support.AllTests
+ * </pre>
+ */
+public final class AllTests {
+    private static final String[] TEST_CLASSES = {
+            "domain.decorator.CustomizationCacheTest",
+            "domain.model.OrderStateTest",
+            "domain.service.OrderProcessingServiceTest",
+            "domain.service.discount.PromotionPlanTest",
+            "infrastructure.notification.OrderNotifierTest",
+            "infrastructure.persistence.InMemoryMenuRepositoryTest",
+            "infrastructure.persistence.MappedOrderArchiveTest",
+            "infrastructure.persistence.OrderWriteAheadLogTest",
+    };
+
+    private AllTests() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        TestRunner.main(TEST_CLASSES);
+    }
+}
@@ -0,0 +1,63 @@
+package support;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Runs plain-Java tests without a framework. A test class is a set of static,
+ * parameterless void methods, run in name order; a test fails by throwing.
+ * Each test class has a main method calling {@link #run}, and
+ * {@link AllTests} runs them all.
+ */
+public final class TestRunner {
+    private TestRunner() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int failed = 0;
+        for (String name : args) {
+            failed += runClass(Class.forName(name));
+        }
+        System.exit(failed == 0 ? 0 : 1);
+    }
+
+    // Runs one test class and exits with a failure status if any test failed
+    public static void run(Class<?> testClass) {
+        System.exit(runClass(testClass) == 0 ? 0 : 1);
+    }
+
+    // Returns the number of failed tests
+    static int runClass(Class<?> testClass) {
+        List<Method> tests = new ArrayList<>();
+        for (Method method : testClass.getDeclaredMethods()) {
+            if (Modifier.isStatic(method.getModifiers()) && method.getParameterCount() == 0
+                    && method.getReturnType() == void.class && !method.isSynthetic()) {
+                tests.add(method);
+            }
+        }
+        tests.sort(Comparator.comparing(Method::getName));
+
+        int failed = 0;
+        for (Method test : tests) {
+            String name = testClass.getSimpleName() + "." + test.getName();
+            long start = System.nanoTime();
+            try {
+                test.setAccessible(true);
+                test.invoke(null);
+                System.out.printf("PASS %s (%d ms)%n", name, (System.nanoTime() - start) / 1_000_000);
+            } catch (InvocationTargetException e) {
+                failed++;
+                System.out.println("FAIL " + name);
+                e.getCause().printStackTrace(System.out);
+            } catch (IllegalAccessException e) {
+                failed++;
+                System.out.println("FAIL " + name + ": " + e);
+            }
+        }
+        return failed;
+    }
+}
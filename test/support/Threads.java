@@ -0,0 +1,48 @@
+package support;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+public final class Threads {
+    private Threads() {
+    }
+
+    @FunctionalInterface
+    public interface Task {
+        void run(int thread) throws Exception;
+    }
+
+    public static void runConcurrently(int threads, Runnable task) throws InterruptedException {
+        runConcurrently(threads, thread -> task.run());
+    }
+
+    // Starts all threads together, waits for them and rethrows the first failure
+    public static void runConcurrently(int threads, Task task) throws InterruptedException {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> started = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            int index = t;
+            Thread thread = new Thread(() -> {
+                try {
+                    start.await();
+                    task.run(index);
+                } catch (Throwable e) {
+                    synchronized (failures) {
+                        failures.add(e);
+                    }
+                }
+            });
+            thread.start();
+            started.add(thread);
+        }
+        start.countDown();
+        for (Thread thread : started) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new AssertionError("A worker thread failed", failures.get(0));
+        }
+    }
+}